@@ -0,0 +1,64 @@
+package com.project.spring_project.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The adaptive concurrency limit groups, {@code app.concurrencyLimitGroups.<name>.*}.
+ * <p>
+ * For example, the auth endpoints limited on their own, starting at 10 requests in flight:
+ * <pre>
+ * app.concurrencyLimitGroups.auth.routes=/api/auth/**
+ * app.concurrencyLimitGroups.auth.initialLimit=10
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * The groups by name; a request belongs to the first group with a route matching its path.
+     */
+    private Map<String, Group> concurrencyLimitGroups = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Group {
+
+        /**
+         * Path patterns of the requests of the group.
+         */
+        private List<String> routes = new ArrayList<>();
+
+        /**
+         * Requests in flight allowed until latencies are known.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 2;
+
+        private int maxLimit = 200;
+
+        /**
+         * How many times its baseline latency a window may average before the limit is cut.
+         */
+        private double latencyTolerance = 2.0;
+
+        /**
+         * What the limit is multiplied by when it is cut.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * The length of the windows latencies are averaged over.
+         */
+        private long windowMs = 1000;
+    }
+}
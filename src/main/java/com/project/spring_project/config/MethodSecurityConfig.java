@@ -0,0 +1,98 @@
+package com.project.spring_project.config;
+
+import com.project.spring_project.secutrity.services.RoleCatalog;
+import com.project.spring_project.secutrity.services.RoleMaskAuthorizationManager;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.authorization.method.AuthorizationManagerAfterMethodInterceptor;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.PostAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PostFilterAuthorizationMethodInterceptor;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PreFilterAuthorizationMethodInterceptor;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * Method security with the stock pre/post annotations, {@code @PreAuthorize} being checked by the role mask manager.
+ * <p>
+ * {@code prePostEnabled} is off so that Spring does not register its own {@code @PreAuthorize} interceptor; the
+ * {@code @PreFilter}, {@code @PostAuthorize} and {@code @PostFilter} interceptors it would have registered are
+ * declared here instead, with the same expression handler.
+ */
+@Configuration
+@EnableMethodSecurity(prePostEnabled = false)
+public class MethodSecurityConfig {
+
+    /**
+     * Enforces {@code @PreAuthorize} with the role mask manager instead of evaluating SpEL on every call.
+     * <p>
+     * Role checks such as {@code hasRole('ADMIN') or hasRole('AUDITOR')} are compiled into bit tests against the
+     * {@link RoleCatalog}; other expressions are evaluated by Spring's SpEL manager as before. The method is static
+     * and the catalog is looked up on first use, because advisors are created before the other beans.
+     *
+     * @param roleCatalog provider of the role catalog
+     * @param context     the application context, for bean references in expressions
+     * @return the {@code @PreAuthorize} method interceptor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preAuthorizeAuthorizationMethodInterceptor(ObjectProvider<RoleCatalog> roleCatalog,
+                                                              ApplicationContext context) {
+        PreAuthorizeAuthorizationManager expressions = new PreAuthorizeAuthorizationManager();
+        expressions.setExpressionHandler(expressionHandler(context));
+        expressions.setApplicationContext(context);
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(
+                new RoleMaskAuthorizationManager(SingletonSupplier.of(roleCatalog::getObject), expressions));
+    }
+
+    /**
+     * @param context the application context, for bean references in expressions
+     * @return the {@code @PreFilter} method interceptor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preFilterAuthorizationMethodInterceptor(ApplicationContext context) {
+        PreFilterAuthorizationMethodInterceptor interceptor = new PreFilterAuthorizationMethodInterceptor();
+        interceptor.setExpressionHandler(expressionHandler(context));
+        return interceptor;
+    }
+
+    /**
+     * @param context the application context, for bean references in expressions
+     * @return the {@code @PostAuthorize} method interceptor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor postAuthorizeAuthorizationMethodInterceptor(ApplicationContext context) {
+        PostAuthorizeAuthorizationManager manager = new PostAuthorizeAuthorizationManager();
+        manager.setExpressionHandler(expressionHandler(context));
+        manager.setApplicationContext(context);
+        return AuthorizationManagerAfterMethodInterceptor.postAuthorize(manager);
+    }
+
+    /**
+     * @param context the application context, for bean references in expressions
+     * @return the {@code @PostFilter} method interceptor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor postFilterAuthorizationMethodInterceptor(ApplicationContext context) {
+        PostFilterAuthorizationMethodInterceptor interceptor = new PostFilterAuthorizationMethodInterceptor();
+        interceptor.setExpressionHandler(expressionHandler(context));
+        return interceptor;
+    }
+
+    private static MethodSecurityExpressionHandler expressionHandler(ApplicationContext context) {
+        DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(context);
+        return expressionHandler;
+    }
+}
@@ -0,0 +1,74 @@
+package com.project.spring_project.config;
+
+import com.project.spring_project.secutrity.services.JCacheRateLimiterBackend;
+import com.project.spring_project.secutrity.services.LeasingRateLimiterBackend;
+import com.project.spring_project.secutrity.services.RateLimiterBackend;
+import com.project.spring_project.secutrity.services.TokenBucketTable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+
+@Configuration
+@EnableConfigurationProperties({RateLimitPolicyProperties.class, ConcurrencyLimitProperties.class})
+public class RateLimitConfig {
+
+    public static final String LOCAL = "local";
+    public static final String JCACHE = "jcache";
+    public static final String HYBRID = "hybrid";
+
+    @Value("${app.rateLimitMaxKeys:100000}")
+    private int maxKeys;
+
+    @Value("${app.rateLimitCacheName:rate-limit-buckets}")
+    private String cacheName;
+
+    @Value("${app.rateLimitLeaseSize:2}")
+    private int leaseSize;
+
+    @Value("${app.rateLimitLeaseMs:1000}")
+    private long leaseMs;
+
+    /**
+     * Creates the storage of the rate limit buckets of each policy.
+     * <p>
+     * {@code local} keeps them in memory on each node, so every node allows the full limit. {@code jcache} keeps
+     * them in a JCache cache shared by the cluster, and {@code hybrid} takes tokens from that cache in batches of
+     * {@code app.rateLimitLeaseSize}. The cache comes from the application's {@link CacheManager} bean if there is
+     * one, otherwise from the default JCache provider on the classpath; all policies share it.
+     *
+     * @param backend      local, jcache or hybrid
+     * @param cacheManager the application's JCache cache manager, if any
+     * @return the factory of the backend of each policy
+     * @throws IllegalArgumentException if the backend is unknown
+     */
+    @Bean
+    public RateLimiterBackend.Factory rateLimiterBackends(@Value("${app.rateLimitBackend:local}") String backend,
+                                                          ObjectProvider<CacheManager> cacheManager) {
+        return switch (backend) {
+            case LOCAL -> (name, bandwidths) -> new TokenBucketTable(maxKeys, bandwidths, System::nanoTime);
+            case JCACHE -> (name, bandwidths) -> new JCacheRateLimiterBackend(cache(cacheManager), name, bandwidths);
+            case HYBRID -> (name, bandwidths) -> new LeasingRateLimiterBackend(
+                    new JCacheRateLimiterBackend(cache(cacheManager), name, bandwidths),
+                    leaseSize, leaseMs, maxKeys, System::nanoTime);
+            default -> throw new IllegalArgumentException("Unsupported rate limit backend: " + backend);
+        };
+    }
+
+    private Cache<String, byte[]> cache(ObjectProvider<CacheManager> cacheManagerProvider) {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable(
+                () -> Caching.getCachingProvider().getCacheManager());
+        Cache<String, byte[]> cache = cacheManager.getCache(cacheName, String.class, byte[].class);
+        if (cache == null) {
+            cache = cacheManager.createCache(cacheName,
+                    new MutableConfiguration<String, byte[]>().setTypes(String.class, byte[].class));
+        }
+        return cache;
+    }
+}
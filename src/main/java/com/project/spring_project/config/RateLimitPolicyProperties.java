@@ -0,0 +1,60 @@
+package com.project.spring_project.config;
+
+import com.project.spring_project.secutrity.services.RateLimited;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rate limit policy table, {@code app.rateLimitPolicies.<name>.*}.
+ * <p>
+ * For example, five login attempts per minute per client and two tiers of users on the admin API:
+ * <pre>
+ * app.rateLimitPolicies.auth.routes=/api/auth/**
+ * app.rateLimitPolicies.auth.limits=5/1m
+ * app.rateLimitPolicies.admin.routes=/api/admin/**
+ * app.rateLimitPolicies.admin.key=role
+ * app.rateLimitPolicies.admin.tiers.ADMIN=50/1s,10000/1h
+ * app.rateLimitPolicies.admin.limits=5/1s,500/1h
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app")
+public class RateLimitPolicyProperties {
+
+    /**
+     * The policies by name, the name {@link RateLimited#value()} refers to.
+     */
+    private Map<String, Policy> rateLimitPolicies = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+
+        /**
+         * Path patterns of the handlers the policy applies to, in addition to those annotated with its name.
+         */
+        private List<String> routes = new ArrayList<>();
+
+        /**
+         * What requests are counted per.
+         */
+        private RateLimited.Key key = RateLimited.Key.IP;
+
+        /**
+         * The limits, each {@code permits/period}; for role policies, those of users in no tier.
+         */
+        private List<String> limits = new ArrayList<>();
+
+        /**
+         * Role policies only: the limits by role name, the first tier the user has a role of applying.
+         */
+        private Map<String, List<String>> tiers = new LinkedHashMap<>();
+    }
+}
@@ -1,56 +1,106 @@
 package com.project.spring_project.config;
 
-import com.project.spring_project.secutrity.filter.RateLimitingFilter;
+import com.project.spring_project.secutrity.filter.CidrAccessFilter;
+import com.project.spring_project.secutrity.filter.ConcurrencyLimitFilter;
+import com.project.spring_project.secutrity.filter.PublicReadRequestMatcher;
 import com.project.spring_project.secutrity.jwt.JwtAuthenticationEntryPoint;
 import com.project.spring_project.secutrity.jwt.JwtAuthenticationFilter;
+import com.project.spring_project.secutrity.services.BCryptCostCalibrator;
 import com.project.spring_project.secutrity.services.PasswordService;
+import com.project.spring_project.secutrity.services.UpgradingPasswordEncoder;
 import com.project.spring_project.secutrity.services.UserDetailsServiceImpl;
+import jakarta.servlet.Filter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity
 public class SecurityConfig {
 
+    /**
+     * Read-only routes open to everyone, served by {@link #publicReadFilterChain} when no token is sent.
+     */
+    public static final String[] PUBLIC_READ_ROUTES = {"/api/countries/**", "/api/states/**", "/api/cities/**"};
+
     @Autowired
     private JwtAuthenticationFilter jwtFilter;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private CidrAccessFilter cidrAccessFilter;
 
     @Autowired
-    private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
 
     @Autowired
-    private RateLimitingFilter rateLimitingFilter;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * Configures the filter chain of anonymous public reads, which skips authentication entirely.
+     * <p>
+     * GET and HEAD requests to {@link #PUBLIC_READ_ROUTES} without an {@code Authorization} header only go through
+     * the network and concurrency filters and get the security headers: no JWT filter, no security context, session,
+     * request cache, anonymous authentication or authorization, since those routes are open to everyone. Requests
+     * that carry a token take the main chain, so an invalid token is still rejected.
+     *
+     * @param http the HttpSecurity object to configure
+     * @param corsConfigSource the CorsConfigurationSource object for CORS settings
+     * @return a SecurityFilterChain object matching only anonymous public reads
+     * @throws Exception if an error occurs during configuration
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicReadFilterChain(HttpSecurity http, @Qualifier("corsConfigurationSource") CorsConfigurationSource corsConfigSource) throws Exception {
+        configureHeaders(http);
+        http
+                .securityMatcher(new PublicReadRequestMatcher(PUBLIC_READ_ROUTES))
+                .cors(cors -> cors.configurationSource(corsConfigSource))
+                .csrf(AbstractHttpConfigurer::disable)
+                .securityContext(AbstractHttpConfigurer::disable)
+                .sessionManagement(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .servletApi(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .exceptionHandling(AbstractHttpConfigurer::disable)
+                .addFilterBefore(cidrAccessFilter, DisableEncodeUrlFilter.class) // Denied networks stop here
+                .addFilterAfter(concurrencyLimitFilter, CidrAccessFilter.class);
+
+        return http.build();
+    }
+
     /**
      * Configures the security filter chain for the application.
      * <p>
-     * This method sets up CORS, CSRF, session management, and request authorization.
+     * This method sets up CORS, CSRF, session management, and request authorization. Requests from denied networks
+     * are rejected by the {@link CidrAccessFilter} ahead of every other filter, and requests over the concurrency
+     * limit of their group by the {@link ConcurrencyLimitFilter} before authentication.
      *
      * @param http the HttpSecurity object to configure
      * @param corsConfigSource the CorsConfigurationSource object for CORS settings
@@ -58,20 +108,10 @@ public class SecurityConfig {
      * @throws Exception if an error occurs during configuration
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http, @Qualifier("corsConfigurationSource") CorsConfigurationSource corsConfigSource) throws Exception {
+        configureHeaders(http);
         http
-                .headers(headers -> headers
-                        .contentSecurityPolicy(csp -> csp
-                                .policyDirectives("default-src 'self'")
-                        ) //Allows to load resources only for own domain
-                        .frameOptions(frame -> frame.sameOrigin()) //Avoid being embedded in an iframe
-                        .httpStrictTransportSecurity(hsts -> hsts //Use https and domain/subdomain
-                                .includeSubDomains(true)
-                                .maxAgeInSeconds(31536000)
-                        )
-                        .referrerPolicy(referrer -> referrer.policy(ReferrerPolicyHeaderWriter.ReferrerPolicy.NO_REFERRER))//Controls how much referrer info is shared
-                )
-                .addFilterBefore(rateLimitingFilter, UsernamePasswordAuthenticationFilter.class)
                 .cors(cors -> cors.configurationSource(corsConfigSource))
                 .csrf(AbstractHttpConfigurer::disable)
                 .exceptionHandling(exception -> exception
@@ -81,6 +121,8 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(cidrAccessFilter, DisableEncodeUrlFilter.class) // Denied networks stop here
+                .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class) // Shed load before auth
                 .authorizeHttpRequests(auth -> auth
                         // Allowing all requests to public endpoints and control access using PreAuthorize
                         .requestMatchers("/api/test/**").permitAll()
@@ -89,9 +131,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/auditor/**").hasRole("AUDITOR")
                         .requestMatchers("/api/user/**").hasRole("USER")
-                        .requestMatchers("/api/countries/**").permitAll()
-                        .requestMatchers("/api/states/**").permitAll()
-                        .requestMatchers("/api/cities/**").permitAll()
+                        .requestMatchers(PUBLIC_READ_ROUTES).permitAll()
+                        .requestMatchers("/actuator/concurrency", "/actuator/metrics/**").hasRole("ADMIN")
 
 
                         .requestMatchers( //Doc endpoints
@@ -110,6 +151,69 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Sets the security headers, the same for every chain.
+     *
+     * @param http the HttpSecurity object to configure
+     * @throws Exception if an error occurs during configuration
+     */
+    private static void configureHeaders(HttpSecurity http) throws Exception {
+        http
+                .headers(headers -> headers
+                        .contentSecurityPolicy(csp -> csp
+                                .policyDirectives("default-src 'self'")
+                        ) //Allows to load resources only for own domain
+                        .frameOptions(frame -> frame.sameOrigin()) //Avoid being embedded in an iframe
+                        .httpStrictTransportSecurity(hsts -> hsts //Use https and domain/subdomain
+                                .includeSubDomains(true)
+                                .maxAgeInSeconds(31536000)
+                        )
+                        .referrerPolicy(referrer -> referrer.policy(ReferrerPolicyHeaderWriter.ReferrerPolicy.NO_REFERRER))//Controls how much referrer info is shared
+                );
+    }
+
+    /**
+     * Keeps Spring Boot from registering the JWT filter as a servlet filter too.
+     * <p>
+     * Filter beans are added to the servlet container automatically; the filters of the security filter chains run
+     * from those chains only, so without this they would run a second time outside of them.
+     *
+     * @param jwtFilter the JWT authentication filter
+     * @return the disabled registration
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtFilterRegistration(JwtAuthenticationFilter jwtFilter) {
+        return disabledRegistration(jwtFilter);
+    }
+
+    /**
+     * Keeps Spring Boot from registering the network access filter as a servlet filter too.
+     *
+     * @param cidrAccessFilter the network access filter
+     * @return the disabled registration
+     */
+    @Bean
+    public FilterRegistrationBean<CidrAccessFilter> cidrAccessFilterRegistration(CidrAccessFilter cidrAccessFilter) {
+        return disabledRegistration(cidrAccessFilter);
+    }
+
+    /**
+     * Keeps Spring Boot from registering the concurrency limit filter as a servlet filter too.
+     *
+     * @param concurrencyLimitFilter the concurrency limit filter
+     * @return the disabled registration
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter concurrencyLimitFilter) {
+        return disabledRegistration(concurrencyLimitFilter);
+    }
+
+    private static <T extends Filter> FilterRegistrationBean<T> disabledRegistration(T filter) {
+        FilterRegistrationBean<T> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     /**
      * Configures the authentication provider for the application.
      * <p>
@@ -141,13 +245,17 @@ public class SecurityConfig {
     /**
      * Configures the PasswordEncoder for the application.
      * <p>
-     * This method sets up a BCryptPasswordEncoder for password hashing and matching.
+     * This method sets up an UpgradingPasswordEncoder that hashes new passwords with the configured algorithm
+     * ({@code app.passwordEncoder}) and the BCrypt cost calibrated for this host, and still matches older hashes.
      *
+     * @param algorithm  the algorithm for new hashes: bcrypt, pbkdf2 or argon2
+     * @param calibrator the calibrator resolving the BCrypt cost factor
      * @return a PasswordEncoder object configured for password encoding
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.passwordEncoder:bcrypt}") String algorithm,
+                                           BCryptCostCalibrator calibrator) {
+        return new UpgradingPasswordEncoder(algorithm, calibrator.resolveCost());
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.project.spring_project.config;
 
 import com.project.spring_project.dto.request.RequestInterceptor;
+import com.project.spring_project.secutrity.filter.RateLimitInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.*;
@@ -11,8 +12,12 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private RequestInterceptor requestInterceptor;
 
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(requestInterceptor);
+        registry.addInterceptor(rateLimitInterceptor);
     }
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 package com.project.spring_project.controller;
 
 import com.project.spring_project.dto.AuditLogDto;
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
 import com.project.spring_project.entity.AuditLog;
 import com.project.spring_project.service.AuditLogService;
+import com.project.spring_project.service.impl.AuditLogExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/audit")
@@ -21,6 +35,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuditController {
 
     private final AuditLogService auditLogService;
+    private final AuditLogExporter auditLogExporter;
 
     /**
      * Endpoint to retrieve all audit logs
@@ -39,4 +54,66 @@ public class AuditController {
     public Page<AuditLogDto> getAuditLogs(@PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
         return auditLogService.getAllAuditLogs(pageable);
     }
+
+    /**
+     * Endpoint to search audit logs by user, operation, IP address, resource prefix and time range
+     * Only accessible to users with role ADMIN or AUDITOR
+     *
+     * @param search   the filters, all optional
+     * @param pageable the page, sorted by timestamp only
+     * @return a slice of the matching audit logs, without a total count
+     */
+    @Operation(summary = "Search audit logs",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Audit logs retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid filter or sort"),
+                    @ApiResponse(responseCode = "403", description = "Access denied")
+            }
+    )
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AUDITOR')")
+    @GetMapping("/audit-logs/search")
+    public Slice<AuditLogDto> searchAuditLogs(@Valid @ParameterObject AuditLogSearchRequest search,
+                                              @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
+        return auditLogService.searchAuditLogs(search, pageable);
+    }
+
+    /**
+     * Endpoint to export the audit logs matching a search, in timestamp order, as NDJSON or CSV
+     * Only accessible to users with role ADMIN or AUDITOR
+     * <p>
+     * The rows are streamed from the database to the response, so the export can be as large as the table.
+     *
+     * @param search the filters, all optional
+     * @param format ndjson or csv
+     * @param gzip   whether to gzip the file
+     * @return the export, as an attachment
+     */
+    @Operation(summary = "Export audit logs",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Audit logs exported successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid filter or format"),
+                    @ApiResponse(responseCode = "403", description = "Access denied")
+            }
+    )
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AUDITOR')")
+    @GetMapping("/audit-logs/export")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(@Valid @ParameterObject AuditLogSearchRequest search,
+                                                                 @RequestParam(defaultValue = "ndjson") String format,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                                                 HttpServletRequest request) {
+        AuditLogExporter.Format exportFormat = AuditLogExporter.Format.of(format);
+        StreamingResponseBody body = auditLogExporter.export(search, exportFormat, gzip);
+
+        // Exports outlast the default async timeout
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(auditLogExporter.getTimeoutMs());
+        }
+
+        String filename = "audit-logs." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
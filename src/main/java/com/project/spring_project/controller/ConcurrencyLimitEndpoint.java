@@ -0,0 +1,39 @@
+package com.project.spring_project.controller;
+
+import com.project.spring_project.dto.ConcurrencyLimitDto;
+import com.project.spring_project.secutrity.services.AdaptiveConcurrencyLimit;
+import com.project.spring_project.secutrity.services.ConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "concurrency")
+@RequiredArgsConstructor
+public class ConcurrencyLimitEndpoint {
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Actuator endpoint to list the live concurrency limit of each group of endpoints, its requests in flight and
+     * the requests it rejected
+     * Only accessible to users with role ADMIN
+     *
+     * @return the groups, in the order they are configured
+     */
+    @ReadOperation
+    public List<ConcurrencyLimitDto> getLimits() {
+        return concurrencyLimiter.getLimits().stream()
+                .map(limit -> new ConcurrencyLimitDto(limit.getName(), limit.getLimit(), limit.getInFlight(),
+                        limit.getRejected(), baselineMs(limit)))
+                .toList();
+    }
+
+    private static Double baselineMs(AdaptiveConcurrencyLimit limit) {
+        double baseline = limit.getBaselineNanos();
+        return Double.isNaN(baseline) ? null : baseline / 1_000_000.0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.project.spring_project.controller;
+
+import com.project.spring_project.dto.HeavyHitterDto;
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/heavy-hitters")
+@RequiredArgsConstructor
+public class HeavyHitterController {
+
+    private final HeavyHitterDetector heavyHitterDetector;
+
+    /**
+     * Endpoint to list the usernames, client addresses and subnets behind most failed logins and rate limited
+     * requests in the current window, and whether they are throttled
+     * Only accessible to users with role ADMIN
+     *
+     * @return the heavy hitters, heaviest first within each kind
+     */
+    @Operation(summary = "Get the current heavy hitters of failed logins",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Heavy hitters retrieved successfully"),
+                    @ApiResponse(responseCode = "403", description = "Access denied")
+            }
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public List<HeavyHitterDto> getHeavyHitters() {
+        return heavyHitterDetector.getHeavyHitters();
+    }
+}
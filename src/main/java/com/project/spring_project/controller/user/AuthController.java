@@ -2,6 +2,7 @@ package com.project.spring_project.controller.user;
 
 import com.project.spring_project.dto.request.*;
 import com.project.spring_project.dto.response.AuthResponse;
+import com.project.spring_project.secutrity.services.PasswordHashingExecutor;
 import com.project.spring_project.service.user.AuthService;
 import com.project.spring_project.util.LocalizationService;
 import com.project.spring_project.service.user.RefreshTokenService;
@@ -10,9 +11,13 @@ import io.swagger.v3.oas.annotations.links.Link;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -20,9 +25,12 @@ public class AuthController {
     private final AuthService authService;
     private final RefreshTokenService refreshTokenService;
     private final LocalizationService localizationService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     /**
      * Public endpoint for user login
+     * <p>
+     * The password is verified on the password hashing pool, the request thread is released meanwhile.
      *
      * @param request the login request containing user or email and password
      * @return a response entity containing the authentication response
@@ -37,17 +45,20 @@ public class AuthController {
                     ),
                     @ApiResponse(responseCode = "400", description = "Bad request"),
                     @ApiResponse(responseCode = "401", description = "Invalid credentials"),
-                    @ApiResponse(responseCode = "423", description = "Account locked")
+                    @ApiResponse(responseCode = "423", description = "Account locked"),
+                    @ApiResponse(responseCode = "503", description = "Server busy, retry after the Retry-After seconds")
             }
     )
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
+        return passwordHashingExecutor.submit(() -> authService.login(request))
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
      * Public endpoint for user registration
+     * <p>
+     * The password is hashed on the password hashing pool, the request thread is released meanwhile.
      *
      * @param request the registration request containing user details
      * @return a response entity indicating successful registration
@@ -64,12 +75,13 @@ public class AuthController {
                     @ApiResponse(responseCode = "400", description = "Email already exists"),
                     @ApiResponse(responseCode = "400", description = "Username already exists"),
                     @ApiResponse(responseCode = "400", description = "Invalid email format"),
-                    @ApiResponse(responseCode = "400", description = "Invalid password format")
+                    @ApiResponse(responseCode = "400", description = "Invalid password format"),
+                    @ApiResponse(responseCode = "503", description = "Server busy, retry after the Retry-After seconds")
             }
     )
-    public ResponseEntity<String> register(@Valid @RequestBody RegisterRequest request) {
-        authService.register(request);
-        return ResponseEntity.ok(localizationService.get("user.registered"));
+    public CompletableFuture<ResponseEntity<String>> register(@Valid @RequestBody RegisterRequest request) {
+        return passwordHashingExecutor.run(() -> authService.register(request))
+                .thenApply(done -> ResponseEntity.ok(localizationService.get("user.registered")));
     }
 
     /**
@@ -97,6 +109,8 @@ public class AuthController {
 
     /**
      * Public endpoint for resetting the password
+     * <p>
+     * The new password is hashed on the password hashing pool, the request thread is released meanwhile.
      *
      * @param request the request containing the token and new password
      * @return a response entity indicating successful password reset
@@ -111,12 +125,13 @@ public class AuthController {
                     @ApiResponse(responseCode = "400", description = "Invalid token"),
                     @ApiResponse(responseCode = "400", description = "Token has expired"),
                     @ApiResponse(responseCode = "400", description = "Token has already been used"),
+                    @ApiResponse(responseCode = "503", description = "Server busy, retry after the Retry-After seconds")
             }
     )
     @PostMapping("/reset-password")
-    public ResponseEntity<?> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
-        authService.resetPassword(request.getToken(), request.getNewPassword());
-        return ResponseEntity.ok(localizationService.get("user.password.reset"));
+    public CompletableFuture<ResponseEntity<String>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
+        return passwordHashingExecutor.run(() -> authService.resetPassword(request.getToken(), request.getNewPassword()))
+                .thenApply(done -> ResponseEntity.ok(localizationService.get("user.password.reset")));
     }
 
     /**
@@ -140,4 +155,26 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Endpoint for logging out the current session
+     *
+     * @param authorization the Authorization header containing the access token of the session
+     * @param request       optional request containing the refresh token of the session, to invalidate it as well
+     * @return a response entity indicating successful logout
+     */
+    @Operation(summary = "Logout, revoke the current access token and optionally its refresh token",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Logged out successfully"),
+                    @ApiResponse(responseCode = "401", description = "Invalid or expired session"),
+            }
+    )
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                         @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authorization.substring("Bearer ".length());
+        authService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.ok(localizationService.get("user.logged.out"));
+    }
+
 }
\ No newline at end of file
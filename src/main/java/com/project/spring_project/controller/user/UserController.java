@@ -204,6 +204,46 @@ public class UserController {
         return ResponseEntity.ok(localizationService.get("user.role.changed"));
     }
 
+    /**
+     * Revokes every session of a user.
+     *
+     * @param userId the ID of the user whose sessions are to be revoked
+     * @return ResponseEntity with status and message
+     */
+    @Operation(summary = "Revoke user sessions", description = "Revokes every access and refresh token of a user.",
+        responses = {
+                @ApiResponse(responseCode = "200", description = "Sessions revoked successfully"),
+                @ApiResponse(responseCode = "400", description = "User not found"),
+                @ApiResponse(responseCode = "403", description = "Access denied")
+        }
+    )
+    @PostMapping("/{userId}/sessions/revoke")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> revokeUserSessions(@PathVariable Long userId) {
+        userService.revokeUserSessions(userId);
+        return ResponseEntity.ok(localizationService.get("user.sessions.revoked"));
+    }
+
+    /**
+     * Revokes every session of the users holding a role.
+     *
+     * @param roleName the name of the role (e.g., "USER")
+     * @return ResponseEntity with status and message
+     */
+    @Operation(summary = "Revoke role sessions", description = "Revokes every access and refresh token of the users holding a role.",
+        responses = {
+                @ApiResponse(responseCode = "200", description = "Sessions revoked successfully"),
+                @ApiResponse(responseCode = "400", description = "Role not found"),
+                @ApiResponse(responseCode = "403", description = "Access denied")
+        }
+    )
+    @PostMapping("/roles/{roleName}/sessions/revoke")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> revokeRoleSessions(@PathVariable String roleName) {
+        userService.revokeRoleSessions(roleName);
+        return ResponseEntity.ok(localizationService.get("user.sessions.revoked"));
+    }
+
     /**
      * Changes the language preference for the currently authenticated user.
      *
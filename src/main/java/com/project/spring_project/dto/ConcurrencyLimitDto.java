@@ -0,0 +1,17 @@
+package com.project.spring_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The live adaptive concurrency limit of a group of endpoints.
+ */
+@Getter
+@AllArgsConstructor
+public class ConcurrencyLimitDto {
+    private String group;
+    private int limit;
+    private int inFlight;
+    private long rejected;
+    private Double baselineLatencyMs;
+}
@@ -0,0 +1,19 @@
+package com.project.spring_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A username, client address or subnet among the heaviest sources of failed logins and rate limited requests.
+ */
+@Getter
+@AllArgsConstructor
+public class HeavyHitterDto {
+    private String kind;
+    private String key;
+    private long count;
+    private boolean throttled;
+    private Instant throttledUntil;
+}
@@ -0,0 +1,37 @@
+package com.project.spring_project.dto.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the filters of an audit log search.
+ * <p>
+ * Every filter is optional; the entries returned match all the filters that are set. The time range includes
+ * {@code from} and excludes {@code to}.
+ */
+@Getter
+@Setter
+public class AuditLogSearchRequest {
+
+    private Long userId;
+
+    @Size(max = 100)
+    private String operation;
+
+    @Size(max = 45)
+    private String ipAddress;
+
+    // Prefix of the request URI, e.g. /api/users
+    @Size(max = 255)
+    private String resource;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+}
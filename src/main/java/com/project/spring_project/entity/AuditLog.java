@@ -18,6 +18,10 @@ public class AuditLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Unique id given when the entry is logged, so an entry inserted twice is stored once
+    @Column(name = "event_id", length = 36, unique = true)
+    private String eventId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -27,6 +27,11 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Null for tokens issued before token families
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "family_id")
+    private RefreshTokenFamily family;
+
     @Column(nullable = false)
     private Instant expiryDate;
 
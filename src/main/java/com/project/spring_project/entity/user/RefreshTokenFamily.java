@@ -0,0 +1,50 @@
+package com.project.spring_project.entity.user;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * The chain of refresh tokens issued for one login session.
+ * <p>
+ * Every refresh replaces the current token of the family. Presenting any other token of the family again is a
+ * reuse, and revokes the whole family.
+ */
+@Entity
+@Table(name = "refresh_token_family")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class RefreshTokenFamily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * Hash of the only refresh token of the family that can still be used.
+     */
+    @Column(name = "current_token_hash", nullable = false, length = 64)
+    private String currentTokenHash;
+
+    /**
+     * Hash of the latest access token issued in the family, the session it holds in the session registry.
+     */
+    @Column(name = "session_token_hash", length = 64)
+    private String sessionTokenHash;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+}
@@ -8,6 +8,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
@@ -33,6 +34,19 @@ public class User {
     @Column(nullable = false, unique = true, length = 100)
     private String email;
 
+    /**
+     * Lookup copies of the username and email, see {@link #normalizeIdentifier(String)}.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized", nullable = false, unique = true, length = 50)
+    private String usernameNormalized;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_normalized", nullable = false, unique = true, length = 100)
+    private String emailNormalized;
+
     @Builder.Default
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
@@ -46,8 +60,11 @@ public class User {
     @Column(nullable = false)
     private boolean enabled = true;
 
+    /**
+     * Write-behind copy of the user's session token hashes, owned by the session registry.
+     */
     @JsonIgnore
-    @Column(name = "active_token")
+    @Column(name = "active_token", insertable = false, updatable = false)
     private String activeToken;
 
     @Builder.Default
@@ -76,4 +93,36 @@ public class User {
     @Column(name = "updated_by")
     private String updatedBy;
 
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameNormalized = normalizeIdentifier(username);
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailNormalized = normalizeIdentifier(email);
+    }
+
+    /**
+     * Fills the normalized identifiers of users built without the setters.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalizeIdentifiers() {
+        usernameNormalized = normalizeIdentifier(username);
+        emailNormalized = normalizeIdentifier(email);
+    }
+
+    /**
+     * Normalizes a username or email for lookups: trimmed and lower case.
+     * <p>
+     * The indexed {@code username_normalized} and {@code email_normalized} columns hold this form, so logins
+     * by either identifier are exact index lookups.
+     *
+     * @param identifier the username or email
+     * @return the normalized identifier, or null if it is null
+     */
+    public static String normalizeIdentifier(String identifier) {
+        return identifier == null ? null : identifier.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
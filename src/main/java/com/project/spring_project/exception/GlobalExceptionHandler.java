@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -283,6 +284,40 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Handle password hashing busy exception and returns a 503 Service Unavailable response.
+     * <p>
+     * This method logs the error message and returns a response entity with the error details and a
+     * Retry-After header.
+     *
+     * @param ex the PasswordHashingBusyException
+     * @return a ResponseEntity with the error details
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Object> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        logError("PasswordHashingBusyException", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, localizationService.get("exception.server.busy")));
+    }
+
+    /**
+     * Handle too many requests exception and returns a 429 Too Many Requests response.
+     * <p>
+     * This method logs the error message and returns a response entity with the error details and a
+     * Retry-After header.
+     *
+     * @param ex the TooManyRequestsException
+     * @return a ResponseEntity with the error details
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequests(TooManyRequestsException ex) {
+        logError("TooManyRequestsException", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, localizationService.get("exception.too.many.requests")));
+    }
+
     /**
      * Handle all other exceptions and returns a 500 Internal Server Error response.
      * <p>
@@ -0,0 +1,19 @@
+package com.project.spring_project.exception;
+
+import lombok.Getter;
+
+/**
+ * Custom exception class to handle a saturated password hashing pool.
+ * <p>
+ * This exception is thrown when login, registration or password reset cannot be queued because every password
+ * hashing thread is busy and the queue is full. The client should retry after {@link #getRetryAfterSeconds()}.
+ */
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public PasswordHashingBusyException(int retryAfterSeconds) {
+        super("Password hashing queue is full");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.spring_project.exception;
+
+import lombok.Getter;
+
+/**
+ * Custom exception class to handle throttled clients.
+ * <p>
+ * This exception is thrown when a login comes from a client or for a username throttled by the heavy hitter
+ * detector. The client should retry after {@link #getRetryAfterSeconds()}.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds) {
+        super("Too many failed logins");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -24,7 +24,8 @@ public interface AuditLogMapper {
 
     @InheritInverseConfiguration(name = "toDto")
     @Mappings({
-            @Mapping(target = "user", ignore = true)
+            @Mapping(target = "user", ignore = true),
+            @Mapping(target = "eventId", ignore = true)
     })
     AuditLog toEntity(AuditLogDto auditLogDto);
 }
@@ -51,7 +51,9 @@ public interface  UserMapper {
             @Mapping(target = "updatedBy", ignore = true),
             @Mapping(target = "activeToken", ignore = true),
             @Mapping(target = "failedAttempts", ignore = true),
-            @Mapping(target = "password", ignore = true)
+            @Mapping(target = "password", ignore = true),
+            @Mapping(target = "usernameNormalized", ignore = true),
+            @Mapping(target = "emailNormalized", ignore = true)
     })
     User toEntity(UserDto userDto);
 
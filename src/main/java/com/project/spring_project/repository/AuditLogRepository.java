@@ -1,14 +1,43 @@
 package com.project.spring_project.repository;
 
 import com.project.spring_project.entity.AuditLog;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Window;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
     @EntityGraph(attributePaths = {"user"})
     Page<AuditLog> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"user"})
+    Page<AuditLog> findAll(Specification<AuditLog> specification, Pageable pageable);
+
+    /**
+     * Reads a page of the audit logs matching a specification, with their users, without counting all of them.
+     * <p>
+     * One more row than the page size is read to tell whether there is a next page.
+     *
+     * @param specification the filters
+     * @param pageable      the page and its sort
+     * @return the page, which only knows whether another one follows
+     */
+    default Slice<AuditLog> findSlice(Specification<AuditLog> specification, Pageable pageable) {
+        long offset = pageable.getOffset();
+        // An offset position points at the last row already read
+        Window<AuditLog> window = findBy(specification, query -> query
+                .sortBy(pageable.getSort())
+                .project("user")
+                .limit(pageable.getPageSize())
+                .scroll(offset == 0 ? ScrollPosition.offset() : ScrollPosition.offset(offset - 1)));
+        return new SliceImpl<>(window.getContent(), pageable, window.hasNext());
+    }
+}
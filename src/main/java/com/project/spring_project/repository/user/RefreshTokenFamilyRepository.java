@@ -0,0 +1,18 @@
+package com.project.spring_project.repository.user;
+
+import com.project.spring_project.entity.user.RefreshTokenFamily;
+import com.project.spring_project.entity.user.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE NOT EXISTS (SELECT 1 FROM RefreshToken r WHERE r.family = f)")
+    int deleteAllWithoutTokens();
+
+    void deleteByUser(User user);
+}
@@ -14,15 +14,45 @@ import java.util.Optional;
 
 @Repository
 public interface  RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user u LEFT JOIN FETCH u.roles LEFT JOIN FETCH t.family " +
+            "WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
 
-    List<RefreshToken> findByUserOrderByExpiryDateDesc(User user);
+    /**
+     * Marks a refresh token as used, if it is not already.
+     *
+     * @param tokenHash the hash of the refresh token
+     * @return 1 if this call consumed the token, 0 if it was already used
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.tokenHash = :tokenHash AND r.used = false")
+    int consume(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.family.id = :familyId AND r.used = false")
+    int markAllUsedByFamilyId(@Param("familyId") Long familyId);
 
+    /**
+     * Deletes the refresh tokens that expired before a cutoff, used or not.
+     * <p>
+     * Used tokens that have not expired are kept: a replay of one must still be found to revoke its family.
+     *
+     * @param cutoff the instant before which tokens expired
+     */
     @Modifying
-    @Query("DELETE FROM RefreshToken r WHERE r.used = true OR r.expiryDate < :cutoff")
-    void deleteAllExpiredOrUsedBefore(@Param("cutoff") Instant cutoff);
+    @Query("DELETE FROM RefreshToken r WHERE r.expiryDate < :cutoff")
+    void deleteAllExpiredBefore(@Param("cutoff") Instant cutoff);
 
     List<RefreshToken> findAllByUser(User user);
 
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.user.id = :userId AND r.used = false")
+    int markAllUsedByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.used = false AND r.user.id IN " +
+            "(SELECT u.id FROM User u JOIN u.roles ro WHERE ro.name = :roleName)")
+    int markAllUsedByRoleName(@Param("roleName") String roleName);
+
     void deleteByUser(User user);
 }
\ No newline at end of file
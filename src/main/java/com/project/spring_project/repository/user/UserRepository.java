@@ -11,14 +11,39 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
-    boolean existsByUsername(String username);
 
-    boolean existsByEmail(String email);
+    boolean existsByUsernameNormalized(String usernameNormalized);
 
-    Optional<User> findByEmail(String email);
+    boolean existsByEmailNormalized(String emailNormalized);
+
+    Optional<User> findByEmailNormalized(String emailNormalized);
 
     void deleteByUsername(String testUsername);
 
-    @Query("SELECT u FROM User u WHERE u.username = :value OR LOWER(u.email) = LOWER(:value)")
-    Optional<User> findByUsernameOrEmail(@Param("value") String usernameOrEmail);
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.usernameNormalized = :value OR u.emailNormalized = :value")
+    Optional<User> findByNormalizedIdentifier(@Param("value") String normalizedIdentifier);
+
+    default boolean existsByUsername(String username) {
+        return existsByUsernameNormalized(User.normalizeIdentifier(username));
+    }
+
+    default boolean existsByEmail(String email) {
+        return existsByEmailNormalized(User.normalizeIdentifier(email));
+    }
+
+    default Optional<User> findByEmail(String email) {
+        return findByEmailNormalized(User.normalizeIdentifier(email));
+    }
+
+    /**
+     * Finds a user by username or email, ignoring case and surrounding spaces.
+     * <p>
+     * Both identifiers are matched on their indexed normalized columns, so this is two index lookups.
+     *
+     * @param usernameOrEmail the username or email
+     * @return the user, if any
+     */
+    default Optional<User> findByUsernameOrEmail(String usernameOrEmail) {
+        return findByNormalizedIdentifier(User.normalizeIdentifier(usernameOrEmail));
+    }
 }
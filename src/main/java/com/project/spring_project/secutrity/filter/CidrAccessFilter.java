@@ -0,0 +1,65 @@
+package com.project.spring_project.secutrity.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.secutrity.services.CidrAccessList;
+import com.project.spring_project.secutrity.services.CidrTrie;
+import com.project.spring_project.util.IpAddresses;
+import com.project.spring_project.util.LocalizationService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.project.spring_project.util.ErrorResponseUtil.buildErrorResponse;
+
+/**
+ * Rejects requests from denied networks before any authentication work is done.
+ * <p>
+ * Registered at the head of the security filter chain; the lists are those of {@link CidrAccessList}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CidrAccessFilter extends OncePerRequestFilter {
+
+    private final CidrAccessList accessList;
+    private final LocalizationService localizationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Answers 403 Forbidden to clients whose address is denied, and passes the other requests on.
+     *
+     * @param request     the HttpServletRequest object
+     * @param response    the HttpServletResponse object
+     * @param filterChain the FilterChain object for further processing
+     * @throws ServletException if an error occurs during filtering
+     * @throws IOException      if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (accessList.check(IpAddresses.clientAddress(request)) == CidrTrie.Action.DENY) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+            Map<String, Object> errorBody = buildErrorResponse(
+                    HttpStatus.FORBIDDEN,
+                    localizationService.get("exception.access.network.denied")
+            );
+            response.getWriter().write(objectMapper.writeValueAsString(errorBody));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
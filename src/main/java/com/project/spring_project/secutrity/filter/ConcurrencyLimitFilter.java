@@ -0,0 +1,109 @@
+package com.project.spring_project.secutrity.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.secutrity.services.AdaptiveConcurrencyLimit;
+import com.project.spring_project.secutrity.services.ConcurrencyLimiter;
+import com.project.spring_project.util.LocalizationService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.project.spring_project.util.ErrorResponseUtil.buildErrorResponse;
+
+/**
+ * Sheds load with a fast 503 once a group of endpoints has as many requests in flight as its adaptive limit.
+ * <p>
+ * Registered in the security filter chain ahead of the JWT filter, so rejected requests never reach the database.
+ * A request that goes async holds its slot until the async request completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final LocalizationService localizationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Takes a slot of the request's group for the rest of the chain, or answers 503 Service Unavailable.
+     *
+     * @param request     the HttpServletRequest object
+     * @param response    the HttpServletResponse object
+     * @param filterChain the FilterChain object for further processing
+     * @throws ServletException if an error occurs during filtering
+     * @throws IOException      if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        AdaptiveConcurrencyLimit limit = concurrencyLimiter.limitFor(request);
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+            Map<String, Object> errorBody = buildErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    localizationService.get("exception.server.busy")
+            );
+            response.getWriter().write(objectMapper.writeValueAsString(errorBody));
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limit, startedAt));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limit.release(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of an async request once it completes, whether it succeeded, failed or timed out.
+     */
+    private record ReleasingListener(AdaptiveConcurrencyLimit limit, long startedAt) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.release(System.nanoTime() - startedAt);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.project.spring_project.secutrity.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matches anonymous reads of public routes: GET and HEAD requests without an {@code Authorization} header whose path
+ * matches one of the routes, parsed once when the matcher is created.
+ * <p>
+ * Requests that carry a token do not match, so they are still authenticated, and rejected if the token is invalid.
+ */
+public class PublicReadRequestMatcher implements RequestMatcher {
+
+    private final List<PathPattern> patterns;
+
+    public PublicReadRequestMatcher(String... routes) {
+        this.patterns = Arrays.stream(routes).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            return false;
+        }
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicRead " + patterns;
+    }
+}
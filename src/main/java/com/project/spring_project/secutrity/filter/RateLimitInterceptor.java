@@ -0,0 +1,101 @@
+package com.project.spring_project.secutrity.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
+import com.project.spring_project.secutrity.services.RateLimitPolicy;
+import com.project.spring_project.secutrity.services.RateLimiterBackend;
+import com.project.spring_project.secutrity.services.RateLimitingService;
+import com.project.spring_project.util.IpAddresses;
+import com.project.spring_project.util.LocalizationService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.project.spring_project.util.ErrorResponseUtil.buildErrorResponse;
+
+/**
+ * Applies the rate limit policies of the handler of each request.
+ * <p>
+ * Runs once the handler is known and the request is authenticated, so policies can be chosen per endpoint and
+ * counted per user; the policies of each handler are resolved at startup by {@link RateLimitingService}. Limited
+ * responses carry a {@code RateLimit-Remaining} header, and rejected ones a {@code Retry-After} header in seconds.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitingService rateLimitingService;
+    private final HeavyHitterDetector heavyHitterDetector;
+    private final LocalizationService localizationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Takes a token for the request, or answers 429 Too Many Requests.
+     * <p>
+     * Requests from an address or subnet throttled by the {@link HeavyHitterDetector} are rejected before a token
+     * is taken, so they do not drain the bucket, and requests rejected by the limits are counted by it. The dispatch that resumes an async handler was counted by the initial
+     * one and passes through.
+     *
+     * @param request  the HttpServletRequest object
+     * @param response the HttpServletResponse object
+     * @param handler  the handler of the request
+     * @return false if the request was rejected
+     * @throws IOException if the error body cannot be written
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        if (!rateLimitingService.isLimited(method)) {
+            return true;
+        }
+        String clientAddress = IpAddresses.clientAddress(request);
+        long throttledNanos = heavyHitterDetector.throttledNanos(null, clientAddress);
+        if (throttledNanos > 0) {
+            reject(response, throttledNanos);
+            return false;
+        }
+        long probe = rateLimitingService.tryConsume(method, request);
+        if (probe == RateLimitPolicy.UNLIMITED) {
+            return true;
+        }
+        if (RateLimiterBackend.allowed(probe)) {
+            response.setHeader(REMAINING_HEADER, Long.toString(probe));
+            return true;
+        }
+        heavyHitterDetector.recordRateLimited(clientAddress);
+        reject(response, -probe);
+        return false;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + SECOND_NANOS - 1) / SECOND_NANOS);
+        response.setHeader(REMAINING_HEADER, "0");
+        response.setHeader(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> errorBody = buildErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS,
+                localizationService.get("exception.too.many.requests")
+        );
+        response.getWriter().write(objectMapper.writeValueAsString(errorBody));
+    }
+}
@@ -2,30 +2,51 @@ package com.project.spring_project.secutrity.jwt;
 
 import com.project.spring_project.exception.JwtAuthenticationException;
 import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.JwtUserPrincipal;
 import com.project.spring_project.secutrity.services.UserDetailsServiceImpl;
 import com.project.spring_project.util.LocalizationService;
+import com.project.spring_project.util.TokenDigest;
 import com.project.spring_project.util.TokenUtils;
-import jakarta.servlet.*;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Authenticates requests that carry a bearer token.
+ * <p>
+ * Runs once per dispatch, from the security filter chain only: its servlet registration is disabled in
+ * {@code SecurityConfig}. Async and error dispatches are authenticated again, from the verified-token cache, since the
+ * security context is not kept between dispatches.
+ */
 @Component
 @RequiredArgsConstructor
-public class JwtAuthenticationFilter extends GenericFilter {
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Value("${app.oneSingleSignOn}")
     private boolean oneSingleSignOn;
 
+    @Value("${app.jwtStatelessAuth:false}")
+    private boolean statelessAuth;
+
     private final JwtTokenProvider tokenProvider;
+    private final VerifiedTokenCache tokenCache;
+    private final SessionRegistry sessionRegistry;
+    private final TokenRevocationList revocationList;
     private final UserDetailsServiceImpl userDetailsService;
     private final AuthenticationEntryPoint authenticationEntryPoint;
     private final LocalizationService localizationService;
@@ -68,22 +89,30 @@ public class JwtAuthenticationFilter extends GenericFilter {
         chain.doFilter(request, response);
     }*/
     @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+    protected void doFilterInternal(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain)
             throws IOException, ServletException {
 
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
-
         try {
             String jwt = getJwtFromRequest(httpRequest);
 
             if (!StringUtils.hasText(jwt)) {
-                chain.doFilter(request, response); // No token = proceed (possibly to public endpoint)
+                chain.doFilter(httpRequest, httpResponse); // No token = proceed (possibly to public endpoint)
                 return;
             }
 
-            // Token is present — validate it
-            if (!tokenProvider.validateToken(jwt)) {
+            // Token already accepted before — reuse the resolved authentication
+            TokenDigest tokenHash = TokenDigest.of(jwt);
+            VerifiedTokenCache.Entry cached = tokenCache.get(tokenHash);
+            if (cached != null) {
+                authenticate(cached.getPrincipal(), cached.getAuthorities(), httpRequest);
+                chain.doFilter(httpRequest, httpResponse);
+                return;
+            }
+            long cacheStamp = tokenCache.stamp();
+
+            // Token is present — verify it once and keep the result
+            Optional<VerifiedToken> verifiedToken = tokenProvider.verify(jwt);
+            if (verifiedToken.isEmpty()) {
                 // Token invalid or expired — respond with 401
                 authenticationEntryPoint.commence(
                         httpRequest,
@@ -93,14 +122,30 @@ public class JwtAuthenticationFilter extends GenericFilter {
                 return;
             }
 
-            // Token is valid — load user
-            String username = tokenProvider.getUsernameFromJWT(jwt);
-            CustomUserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Token was logged out or its user/role sessions were revoked
+            if (revocationList.isRevoked(tokenHash, verifiedToken.get())) {
+                authenticationEntryPoint.commence(
+                        httpRequest,
+                        httpResponse,
+                        new JwtAuthenticationException(localizationService.get("exception.invalid.expired.session"))
+                );
+                return;
+            }
 
-            // Optional: One-session check
-            String activeToken = userDetails.getUser().getActiveToken();
-            if (oneSingleSignOn &&
-                    (activeToken == null || !TokenUtils.hashedToken(jwt).equals(activeToken))) {
+            // Token is valid — resolve the user, from the claims only when running stateless
+            UserDetails userDetails;
+            Long userId;
+            if (statelessAuth && verifiedToken.get().getUserId() != null) {
+                userDetails = JwtUserPrincipal.from(verifiedToken.get());
+                userId = verifiedToken.get().getUserId();
+            } else {
+                CustomUserDetails customUserDetails = userDetailsService.loadUserByUsername(verifiedToken.get().getSubject());
+                userDetails = customUserDetails;
+                userId = customUserDetails.getUser().getId();
+            }
+
+            // Optional: session limit check
+            if (oneSingleSignOn && !sessionRegistry.isActive(userId, tokenHash, verifiedToken.get().getIssuedAt())) {
                 SecurityContextHolder.clearContext();
                 authenticationEntryPoint.commence(
                         httpRequest,
@@ -111,11 +156,8 @@ public class JwtAuthenticationFilter extends GenericFilter {
             }
 
             // Authenticated successfully
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpRequest));
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            tokenCache.put(tokenHash, userId, userDetails, verifiedToken.get().getExpiration(), cacheStamp);
+            authenticate(userDetails, userDetails.getAuthorities(), httpRequest);
         } catch (JwtAuthenticationException ex) {
             authenticationEntryPoint.commence(httpRequest, httpResponse, ex);
             return;
@@ -127,7 +169,33 @@ public class JwtAuthenticationFilter extends GenericFilter {
             return;
         }
 
-        chain.doFilter(request, response);
+        chain.doFilter(httpRequest, httpResponse);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    /**
+     * Sets the authenticated principal in the security context.
+     *
+     * @param userDetails the authenticated principal
+     * @param authorities the authorities granted to the principal
+     * @param request     the current request
+     */
+    private void authenticate(UserDetails userDetails, Collection<? extends GrantedAuthority> authorities,
+                              HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
     /**
@@ -3,11 +3,12 @@ package com.project.spring_project.secutrity.jwt;
 import com.project.spring_project.entity.user.Role;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.RoleCatalog;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
@@ -20,6 +21,8 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -40,15 +43,28 @@ public class JwtTokenProvider {
     @Value("${app.jwtRefreshExpirationMs}")
     private long refreshExpirationInMs;
 
+    // Maps role names to the bits of the rm claim; without it tokens carry role names only
+    @Autowired(required = false)
+    private RoleCatalog roleCatalog;
+
     @Getter
     private SecretKey key;
 
+    // Parsers are immutable and thread-safe, so one instance is shared by every request
+    private JwtParser jwtParser;
+
+    // Last generation handed out, see nextGeneration()
+    private static final AtomicLong GENERATION = new AtomicLong();
+
     @PostConstruct
     public void init() {
         if (jwtSecret == null) {
             throw new IllegalArgumentException("JWT secret key is not defined");
         }
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     /**
@@ -60,11 +76,60 @@ public class JwtTokenProvider {
      * @return the claims contained in the token
      */
     public Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)  // Use the SecretKey here
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifies the provided JWT token and extracts everything the application needs from it.
+     * <p>
+     * The signature and expiry are checked by the parser, then the issuer and audience are compared
+     * against the configured values. The token is parsed exactly once, so callers should keep the
+     * returned object instead of calling the other getters of this class with the raw token.
+     *
+     * @param token the JWT token
+     * @return the verified token, or empty if the token is missing, malformed, expired or not issued by us
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        try {
+            Claims claims = getClaims(token);
+            if (!jwtIssuer.equals(claims.getIssuer()) || !jwtAudience.equals(claims.getAudience())) {
+                return Optional.empty();
+            }
+            return Optional.of(toVerifiedToken(claims));
+        } catch (JwtException | IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Copies the claims of an already verified token into an immutable {@link VerifiedToken}.
+     *
+     * @param claims the verified claims
+     * @return the verified token
+     */
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        Object userId = claims.get("userId");
+        Object email = claims.get("email");
+        Object roles = claims.get("roles");
+        Object generation = claims.get("gen");
+        Object roleMask = claims.get("rm");
+
+        List<String> roleNames = roles instanceof List<?> list
+                ? list.stream().map(String::valueOf).toList()
+                : List.of();
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                userId instanceof Number number ? number.longValue() : null,
+                roleNames,
+                email != null ? email.toString() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.getIssuer(),
+                claims.getAudience(),
+                generation instanceof Number gen ? gen.longValue() : null,
+                roleMask instanceof Number mask ? mask.longValue() : null
+        );
     }
 
     /**
@@ -104,15 +169,43 @@ public class JwtTokenProvider {
         return generateJwtToken(user.getUsername(), roles, user.getId(), user.getEmail());
     }
 
+    /**
+     * Returns the next token generation.
+     * <p>
+     * Generations follow the wall clock in milliseconds but are strictly increasing, so a revocation that records
+     * the next generation is newer than every token issued before it and older than every token issued after it,
+     * across restarts too. Issued tokens carry their generation in the {@code gen} claim.
+     *
+     * @return the next generation
+     */
+    public static long nextGeneration() {
+        return GENERATION.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+    }
+
+    /**
+     * Generates a JWT token with the given claims.
+     * <p>
+     * Besides the role names, the token carries the {@link RoleCatalog} mask of the roles in the {@code rm} claim,
+     * so role checks on later requests are bit tests. The claim is left out if a role has no bit.
+     *
+     * @param username the username, stored as subject
+     * @param roles the role names or authorities of the user
+     * @param userId the user ID
+     * @param email the email of the user
+     * @return the generated JWT token
+     */
     public String generateJwtToken(String username, List<String> roles, Long userId, String email) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationInMs);
+        long roleMask = roleCatalog != null ? roleCatalog.maskOfNames(roles) : RoleCatalog.UNRESOLVED;
 
         return Jwts.builder()
                 .setSubject(username)
                 .claim("roles", roles)
+                .claim("rm", roleMask != RoleCatalog.UNRESOLVED ? roleMask : null)
                 .claim("userId", userId)
                 .claim("email", email)
+                .claim("gen", nextGeneration())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .setIssuer(jwtIssuer)
@@ -154,16 +247,7 @@ public class JwtTokenProvider {
      * @return true if the token is valid, false otherwise
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaims(token);
-            return !isTokenExpired(token)
-                    && claims.getIssuer().equals(jwtIssuer)
-                    && claims.getAudience().equals(jwtAudience);
-        } catch (SecurityException | MalformedJwtException | UnsupportedJwtException | IllegalArgumentException |
-                 ExpiredJwtException |
-                 SignatureException ex) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
 
     /**
@@ -175,9 +259,7 @@ public class JwtTokenProvider {
      * @return the username contained in the token
      */
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody();
-        return claims.getSubject();
+        return getClaims(token).getSubject();
     }
 
     /**
@@ -190,11 +272,7 @@ public class JwtTokenProvider {
      * @param token the JWT token
      */
     public void logTokenClaims(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = getClaims(token);
 
         System.out.println("Subject: " + claims.getSubject());
         System.out.println("Issuer: " + claims.getIssuer());
@@ -0,0 +1,168 @@
+package com.project.spring_project.secutrity.jwt;
+
+import com.project.spring_project.dto.response.AuthResponse;
+import com.project.spring_project.util.TokenDigest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight cache of refresh results, keyed by the digest of the refresh token that was consumed.
+ * <p>
+ * Clients on flaky networks retry a refresh whose response they never received, or send it twice at once. Without
+ * this cache the second call finds the token already used and the client has to log in again. For
+ * {@code app.jwtRefreshGraceMs} after a refresh, a call with the same refresh token gets the same response
+ * instead; a call that arrives while the first one is still running waits for it. Only committed results are
+ * shared, and a failed refresh is not cached. Within the window a replayed token is answered with the tokens it
+ * already produced rather than revoking its family. The cache is local to this instance; 0 disables it.
+ */
+@Component
+public class RefreshGraceCache implements MeterBinder {
+
+    private final long graceMs;
+
+    private final Map<TokenDigest, Flight> flights = new ConcurrentHashMap<>();
+    private final Queue<Flight> byAge = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    public RefreshGraceCache(@Value("${app.jwtRefreshGraceMs:10000}") long graceMs) {
+        this.graceMs = Math.max(0, graceMs);
+    }
+
+    /**
+     * Refreshes a token, or returns the result of a refresh of the same token within the grace window.
+     * <p>
+     * When called inside a transaction, the result is shared only once the transaction commits.
+     *
+     * @param refreshToken the digest of the presented refresh token
+     * @param refresh      performs the refresh
+     * @return the new access and refresh tokens
+     */
+    public AuthResponse refresh(TokenDigest refreshToken, Supplier<AuthResponse> refresh) {
+        if (graceMs == 0) {
+            return refresh.get();
+        }
+        long now = System.currentTimeMillis();
+        expire(now);
+
+        Flight flight = new Flight(refreshToken, now + graceMs);
+        Flight existing = flights.putIfAbsent(refreshToken, flight);
+        if (existing != null) {
+            AuthResponse shared = existing.await(graceMs);
+            if (shared != null) {
+                hits.increment();
+                return shared;
+            }
+            // The first refresh failed or is taking too long: go through the normal checks
+            return refresh.get();
+        }
+        byAge.add(flight);
+
+        AuthResponse response;
+        try {
+            response = refresh.get();
+        } catch (RuntimeException | Error e) {
+            abandon(flight);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        flight.result.complete(response);
+                    } else {
+                        abandon(flight);
+                    }
+                }
+            });
+        } else {
+            flight.result.complete(response);
+        }
+        return response;
+    }
+
+    public void clear() {
+        flights.clear();
+        byAge.clear();
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.refresh.grace.hits", hits, LongAdder::sum)
+                .description("Duplicate refresh calls answered with the result of the first one")
+                .register(registry);
+        Gauge.builder("jwt.refresh.grace.size", flights, Map::size)
+                .description("Refresh results currently held for duplicate calls")
+                .register(registry);
+    }
+
+    /**
+     * Drops the flights whose grace window is over. The window is the same for all, so they expire in order.
+     */
+    private void expire(long now) {
+        Flight oldest;
+        while ((oldest = byAge.peek()) != null && oldest.expiresAtMillis <= now) {
+            if (byAge.remove(oldest)) {
+                flights.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private void abandon(Flight flight) {
+        flights.remove(flight.key, flight);
+        flight.result.complete(null);
+    }
+
+    private static final class Flight {
+        private final TokenDigest key;
+        private final long expiresAtMillis;
+        private final CompletableFuture<AuthResponse> result = new CompletableFuture<>();
+
+        private Flight(TokenDigest key, long expiresAtMillis) {
+            this.key = key;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        /**
+         * Waits for the result of the flight.
+         *
+         * @return the result, or null if the refresh failed or did not finish in time
+         */
+        private AuthResponse await(long timeoutMs) {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.project.spring_project.secutrity.jwt;
+
+import com.project.spring_project.util.TokenDigest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of the access tokens each user is allowed to use.
+ * <p>
+ * Used when {@code app.oneSingleSignOn=true}: every user has a fixed number of session slots
+ * ({@code app.maxSessionsPerUser}) holding token hashes. Login and refresh register a new hash, displacing the
+ * least recently used one when all slots are taken, and the JWT filter checks membership without touching the
+ * database.
+ * <p>
+ * The {@code users.active_token} column is a write-behind copy: changed users are flushed in batches by
+ * {@link #flush()} and the registry is rebuilt from it on startup. With several instances, a token issued by another
+ * one is not in the local registry: a miss is checked against the column, and the user's sessions are taken from it
+ * when it has the token. A token missing there too is remembered for {@code app.sessionMissCacheMs}, so that a
+ * displaced token does not query the database on every request, except for tokens issued within the last flush
+ * interval, which the instance that issued them may not have written yet: those are accepted.
+ */
+@Component
+public class SessionRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+
+    /**
+     * Hashes are 64 hex chars joined by commas; the column is VARCHAR(2048), so at most 31 fit.
+     */
+    static final int MAX_SLOTS = 31;
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Misses remembered at most, cleared all at once beyond.
+     */
+    private static final int MAX_MISSES = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxSessions;
+    private final long unflushedMs;
+    private final long missCacheMs;
+    private final Clock clock;
+
+    private final Map<Long, Sessions> sessionsByUser = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // Token hash -> until when it is known not to be an active session
+    private final Map<TokenDigest, Long> misses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SessionRegistry(JdbcTemplate jdbcTemplate,
+                           @Value("${app.maxSessionsPerUser:1}") int maxSessionsPerUser,
+                           @Value("${app.sessionFlushIntervalMs:1000}") long flushIntervalMs,
+                           @Value("${app.sessionMissCacheMs:1000}") long missCacheMs) {
+        this(jdbcTemplate, maxSessionsPerUser, flushIntervalMs, missCacheMs, Clock.systemUTC());
+    }
+
+    public SessionRegistry(JdbcTemplate jdbcTemplate, int maxSessionsPerUser, long flushIntervalMs, long missCacheMs,
+                           Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSessions = Math.max(1, Math.min(maxSessionsPerUser, MAX_SLOTS));
+        // A flush can start up to one interval after the change and take a while to commit
+        this.unflushedMs = 2 * flushIntervalMs + 1000;
+        this.missCacheMs = missCacheMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Registers a newly issued access token for a user.
+     * <p>
+     * If all session slots of the user are taken, the least recently used token is displaced.
+     *
+     * @param userId    the id of the user
+     * @param tokenHash the SHA-256 digest of the access token
+     */
+    public void register(Long userId, TokenDigest tokenHash) {
+        // Dirty first, so that a concurrent miss does not replace the sessions with the older persisted ones
+        dirtyUsers.add(userId);
+        sessionsByUser.computeIfAbsent(userId, id -> new Sessions(maxSessions)).add(tokenHash);
+        misses.remove(tokenHash);
+    }
+
+    /**
+     * Checks whether an access token is one of the active sessions of a user, and marks it as recently used.
+     *
+     * @param userId    the id of the user
+     * @param tokenHash the SHA-256 digest of the access token
+     * @return true if the token holds one of the user's session slots
+     */
+    public boolean isActive(Long userId, TokenDigest tokenHash) {
+        return isActive(userId, tokenHash, null);
+    }
+
+    /**
+     * Checks whether an access token is one of the active sessions of a user, and marks it as recently used.
+     * <p>
+     * A token that is not in the local registry is looked up in {@code users.active_token}, where another instance
+     * may have written it.
+     *
+     * @param userId    the id of the user
+     * @param tokenHash the SHA-256 digest of the access token
+     * @param issuedAt  when the token was issued, if known
+     * @return true if the token holds one of the user's session slots, or was issued too recently to be persisted
+     */
+    public boolean isActive(Long userId, TokenDigest tokenHash, Instant issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        Sessions sessions = sessionsByUser.get(userId);
+        if (sessions != null && sessions.touch(tokenHash)) {
+            return true;
+        }
+        long now = clock.millis();
+        Long missUntil = misses.get(tokenHash);
+        if (missUntil == null || missUntil <= now) {
+            if (loadPersisted(userId, tokenHash)) {
+                misses.remove(tokenHash);
+                return true;
+            }
+            if (issuedAt == null || issuedAt.toEpochMilli() <= now - unflushedMs) {
+                if (misses.size() >= MAX_MISSES) {
+                    misses.clear();
+                }
+                misses.put(tokenHash, now + missCacheMs);
+            }
+        }
+        return issuedAt != null && issuedAt.toEpochMilli() > now - unflushedMs;
+    }
+
+    /**
+     * Takes the sessions of a user from {@code users.active_token} if they hold the token, unless the user has
+     * local changes not flushed yet, which are newer.
+     *
+     * @return true if the persisted sessions hold the token
+     */
+    private boolean loadPersisted(Long userId, TokenDigest tokenHash) {
+        if (dirtyUsers.contains(userId)) {
+            return false;
+        }
+        String persisted;
+        try {
+            persisted = jdbcTemplate.query("SELECT active_token FROM users WHERE id = ?",
+                    rs -> rs.next() ? rs.getString(1) : null, userId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the persisted sessions of user {}: {}", userId, e.getMessage());
+            return false;
+        }
+        Sessions loaded = Sessions.parse(persisted, maxSessions);
+        if (loaded == null || !loaded.touch(tokenHash)) {
+            return false;
+        }
+        sessionsByUser.compute(userId, (id, current) -> dirtyUsers.contains(id) ? current : loaded);
+        return true;
+    }
+
+    /**
+     * Removes a single session of a user.
+     *
+     * @param userId    the id of the user
+     * @param tokenHash the SHA-256 digest of the access token
+     */
+    public void remove(Long userId, TokenDigest tokenHash) {
+        Sessions sessions = userId != null ? sessionsByUser.get(userId) : null;
+        if (sessions != null && sessions.remove(tokenHash)) {
+            dirtyUsers.add(userId);
+        }
+    }
+
+    /**
+     * Removes all sessions of a user.
+     *
+     * @param userId the id of the user
+     */
+    public void removeAll(Long userId) {
+        if (userId != null && sessionsByUser.remove(userId) != null) {
+            dirtyUsers.add(userId);
+        }
+    }
+
+    /**
+     * Writes the sessions of every user changed since the last flush to {@code users.active_token}.
+     */
+    @Scheduled(fixedDelayString = "${app.sessionFlushIntervalMs:1000}")
+    public void flush() {
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Long> it = dirtyUsers.iterator();
+        while (it.hasNext()) {
+            Long userId = it.next();
+            it.remove();
+            Sessions sessions = sessionsByUser.get(userId);
+            batch.add(new Object[]{sessions == null ? null : sessions.serialize(), userId});
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE users SET active_token = ? WHERE id = ?", batch);
+        } catch (RuntimeException e) {
+            // Keep the users dirty so the next flush retries them
+            batch.forEach(row -> dirtyUsers.add((Long) row[1]));
+            logger.warn("Could not persist {} user sessions: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the registry from {@code users.active_token} once the schema is in place.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.query("SELECT id, active_token FROM users WHERE active_token IS NOT NULL", rs -> {
+            Sessions sessions = Sessions.parse(rs.getString("active_token"), maxSessions);
+            if (sessions != null) {
+                sessionsByUser.put(rs.getLong("id"), sessions);
+            }
+        });
+        logger.info("Session registry loaded {} users", sessionsByUser.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Fixed-size set of token hashes for one user with least recently used displacement.
+     */
+    private static final class Sessions {
+        private final TokenDigest[] hashes;
+        private final long[] lastUsed;
+        private long clock;
+
+        private Sessions(int slots) {
+            this.hashes = new TokenDigest[slots];
+            this.lastUsed = new long[slots];
+        }
+
+        synchronized void add(TokenDigest tokenHash) {
+            if (touch(tokenHash)) {
+                return;
+            }
+            int slot = 0;
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] == null) {
+                    slot = i;
+                    break;
+                }
+                if (lastUsed[i] < lastUsed[slot]) {
+                    slot = i;
+                }
+            }
+            hashes[slot] = tokenHash;
+            lastUsed[slot] = ++clock;
+        }
+
+        synchronized boolean touch(TokenDigest tokenHash) {
+            for (int i = 0; i < hashes.length; i++) {
+                if (tokenHash.matches(hashes[i])) {
+                    lastUsed[i] = ++clock;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized boolean remove(TokenDigest tokenHash) {
+            for (int i = 0; i < hashes.length; i++) {
+                if (tokenHash.matches(hashes[i])) {
+                    hashes[i] = null;
+                    lastUsed[i] = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Serialises the hashes, most recently used first.
+         */
+        synchronized String serialize() {
+            List<Integer> slots = new ArrayList<>();
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != null) {
+                    slots.add(i);
+                }
+            }
+            if (slots.isEmpty()) {
+                return null;
+            }
+            slots.sort((a, b) -> Long.compare(lastUsed[b], lastUsed[a]));
+            StringBuilder sb = new StringBuilder();
+            for (int slot : slots) {
+                if (!sb.isEmpty()) {
+                    sb.append(SEPARATOR);
+                }
+                sb.append(hashes[slot].toHex());
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Parses a persisted value, keeping the most recently used hashes that fit in the slots.
+         */
+        static Sessions parse(String value, int slots) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            String[] persisted = value.split(SEPARATOR);
+            Sessions sessions = new Sessions(slots);
+            // Persisted most recent first: add in reverse so the first one ends up most recently used
+            boolean loaded = false;
+            for (int i = Math.min(persisted.length, slots) - 1; i >= 0; i--) {
+                try {
+                    sessions.add(TokenDigest.fromHex(persisted[i].trim()));
+                    loaded = true;
+                } catch (IllegalArgumentException e) {
+                    // Not a token hash: the session is simply dropped
+                }
+            }
+            return loaded ? sessions : null;
+        }
+    }
+}
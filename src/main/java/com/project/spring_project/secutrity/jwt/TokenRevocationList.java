@@ -0,0 +1,162 @@
+package com.project.spring_project.secutrity.jwt;
+
+import com.project.spring_project.util.TokenDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory list of revoked access tokens.
+ * <p>
+ * Single tokens (logout) are kept in a ring of one-minute buckets indexed by the token's expiry minute. The ring
+ * covers the access token lifetime, so a bucket is reused once every token in it has expired. Revoking every
+ * token of a user or role records a generation instead: tokens whose {@code gen} claim is older are rejected.
+ * Generation entries are pruned once every token they could match has expired.
+ * <p>
+ * Every check is a constant number of map lookups. Memory is bounded by the ring size times
+ * {@code app.revocationMaxEntriesPerBucket}; when a bucket is full, the user's tokens are revoked by generation.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final long BUCKET_MS = 60_000L;
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final long tokenLifetimeMs;
+    private final int maxEntriesPerBucket;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    private final Map<Long, Long> userGenerations = new ConcurrentHashMap<>();
+    private final Map<String, Long> roleGenerations = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(@Value("${app.jwtExpirationInMs}") long tokenLifetimeMs,
+                               @Value("${app.revocationMaxEntriesPerBucket:10000}") int maxEntriesPerBucket) {
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.maxEntriesPerBucket = maxEntriesPerBucket;
+        this.ring = new AtomicReferenceArray<>((int) (tokenLifetimeMs / BUCKET_MS) + 2);
+    }
+
+    /**
+     * Revokes a single access token until it expires.
+     *
+     * @param digest     the SHA-256 digest of the token
+     * @param expiration the token expiry
+     * @param userId     the owner of the token, revoked as a whole if the bucket is full
+     */
+    public void revoke(TokenDigest digest, Instant expiration, Long userId) {
+        long expiresAt = expiration.toEpochMilli();
+        if (expiresAt <= System.currentTimeMillis()) {
+            return; // already unusable
+        }
+        long minute = Math.floorDiv(expiresAt, BUCKET_MS);
+        int index = (int) Math.floorMod(minute, (long) ring.length());
+
+        Bucket bucket = ring.get(index);
+        while (bucket == null || bucket.minute < minute) {
+            Bucket fresh = new Bucket(minute);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = ring.get(index);
+            }
+        }
+
+        if (bucket.minute != minute || bucket.digests.size() >= maxEntriesPerBucket) {
+            revokeUser(userId);
+            return;
+        }
+        bucket.digests.add(digest);
+    }
+
+    /**
+     * Revokes every token issued to a user so far.
+     *
+     * @param userId the id of the user
+     */
+    public void revokeUser(Long userId) {
+        if (userId != null) {
+            userGenerations.put(userId, JwtTokenProvider.nextGeneration());
+        }
+    }
+
+    /**
+     * Revokes every token issued so far to users holding a role.
+     *
+     * @param role the role name, with or without the "ROLE_" prefix
+     */
+    public void revokeRole(String role) {
+        roleGenerations.put(normalize(role), JwtTokenProvider.nextGeneration());
+    }
+
+    /**
+     * Checks whether a verified token has been revoked.
+     *
+     * @param digest the SHA-256 digest of the token
+     * @param token  the verified token
+     * @return true if the token, its user or one of its roles has been revoked
+     */
+    public boolean isRevoked(TokenDigest digest, VerifiedToken token) {
+        if (token.getExpiration() != null) {
+            long minute = Math.floorDiv(token.getExpiration().toEpochMilli(), BUCKET_MS);
+            Bucket bucket = ring.get((int) Math.floorMod(minute, (long) ring.length()));
+            if (bucket != null && bucket.minute == minute && bucket.digests.contains(digest)) {
+                return true;
+            }
+        }
+
+        long generation = token.getGeneration() != null ? token.getGeneration() : 0L;
+        if (token.getUserId() != null) {
+            Long revokedAt = userGenerations.get(token.getUserId());
+            if (revokedAt != null && generation < revokedAt) {
+                return true;
+            }
+        }
+        if (!roleGenerations.isEmpty()) {
+            for (String role : token.getRoles()) {
+                Long revokedAt = roleGenerations.get(normalize(role));
+                if (revokedAt != null && generation < revokedAt) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops buckets and generations that can no longer match an unexpired token.
+     */
+    @Scheduled(fixedDelay = BUCKET_MS)
+    public void prune() {
+        long now = System.currentTimeMillis();
+        long currentMinute = Math.floorDiv(now, BUCKET_MS);
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.minute < currentMinute) {
+                ring.compareAndSet(i, bucket, null);
+            }
+        }
+        // Generations follow the clock: a token older than the revocation expired at revokedAt + lifetime
+        long cutoff = now - tokenLifetimeMs;
+        userGenerations.values().removeIf(revokedAt -> revokedAt < cutoff);
+        roleGenerations.values().removeIf(revokedAt -> revokedAt < cutoff);
+    }
+
+    private static String normalize(String role) {
+        return role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role;
+    }
+
+    private static final class Bucket {
+        private final long minute;
+        private final Set<TokenDigest> digests = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
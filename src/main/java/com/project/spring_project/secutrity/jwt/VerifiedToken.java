@@ -0,0 +1,37 @@
+package com.project.spring_project.secutrity.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents an access token whose signature, expiry, issuer and audience have already been checked.
+ * <p>
+ * Instances are produced by {@link JwtTokenProvider#verify(String)} and are immutable, so they can be
+ * passed around freely instead of parsing the raw JWT again.
+ */
+@Getter
+@AllArgsConstructor
+public final class VerifiedToken {
+    private final String subject;
+    private final Long userId;
+    private final List<String> roles;
+    private final String email;
+    private final Instant issuedAt;
+    private final Instant expiration;
+    private final String issuer;
+    private final String audience;
+    private final Long generation;
+    /**
+     * {@link com.project.spring_project.secutrity.services.RoleCatalog} mask of the roles, null for tokens issued
+     * without it.
+     */
+    private final Long roleMask;
+
+    public VerifiedToken(String subject, Long userId, List<String> roles, String email, Instant issuedAt,
+                         Instant expiration, String issuer, String audience, Long generation) {
+        this(subject, userId, roles, email, issuedAt, expiration, issuer, audience, generation, null);
+    }
+}
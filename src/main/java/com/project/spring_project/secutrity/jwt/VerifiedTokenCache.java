@@ -0,0 +1,250 @@
+package com.project.spring_project.secutrity.jwt;
+
+import com.project.spring_project.util.TokenDigest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded, in-process cache of already authenticated access tokens keyed by the token hash.
+ * <p>
+ * A hit lets the JWT filter skip signature verification, the user lookup and the single sign-on check for
+ * a token it has already accepted. Each entry lives until the token's own expiry, capped by
+ * {@code app.jwtCacheMaxTtlMs}, and all entries of a user are dropped by {@link #invalidateUser(Long)}
+ * whenever the user's active token or account state changes.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    @Value("${app.jwtCacheMaxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${app.jwtCacheMaxTtlMs:900000}")
+    private long maxTtlMs;
+
+    private final Map<TokenDigest, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<TokenDigest>> keysByUser = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * An authenticated principal together with the authorities resolved for it.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+        private final Long userId;
+        private final UserDetails principal;
+        private final List<GrantedAuthority> authorities;
+        private final long expiresAtMillis;
+    }
+
+    /**
+     * Returns the cached authentication for a token hash.
+     * <p>
+     * Expired entries are removed on access and reported as a miss.
+     *
+     * @param tokenHash the SHA-256 digest of the access token
+     * @return the cached entry or null if absent or expired
+     */
+    public Entry get(TokenDigest tokenHash) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        Entry entry = entries.get(tokenHash);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.getExpiresAtMillis() <= System.currentTimeMillis()) {
+            remove(tokenHash, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Returns the current invalidation stamp.
+     * <p>
+     * Take the stamp before resolving the user for a token and pass it to
+     * {@link #put(TokenDigest, Long, UserDetails, Instant, long)}, so an invalidation that happens while the user is
+     * being resolved is not undone by caching the stale result.
+     *
+     * @return the invalidation stamp
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches an authenticated token until its expiry, capped by the configured maximum TTL.
+     *
+     * @param tokenHash  the SHA-256 digest of the access token
+     * @param userId     the id of the authenticated user, may be null
+     * @param principal  the authenticated principal
+     * @param expiration the token expiry
+     * @param stamp      the value of {@link #stamp()} taken before the principal was resolved
+     */
+    public void put(TokenDigest tokenHash, Long userId, UserDetails principal, Instant expiration, long stamp) {
+        if (maxEntries <= 0 || userId == null || expiration == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(expiration.toEpochMilli(), now + maxTtlMs);
+        if (expiresAt <= now) {
+            return;
+        }
+
+        Entry entry = new Entry(userId, principal, List.copyOf(principal.getAuthorities()), expiresAt);
+        entries.put(tokenHash, entry);
+        keysByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(tokenHash);
+
+        // An invalidation ran while the principal was being resolved: do not keep a possibly stale entry
+        if (invalidations.get() != stamp) {
+            remove(tokenHash, entry);
+            return;
+        }
+
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+    }
+
+    /**
+     * Removes every cached token of a user.
+     * <p>
+     * Called whenever the user's active token is rotated or the account, roles or status change. When called
+     * inside a transaction the entries are removed again after commit, so a request that read the old row
+     * before the commit cannot leave a stale entry behind.
+     *
+     * @param userId the id of the user
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictUser(userId);
+                }
+            });
+        }
+    }
+
+    private void evictUser(Long userId) {
+        invalidations.incrementAndGet();
+        Set<TokenDigest> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    /**
+     * Removes every cached token.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+        keysByUser.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.token.cache.hits", hits, LongAdder::sum)
+                .description("Access tokens authenticated from the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.token.cache.misses", misses, LongAdder::sum)
+                .description("Access tokens not found in the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.token.cache.evictions", evictions, LongAdder::sum)
+                .description("Entries removed from the verified-token cache because of expiry or size")
+                .register(registry);
+        Gauge.builder("jwt.token.cache.size", entries, Map::size)
+                .description("Entries currently held by the verified-token cache")
+                .register(registry);
+    }
+
+    /**
+     * Brings the cache back under its bound.
+     * <p>
+     * Expired entries are purged first; if that is not enough, arbitrary entries are dropped until the cache is
+     * at 90% of its bound so that the sweep does not run again on the very next insert.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return; // another thread is already sweeping
+        }
+        try {
+            for (Map.Entry<TokenDigest, Entry> e : entries.entrySet()) {
+                if (e.getValue().getExpiresAtMillis() <= now) {
+                    remove(e.getKey(), e.getValue());
+                }
+            }
+            int target = maxEntries - maxEntries / 10;
+            Iterator<Map.Entry<TokenDigest, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > target && it.hasNext()) {
+                Map.Entry<TokenDigest, Entry> e = it.next();
+                remove(e.getKey(), e.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(TokenDigest tokenHash, Entry entry) {
+        if (!entries.remove(tokenHash, entry)) {
+            return;
+        }
+        evictions.increment();
+        keysByUser.computeIfPresent(entry.getUserId(), (id, keys) -> {
+            keys.remove(tokenHash);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
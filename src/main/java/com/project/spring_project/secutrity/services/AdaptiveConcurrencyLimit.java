@@ -0,0 +1,148 @@
+package com.project.spring_project.secutrity.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limit on the requests of one group in flight at once, adjusted to their latency (AIMD).
+ * <p>
+ * Latencies are averaged over windows of {@code windowMs}. A window whose average exceeds the baseline latency
+ * times {@code latencyTolerance} means requests are queueing downstream (typically for a database connection), and
+ * the limit is cut by {@code backoffRatio}; otherwise, if the window used at least half of the limit, the limit
+ * grows by one. The baseline is the lowest window average, drifting slowly toward newer averages so that it follows
+ * lasting changes. The limit stays between {@code minLimit} and {@code maxLimit}.
+ * <p>
+ * {@link #tryAcquire()} is lock-free; completions are recorded under a lock held for a few arithmetic operations.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    private long windowStart;
+    private long windowSamples;
+    private long windowLatencySum;
+    private int windowMaxInFlight;
+    private double baselineNanos = Double.NaN;
+
+    /**
+     * Creates a limit.
+     *
+     * @param name             the group name
+     * @param initialLimit     the limit until latencies are known
+     * @param minLimit         the lowest the limit goes
+     * @param maxLimit         the highest the limit goes
+     * @param latencyTolerance how many times the baseline latency a window may average before the limit is cut
+     * @param backoffRatio     what the limit is multiplied by when it is cut
+     * @param windowMs         the length of the windows latencies are averaged over
+     * @param nanoClock        the time source, in nanoseconds (e.g. {@code System::nanoTime})
+     */
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, double latencyTolerance,
+                                    double backoffRatio, long windowMs, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || latencyTolerance <= 1 || backoffRatio <= 0 || backoffRatio >= 1
+                || windowMs <= 0) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings for " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.windowNanos = windowMs * 1_000_000L;
+        this.nanoClock = nanoClock;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a slot for a request.
+     *
+     * @return true if the request may proceed and must {@link #release(long)} its slot, false if the limit is
+     * reached
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a completed request and records its latency.
+     *
+     * @param latencyNanos how long the request took
+     */
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        long now = nanoClock.getAsLong();
+        synchronized (this) {
+            windowSamples++;
+            windowLatencySum += latencyNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            if (now - windowStart >= windowNanos && windowSamples >= MIN_WINDOW_SAMPLES) {
+                adjust((double) windowLatencySum / windowSamples);
+                windowStart = now;
+                windowSamples = 0;
+                windowLatencySum = 0;
+                windowMaxInFlight = 0;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the latency the limit is adjusted against.
+     *
+     * @return the baseline in nanoseconds, NaN until the first window is complete
+     */
+    public synchronized double getBaselineNanos() {
+        return baselineNanos;
+    }
+
+    private void adjust(double averageNanos) {
+        if (Double.isNaN(baselineNanos) || averageNanos < baselineNanos) {
+            baselineNanos = averageNanos;
+        } else {
+            baselineNanos += (averageNanos - baselineNanos) * BASELINE_DRIFT;
+        }
+        if (averageNanos > baselineNanos * latencyTolerance) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (windowMaxInFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.spring_project.secutrity.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost factor for this host.
+ * <p>
+ * Each cost step doubles the hashing time, so a few hashes at a cheap base cost are enough to estimate every
+ * other cost. On startup the largest cost whose estimated hashing time stays under {@code app.bcryptTargetMs} is
+ * chosen, never below {@link #MIN_COST} (Spring's default) nor above {@link #MAX_COST}. A fixed
+ * {@code app.bcryptCost} skips the measurement.
+ */
+@Component
+public class BCryptCostCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    public static final int MIN_COST = 10;
+    public static final int MAX_COST = 16;
+
+    private static final int BASE_COST = 8;
+    private static final int SAMPLES = 5;
+
+    @Value("${app.bcryptCost:0}")
+    private int fixedCost;
+
+    @Value("${app.bcryptTargetMs:250}")
+    private long targetMs;
+
+    /**
+     * Returns the configured cost, or measures this host and calibrates one.
+     *
+     * @return the BCrypt cost factor to hash new passwords with
+     */
+    public int resolveCost() {
+        if (fixedCost > 0) {
+            int cost = Math.max(4, Math.min(fixedCost, 31));
+            logger.info("BCrypt cost fixed to {}", cost);
+            return cost;
+        }
+        long baseNanos = measure(BASE_COST);
+        int cost = costFor(baseNanos, BASE_COST, targetMs);
+        logger.info("BCrypt cost calibrated to {} (cost {} took {} µs, target {} ms)",
+                cost, BASE_COST, baseNanos / 1_000, targetMs);
+        return cost;
+    }
+
+    /**
+     * Returns the largest cost whose estimated hashing time stays under the target.
+     *
+     * @param baseNanos the measured hashing time at the base cost
+     * @param baseCost  the cost the time was measured at
+     * @param targetMs  the latency target for a single hash
+     * @return the cost, between {@link #MIN_COST} and {@link #MAX_COST}
+     */
+    public static int costFor(long baseNanos, int baseCost, long targetMs) {
+        long targetNanos = targetMs * 1_000_000L;
+        long estimate = Math.max(1, baseNanos);
+        int cost = baseCost;
+        while (cost < MAX_COST && estimate * 2 <= targetNanos) {
+            estimate *= 2;
+            cost++;
+        }
+        return Math.max(MIN_COST, cost);
+    }
+
+    /**
+     * Returns the median time of a few hashes at a cost, after one warm-up hash.
+     */
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode("calibration");
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,157 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.util.IpAddresses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Network allow and deny lists, loaded from files and swapped atomically when the files change.
+ * <p>
+ * {@code app.ipDenyListFile} and {@code app.ipAllowListFile} hold one IPv4 or IPv6 CIDR block per line; text after
+ * {@code #} or {@code ;} is a comment, so most published block lists can be used as they are. Both lists go into one
+ * {@link CidrTrie} and the most specific block decides: a partner range allowed inside a denied network gets in.
+ * Addresses in no block get {@code app.ipAccessDefault}, so {@code deny} only lets the allow list in.
+ * <p>
+ * Every {@code app.ipAccessReloadMs} the files are checked and, if one of them changed, both are read into a new
+ * trie that replaces the current one; requests see either the old lists or the new ones. A file that cannot be
+ * read or parsed leaves the current lists in place.
+ */
+@Component
+public class CidrAccessList {
+
+    private static final Logger logger = LoggerFactory.getLogger(CidrAccessList.class);
+
+    private static final ThreadLocal<long[]> ADDRESS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final Path denyListFile;
+    private final Path allowListFile;
+    private final CidrTrie.Action defaultAction;
+
+    private volatile CidrTrie trie = CidrTrie.builder().build();
+    private FileTime denyListModified;
+    private FileTime allowListModified;
+
+    @Autowired
+    public CidrAccessList(@Value("${app.ipDenyListFile:}") String denyListFile,
+                          @Value("${app.ipAllowListFile:}") String allowListFile,
+                          @Value("${app.ipAccessDefault:allow}") String defaultAction) {
+        this(StringUtils.hasText(denyListFile) ? Path.of(denyListFile) : null,
+                StringUtils.hasText(allowListFile) ? Path.of(allowListFile) : null,
+                CidrTrie.Action.valueOf(defaultAction.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public CidrAccessList(Path denyListFile, Path allowListFile, CidrTrie.Action defaultAction) {
+        this.denyListFile = denyListFile;
+        this.allowListFile = allowListFile;
+        this.defaultAction = defaultAction;
+        reloadIfChanged();
+    }
+
+    /**
+     * Decides whether a client may send requests.
+     *
+     * @param clientAddress the client address
+     * @return the action of the most specific block containing the address, or the default action if there is none
+     * or the address cannot be parsed
+     */
+    public CidrTrie.Action check(String clientAddress) {
+        long[] address = ADDRESS.get();
+        if (!IpAddresses.parse(clientAddress, address)) {
+            return defaultAction;
+        }
+        CidrTrie.Action action = trie.match(address[0], address[1]);
+        return action != null ? action : defaultAction;
+    }
+
+    /**
+     * Replaces the lists with the content of the files if one of them changed since they were last read.
+     *
+     * @return true if a file changed, even if it could not be loaded
+     */
+    @Scheduled(fixedDelayString = "${app.ipAccessReloadMs:30000}")
+    public synchronized boolean reloadIfChanged() {
+        FileTime denyModified = lastModified(denyListFile);
+        FileTime allowModified = lastModified(allowListFile);
+        if (Objects.equals(denyModified, denyListModified) && Objects.equals(allowModified, allowListModified)) {
+            return false;
+        }
+        try {
+            CidrTrie.Builder builder = CidrTrie.builder();
+            read(builder, denyListFile, CidrTrie.Action.DENY);
+            read(builder, allowListFile, CidrTrie.Action.ALLOW);
+            CidrTrie loaded = builder.build();
+            trie = loaded;
+            logger.info("Loaded {} network access blocks ({} KB)", loaded.size(), loaded.footprintBytes() / 1024);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Keeping the current network access lists: {}", e.getMessage());
+        }
+        // A broken file is not retried until it changes again
+        denyListModified = denyModified;
+        allowListModified = allowModified;
+        return true;
+    }
+
+    /**
+     * Returns the lists in use.
+     *
+     * @return the current trie
+     */
+    public CidrTrie getTrie() {
+        return trie;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return file == null ? null : Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void read(CidrTrie.Builder builder, Path file, CidrTrie.Action action) throws IOException {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                int comment = indexOfComment(line);
+                String block = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (block.isEmpty()) {
+                    continue;
+                }
+                try {
+                    builder.add(block, action);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + number + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static int indexOfComment(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '#' || c == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
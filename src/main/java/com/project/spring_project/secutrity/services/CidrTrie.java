@@ -0,0 +1,265 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.util.IpAddresses;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of IPv4 and IPv6 CIDR blocks, each allowed or denied, matched by longest prefix.
+ * <p>
+ * Blocks are keys of a compressed binary (Patricia) trie over the 128-bit addresses of {@link IpAddresses}: IPv4
+ * blocks are mapped to {@code ::ffff:0:0/96}, so {@code 10.0.0.0/8} is the /104 prefix of the mapped addresses.
+ * Each node holds a whole run of bits, so a lookup visits at most one node per branching bit instead of one per
+ * bit, and stops at the first node that does not match. Nodes are parallel primitive arrays, about 26 bytes each
+ * and at most two per block, and lookups do not allocate.
+ * <p>
+ * Tries are built with a {@link Builder} and never change; a new list is a new trie.
+ */
+public final class CidrTrie {
+
+    public enum Action {
+        ALLOW, DENY
+    }
+
+    private static final Action[] ACTIONS = {null, Action.ALLOW, Action.DENY};
+    private static final int NONE = -1;
+    private static final int IPV4_OFFSET = 96;
+
+    private final long[] keyHi;
+    private final long[] keyLo;
+    private final byte[] length;
+    private final int[] left;
+    private final int[] right;
+    private final byte[] action;
+    private final int root;
+    private final int size;
+
+    private CidrTrie(Builder builder) {
+        int nodes = builder.nodes;
+        this.keyHi = Arrays.copyOf(builder.keyHi, nodes);
+        this.keyLo = Arrays.copyOf(builder.keyLo, nodes);
+        this.length = Arrays.copyOf(builder.length, nodes);
+        this.left = Arrays.copyOf(builder.left, nodes);
+        this.right = Arrays.copyOf(builder.right, nodes);
+        this.action = Arrays.copyOf(builder.action, nodes);
+        this.root = builder.root;
+        this.size = builder.size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Finds the most specific block containing an address.
+     *
+     * @param hi the high 64 bits of the address
+     * @param lo the low 64 bits of the address
+     * @return the action of the longest matching block, or null if no block contains the address
+     */
+    public Action match(long hi, long lo) {
+        int best = 0;
+        int node = root;
+        while (node != NONE) {
+            int bits = length[node] & 0xFF;
+            if (((hi ^ keyHi[node]) & maskHi(bits)) != 0 || ((lo ^ keyLo[node]) & maskLo(bits)) != 0) {
+                break;
+            }
+            if (action[node] != 0) {
+                best = action[node];
+            }
+            if (bits == 128) {
+                break;
+            }
+            node = bit(hi, lo, bits) == 0 ? left[node] : right[node];
+        }
+        return ACTIONS[best];
+    }
+
+    /**
+     * Returns the number of distinct blocks.
+     *
+     * @return the blocks in the trie
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the size of the node arrays.
+     *
+     * @return the footprint in bytes, excluding object headers
+     */
+    public long footprintBytes() {
+        return (long) keyHi.length * (2 * Long.BYTES + 2 * Integer.BYTES + 2);
+    }
+
+    private static long maskHi(int bits) {
+        return bits == 0 ? 0 : bits >= 64 ? -1L : -1L << (64 - bits);
+    }
+
+    private static long maskLo(int bits) {
+        return bits <= 64 ? 0 : -1L << (128 - bits);
+    }
+
+    private static int bit(long hi, long lo, int index) {
+        return (int) (index < 64 ? hi >>> (63 - index) : lo >>> (127 - index)) & 1;
+    }
+
+    /**
+     * Collects blocks into a trie. Builders are not thread-safe.
+     */
+    public static final class Builder {
+        private final long[] parsed = new long[2];
+        private long[] keyHi = new long[16];
+        private long[] keyLo = new long[16];
+        private byte[] length = new byte[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private byte[] action = new byte[16];
+        private int nodes;
+        private int root = NONE;
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a block.
+         * <p>
+         * Host bits are ignored ({@code 10.1.2.3/8} is {@code 10.0.0.0/8}), and an address without a prefix length is
+         * a single host. When the same block is both allowed and denied, it is denied.
+         *
+         * @param cidr   the block, e.g. {@code 203.0.113.0/24} or {@code 2001:db8::/32}
+         * @param action whether addresses of the block are allowed or denied
+         * @return this builder
+         * @throws IllegalArgumentException if the block is not an IPv4 or IPv6 CIDR block
+         */
+        public Builder add(String cidr, Action action) {
+            String block = cidr.trim();
+            int slash = block.indexOf('/');
+            String address = slash < 0 ? block : block.substring(0, slash);
+            if (!IpAddresses.parse(address, parsed)) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+            }
+            boolean ipv4 = address.indexOf(':') < 0;
+            int maxBits = ipv4 ? 32 : 128;
+            int bits = maxBits;
+            if (slash >= 0) {
+                try {
+                    bits = Integer.parseInt(block.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    bits = -1;
+                }
+                if (bits < 0 || bits > maxBits) {
+                    throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+                }
+            }
+            if (ipv4) {
+                bits += IPV4_OFFSET;
+            }
+            insert(parsed[0] & maskHi(bits), parsed[1] & maskLo(bits), bits, (byte) (action.ordinal() + 1));
+            return this;
+        }
+
+        public CidrTrie build() {
+            return new CidrTrie(this);
+        }
+
+        private void insert(long hi, long lo, int bits, byte value) {
+            if (root == NONE) {
+                root = newNode(hi, lo, bits, value);
+                return;
+            }
+            int parent = NONE;
+            int node = root;
+            while (true) {
+                int nodeBits = length[node] & 0xFF;
+                int common = Math.min(commonBits(hi, lo, keyHi[node], keyLo[node]), Math.min(bits, nodeBits));
+                if (common == nodeBits) {
+                    if (common == bits) {
+                        setAction(node, value);
+                        return;
+                    }
+                    boolean goRight = bit(hi, lo, nodeBits) == 1;
+                    int child = goRight ? right[node] : left[node];
+                    if (child == NONE) {
+                        int leaf = newNode(hi, lo, bits, value);
+                        if (goRight) {
+                            right[node] = leaf;
+                        } else {
+                            left[node] = leaf;
+                        }
+                        return;
+                    }
+                    parent = node;
+                    node = child;
+                    continue;
+                }
+                // The block and the node part ways at bit "common": a new node goes between the node and its parent
+                int split;
+                if (common == bits) {
+                    split = newNode(hi, lo, bits, value);
+                } else {
+                    split = newNode(hi & maskHi(common), lo & maskLo(common), common, (byte) 0);
+                    int leaf = newNode(hi, lo, bits, value);
+                    if (bit(hi, lo, common) == 1) {
+                        right[split] = leaf;
+                    } else {
+                        left[split] = leaf;
+                    }
+                }
+                if (bit(keyHi[node], keyLo[node], common) == 1) {
+                    right[split] = node;
+                } else {
+                    left[split] = node;
+                }
+                if (parent == NONE) {
+                    root = split;
+                } else if (right[parent] == node) {
+                    right[parent] = split;
+                } else {
+                    left[parent] = split;
+                }
+                return;
+            }
+        }
+
+        private void setAction(int node, byte value) {
+            if (action[node] == 0) {
+                size++;
+            }
+            action[node] = (byte) Math.max(action[node], value);
+        }
+
+        private int newNode(long hi, long lo, int bits, byte value) {
+            if (nodes == keyHi.length) {
+                int capacity = nodes * 2;
+                keyHi = Arrays.copyOf(keyHi, capacity);
+                keyLo = Arrays.copyOf(keyLo, capacity);
+                length = Arrays.copyOf(length, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                action = Arrays.copyOf(action, capacity);
+            }
+            int node = nodes++;
+            keyHi[node] = hi;
+            keyLo[node] = lo;
+            length[node] = (byte) bits;
+            left[node] = NONE;
+            right[node] = NONE;
+            action[node] = 0;
+            if (value != 0) {
+                setAction(node, value);
+            }
+            return node;
+        }
+
+        private static int commonBits(long aHi, long aLo, long bHi, long bLo) {
+            if (aHi != bHi) {
+                return Long.numberOfLeadingZeros(aHi ^ bHi);
+            }
+            return aLo != bLo ? 64 + Long.numberOfLeadingZeros(aLo ^ bLo) : 128;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link AdaptiveConcurrencyLimit} of each group of {@code app.concurrencyLimitGroups}, and the routes that
+ * select them.
+ * <p>
+ * Limits, requests in flight and rejections are published per group as the {@code http.concurrency.limit},
+ * {@code http.concurrency.in.flight} and {@code http.concurrency.rejected} meters.
+ */
+@Component
+public class ConcurrencyLimiter implements MeterBinder {
+
+    private final List<AdaptiveConcurrencyLimit> limits = new ArrayList<>();
+    private final List<Route> routes = new ArrayList<>();
+
+    @Autowired
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties, LongSupplier nanoClock) {
+        properties.getConcurrencyLimitGroups().forEach((name, group) -> {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(name, group.getInitialLimit(),
+                    group.getMinLimit(), group.getMaxLimit(), group.getLatencyTolerance(), group.getBackoffRatio(),
+                    group.getWindowMs(), nanoClock);
+            limits.add(limit);
+            for (String route : group.getRoutes()) {
+                routes.add(new Route(PathPatternParser.defaultInstance.parse(route), limit));
+            }
+        });
+    }
+
+    /**
+     * Finds the group of a request.
+     *
+     * @param request the request
+     * @return the limit of the first group with a route matching the request path, or null if none does
+     */
+    public AdaptiveConcurrencyLimit limitFor(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route route : routes) {
+            if (route.pattern().matches(path)) {
+                return route.limit();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the limits of all groups, in the order they are configured.
+     *
+     * @return the limits
+     */
+    public List<AdaptiveConcurrencyLimit> getLimits() {
+        return List.copyOf(limits);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AdaptiveConcurrencyLimit limit : limits) {
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Requests of the group allowed in flight at once")
+                    .tag("group", limit.getName())
+                    .register(registry);
+            Gauge.builder("http.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests of the group in flight")
+                    .tag("group", limit.getName())
+                    .register(registry);
+            FunctionCounter.builder("http.concurrency.rejected", limit, AdaptiveConcurrencyLimit::getRejected)
+                    .description("Requests of the group rejected with 503 because the limit was reached")
+                    .tag("group", limit.getName())
+                    .register(registry);
+        }
+    }
+
+    private record Route(PathPattern pattern, AdaptiveConcurrencyLimit limit) {
+    }
+}
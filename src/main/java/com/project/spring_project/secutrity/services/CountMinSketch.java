@@ -0,0 +1,160 @@
+package com.project.spring_project.secutrity.services;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-min sketch over a sliding window, counting events per 128-bit key in fixed memory.
+ * <p>
+ * The window is split into {@code slots} sub-windows, each a sketch of {@value #DEPTH} rows of {@code width}
+ * counters. A key's count is, for each row, the sum of its counter across the sub-windows, and the estimate is the
+ * smallest of those sums: never below the true count, and above it by at most a small fraction of all events in
+ * the window. Increments are conservative (only rows below the new estimate grow), which keeps that excess low.
+ * When time enters a new sub-window, the oldest one is cleared and reused.
+ * <p>
+ * The footprint is {@code DEPTH * width * slots} ints whatever the number of distinct keys. Methods are
+ * synchronized; callers feed it failed logins and rejected requests, not every request.
+ */
+public class CountMinSketch {
+
+    static final int DEPTH = 4;
+
+    private static final long[] SEEDS = {
+            0x2545F4914F6CDD1DL, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int[][] counters;
+    private final int width;
+    private final int mask;
+    private final long slotNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private long epoch;
+
+    private final int[] columns = new int[DEPTH];
+
+    /**
+     * Creates a sketch.
+     *
+     * @param width     the counters per row, rounded up to a power of two
+     * @param slots     the sub-windows the window is split into
+     * @param windowMs  the length of the window
+     * @param nanoClock the time source, in nanoseconds (e.g. {@code System::nanoTime})
+     */
+    public CountMinSketch(int width, int slots, long windowMs, LongSupplier nanoClock) {
+        if (width <= 0 || slots <= 0 || windowMs <= 0) {
+            throw new IllegalArgumentException("Sketch width, slots and window must be positive");
+        }
+        this.width = Math.max(16, Integer.highestOneBit(width - 1) << 1);
+        this.mask = this.width - 1;
+        this.counters = new int[slots][DEPTH * this.width];
+        this.slotNanos = Math.max(1, windowMs * 1_000_000L / slots);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * Counts one event of a key.
+     *
+     * @param hi the high 64 bits of the key
+     * @param lo the low 64 bits of the key
+     * @return the estimated count of the key in the window, this event included
+     */
+    public synchronized long add(long hi, long lo) {
+        advance();
+        long estimate = hashAndEstimate(hi, lo) + 1;
+        int[] current = counters[(int) (epoch % counters.length)];
+        for (int row = 0; row < DEPTH; row++) {
+            long sum = sum(row, columns[row]);
+            if (sum < estimate) {
+                int cell = row * width + columns[row];
+                current[cell] = (int) Math.min(Integer.MAX_VALUE, current[cell] + estimate - sum);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the count of a key in the window.
+     *
+     * @param hi the high 64 bits of the key
+     * @param lo the low 64 bits of the key
+     * @return the estimated count, at least the true count
+     */
+    public synchronized long estimate(long hi, long lo) {
+        advance();
+        return hashAndEstimate(hi, lo);
+    }
+
+    /**
+     * Returns the time of the current sub-window.
+     *
+     * @return the number of sub-windows since the sketch was created
+     */
+    public synchronized long epoch() {
+        advance();
+        return epoch;
+    }
+
+    /**
+     * Returns the size of the counters, which does not change after construction.
+     *
+     * @return the footprint in bytes, excluding object headers
+     */
+    public long footprintBytes() {
+        return (long) counters.length * DEPTH * width * Integer.BYTES;
+    }
+
+    public synchronized void clear() {
+        for (int[] slot : counters) {
+            Arrays.fill(slot, 0);
+        }
+    }
+
+    /**
+     * Estimates the count of a key, leaving its column in each row in {@link #columns}.
+     */
+    private long hashAndEstimate(long hi, long lo) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            columns[row] = column(hi, lo, row);
+            estimate = Math.min(estimate, sum(row, columns[row]));
+        }
+        return estimate;
+    }
+
+    private long sum(int row, int column) {
+        long sum = 0;
+        int cell = row * width + column;
+        for (int[] slot : counters) {
+            sum += slot[cell];
+        }
+        return sum;
+    }
+
+    private int column(long hi, long lo, int row) {
+        // Murmur3 finalizer of the key folded to 64 bits, seeded per row
+        long h = (hi * 0x9E3779B97F4A7C15L + lo) ^ SEEDS[row];
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    /**
+     * Clears the sub-windows time has moved past.
+     */
+    private void advance() {
+        long now = (nanoClock.getAsLong() - origin) / slotNanos;
+        if (now <= epoch) {
+            return;
+        }
+        long steps = Math.min(now - epoch, counters.length);
+        for (long i = 1; i <= steps; i++) {
+            Arrays.fill(counters[(int) ((epoch + i) % counters.length)], 0);
+        }
+        epoch = now;
+    }
+}
@@ -6,28 +6,38 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-public class CustomUserDetails implements UserDetails {
+public class CustomUserDetails implements UserDetails, RoleMaskPrincipal {
 
     private final User user;
+    private final Set<GrantedAuthority> authorities;
+    private final long roleMask;
 
     public CustomUserDetails(User user) {
         this.user = user;
+        this.authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
+                .collect(Collectors.toUnmodifiableSet());
+        this.roleMask = RoleCatalog.maskOf(user.getRoles());
     }
 
     /**
      * Returns the authorities granted to the user.
      * <p>
-     * This method maps the user's roles to Spring Security's GrantedAuthority.
+     * The user's roles are mapped to Spring Security's GrantedAuthority once, when the details are created.
      *
      * @return a collection of GrantedAuthority representing the user's roles
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                .collect(Collectors.toSet());
+        return authorities;
+    }
+
+    @Override
+    public long getRoleMask() {
+        return roleMask;
     }
 
     public User getUser() {
@@ -0,0 +1,372 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.dto.HeavyHitterDto;
+import com.project.spring_project.util.IpAddresses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Streaming detection of the usernames, client addresses and subnets behind most failed logins and rate limited
+ * requests, to stop credential stuffing spread over many addresses.
+ * <p>
+ * Each kind of key has a {@link CountMinSketch} over a sliding window of {@code app.heavyHitterWindowMs} and a
+ * min-heap of its {@code app.heavyHitterTopK} heaviest keys. A key whose count in the window reaches the threshold
+ * of its kind is throttled for {@code app.heavyHitterThrottleMs}: logins for a throttled username, and rate limited
+ * endpoints for a throttled address or subnet (/24 for IPv4, /48 for IPv6), are answered 429. Memory is fixed: the
+ * sketches do not grow with the number of distinct keys, and only the top keys are kept by name. Throttled keys are
+ * kept apart from the top keys, in insertion order, until their throttle ends; at most
+ * {@code app.heavyHitterMaxThrottled} of each kind, the oldest throttle being released first. Throttled keys therefore
+ * never stop new keys from being tracked and throttled.
+ * <p>
+ * Estimates never undercount, but a sketch overcounts once its rows fill up: keep the sketch width well above the
+ * events expected per window divided by the lowest threshold.
+ */
+@Component
+public class HeavyHitterDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeavyHitterDetector.class);
+
+    private static final int WINDOW_SLOTS = 10;
+    private static final int MAX_LABEL_LENGTH = 64;
+
+    private static final ThreadLocal<long[]> ADDRESS = ThreadLocal.withInitial(() -> new long[2]);
+
+    public enum Kind {
+        USERNAME, IP, SUBNET
+    }
+
+    private final Dimension[] dimensions = new Dimension[Kind.values().length];
+    private final long throttleNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public HeavyHitterDetector(@Value("${app.heavyHitterTopK:100}") int topK,
+                               @Value("${app.heavyHitterSketchWidth:8192}") int sketchWidth,
+                               @Value("${app.heavyHitterWindowMs:600000}") long windowMs,
+                               @Value("${app.heavyHitterThrottleMs:900000}") long throttleMs,
+                               @Value("${app.heavyHitterMaxThrottled:10000}") int maxThrottled,
+                               @Value("${app.heavyHitterUsernameThreshold:20}") long usernameThreshold,
+                               @Value("${app.heavyHitterIpThreshold:50}") long ipThreshold,
+                               @Value("${app.heavyHitterSubnetThreshold:200}") long subnetThreshold) {
+        this(topK, sketchWidth, windowMs, throttleMs, maxThrottled, usernameThreshold, ipThreshold, subnetThreshold,
+                System::nanoTime);
+    }
+
+    public HeavyHitterDetector(int topK, int sketchWidth, long windowMs, long throttleMs, int maxThrottled,
+                               long usernameThreshold, long ipThreshold, long subnetThreshold,
+                               LongSupplier nanoClock) {
+        this.throttleNanos = throttleMs * 1_000_000L;
+        this.nanoClock = nanoClock;
+        long[] thresholds = {usernameThreshold, ipThreshold, subnetThreshold};
+        for (Kind kind : Kind.values()) {
+            dimensions[kind.ordinal()] = new Dimension(kind, Math.max(1, topK), Math.max(1, maxThrottled),
+                    thresholds[kind.ordinal()], new CountMinSketch(sketchWidth, WINDOW_SLOTS, windowMs, nanoClock));
+        }
+    }
+
+    /**
+     * Counts a failed login against the username and the client address and subnet.
+     *
+     * @param username      the username or email the client tried
+     * @param clientAddress the client address, null if unknown
+     */
+    public void recordLoginFailure(String username, String clientAddress) {
+        if (username != null) {
+            String normalized = normalize(username);
+            dimensions[Kind.USERNAME.ordinal()].add(hash(normalized, 0xCBF29CE484222325L),
+                    hash(normalized, 0x84222325CBF29CE4L), () -> normalized);
+        }
+        recordAddress(clientAddress);
+    }
+
+    /**
+     * Counts a request rejected by the rate limiter against the client address and subnet.
+     *
+     * @param clientAddress the client address
+     */
+    public void recordRateLimited(String clientAddress) {
+        recordAddress(clientAddress);
+    }
+
+    /**
+     * Returns how long a client or username is still throttled.
+     *
+     * @param username      the username or email of a login, null for other requests
+     * @param clientAddress the client address, null if unknown
+     * @return the nanoseconds left of the longest throttle that applies, 0 if none
+     */
+    public long throttledNanos(String username, String clientAddress) {
+        long now = nanoClock.getAsLong();
+        long throttled = 0;
+        if (username != null) {
+            String normalized = normalize(username);
+            throttled = dimensions[Kind.USERNAME.ordinal()].throttledNanos(
+                    hash(normalized, 0xCBF29CE484222325L), hash(normalized, 0x84222325CBF29CE4L), now);
+        }
+        long[] address = ADDRESS.get();
+        if (IpAddresses.parse(clientAddress, address)) {
+            throttled = Math.max(throttled, dimensions[Kind.IP.ordinal()].throttledNanos(address[0], address[1], now));
+            toSubnet(address);
+            throttled = Math.max(throttled,
+                    dimensions[Kind.SUBNET.ordinal()].throttledNanos(address[0], address[1], now));
+        }
+        return throttled;
+    }
+
+    /**
+     * Lists the heaviest keys of the window, heaviest first within each kind.
+     *
+     * @return the top keys of each kind among those tracked or throttled
+     */
+    public List<HeavyHitterDto> getHeavyHitters() {
+        long now = nanoClock.getAsLong();
+        Instant wallClock = Instant.now();
+        List<HeavyHitterDto> heavyHitters = new ArrayList<>();
+        for (Dimension dimension : dimensions) {
+            heavyHitters.addAll(dimension.snapshot(now, wallClock));
+        }
+        return heavyHitters;
+    }
+
+    /**
+     * Returns the size of the sketches, which does not change after construction.
+     *
+     * @return the footprint of the counters in bytes
+     */
+    public long footprintBytes() {
+        long footprint = 0;
+        for (Dimension dimension : dimensions) {
+            footprint += dimension.sketch.footprintBytes();
+        }
+        return footprint;
+    }
+
+    public void clear() {
+        for (Dimension dimension : dimensions) {
+            dimension.clear();
+        }
+    }
+
+    private void recordAddress(String clientAddress) {
+        long[] address = ADDRESS.get();
+        if (!IpAddresses.parse(clientAddress, address)) {
+            return;
+        }
+        long hi = address[0];
+        long lo = address[1];
+        dimensions[Kind.IP.ordinal()].add(hi, lo, () -> clientAddress.trim());
+        toSubnet(address);
+        long subnetHi = address[0];
+        long subnetLo = address[1];
+        dimensions[Kind.SUBNET.ordinal()].add(subnetHi, subnetLo, () -> formatSubnet(subnetHi, subnetLo));
+    }
+
+    /**
+     * Masks an address to its /24 (IPv4) or /48 (IPv6) subnet.
+     */
+    private static void toSubnet(long[] address) {
+        if (isIpv4(address[0], address[1])) {
+            address[1] &= ~0xFFL;
+        } else {
+            address[0] &= 0xFFFF_FFFF_FFFF_0000L;
+            address[1] = 0;
+        }
+    }
+
+    private static boolean isIpv4(long hi, long lo) {
+        return hi == 0 && (lo & 0xFFFF_FFFF_0000_0000L) == IpAddresses.IPV4_MAPPED;
+    }
+
+    private static String formatSubnet(long hi, long lo) {
+        if (isIpv4(hi, lo)) {
+            return ((lo >>> 24) & 0xFF) + "." + ((lo >>> 16) & 0xFF) + "." + ((lo >>> 8) & 0xFF) + ".0/24";
+        }
+        return Long.toHexString(hi >>> 48) + ':' + Long.toHexString((hi >>> 32) & 0xFFFF) + ':'
+                + Long.toHexString((hi >>> 16) & 0xFFFF) + "::/48";
+    }
+
+    private static String normalize(String username) {
+        String normalized = username.trim().toLowerCase(Locale.ROOT);
+        return normalized.length() > MAX_LABEL_LENGTH ? normalized.substring(0, MAX_LABEL_LENGTH) : normalized;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a string from a given offset basis.
+     */
+    private static long hash(String value, long basis) {
+        long hash = basis;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The sketch, top keys and throttled keys of one kind of key.
+     */
+    private final class Dimension {
+        private final Kind kind;
+        private final int capacity;
+        private final int maxThrottled;
+        private final long threshold;
+        private final CountMinSketch sketch;
+        private final Map<Key, Entry> entries = new HashMap<>();
+        private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.count));
+        /**
+         * Throttled keys, oldest throttle first: all throttles last as long, and a renewed one moves to the end.
+         */
+        private final LinkedHashMap<Key, Throttle> throttles = new LinkedHashMap<>();
+        private long refreshedEpoch;
+
+        private Dimension(Kind kind, int capacity, int maxThrottled, long threshold, CountMinSketch sketch) {
+            this.kind = kind;
+            this.capacity = capacity;
+            this.maxThrottled = maxThrottled;
+            this.threshold = threshold;
+            this.sketch = sketch;
+        }
+
+        private synchronized void add(long hi, long lo, Supplier<String> label) {
+            long now = nanoClock.getAsLong();
+            refresh(now);
+            long count = sketch.add(hi, lo);
+            Key key = new Key(hi, lo);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                heap.remove(entry);
+            } else if (entries.size() < capacity) {
+                entry = new Entry(key, label.get());
+                entries.put(key, entry);
+            } else if (heap.peek().count < count) {
+                entries.remove(heap.poll().key);
+                entry = new Entry(key, label.get());
+                entries.put(key, entry);
+            }
+            if (entry != null) {
+                entry.count = count;
+                heap.add(entry);
+            }
+            if (count >= threshold) {
+                throttle(key, entry != null ? entry.label : label.get(), count, now);
+            }
+        }
+
+        private void throttle(Key key, String label, long count, long now) {
+            Throttle throttle = throttles.remove(key);
+            if (throttle == null) {
+                logger.warn("Throttling {} {} after {} failures in the window", kind, label, count);
+                throttle = new Throttle(label);
+            }
+            throttle.until = now + throttleNanos;
+            throttles.put(key, throttle);
+            if (throttles.size() > maxThrottled) {
+                Iterator<Map.Entry<Key, Throttle>> oldest = throttles.entrySet().iterator();
+                logger.warn("Releasing {} {} early: more than {} keys are throttled", kind,
+                        oldest.next().getValue().label, maxThrottled);
+                oldest.remove();
+            }
+        }
+
+        private synchronized long throttledNanos(long hi, long lo, long now) {
+            Throttle throttle = throttles.get(new Key(hi, lo));
+            return throttle != null && throttle.until - now > 0 ? throttle.until - now : 0;
+        }
+
+        private synchronized List<HeavyHitterDto> snapshot(long now, Instant wallClock) {
+            refresh(now);
+            List<HeavyHitterDto> snapshot = new ArrayList<>();
+            for (Entry entry : heap) {
+                Throttle throttle = throttles.get(entry.key);
+                snapshot.add(dto(entry.label, entry.count, throttle, now, wallClock));
+            }
+            for (Map.Entry<Key, Throttle> throttled : throttles.entrySet()) {
+                Key key = throttled.getKey();
+                if (!entries.containsKey(key)) {
+                    snapshot.add(dto(throttled.getValue().label, sketch.estimate(key.hi(), key.lo()),
+                            throttled.getValue(), now, wallClock));
+                }
+            }
+            snapshot.sort(Comparator.comparingLong(HeavyHitterDto::getCount)
+                    .thenComparing(HeavyHitterDto::isThrottled).reversed());
+            return snapshot.size() > capacity ? new ArrayList<>(snapshot.subList(0, capacity)) : snapshot;
+        }
+
+        private HeavyHitterDto dto(String label, long count, Throttle throttle, long now, Instant wallClock) {
+            boolean throttled = throttle != null && throttle.until - now > 0;
+            return new HeavyHitterDto(kind.name(), label, count, throttled,
+                    throttled ? wallClock.plusNanos(throttle.until - now) : null);
+        }
+
+        private synchronized void clear() {
+            sketch.clear();
+            entries.clear();
+            heap.clear();
+            throttles.clear();
+        }
+
+        /**
+         * Drops the throttles that have ended and, when the window has moved, re-estimates the top keys, since their
+         * older events have left it, and drops those with no events left.
+         */
+        private void refresh(long now) {
+            Iterator<Throttle> oldest = throttles.values().iterator();
+            while (oldest.hasNext() && oldest.next().until - now <= 0) {
+                oldest.remove();
+            }
+            long epoch = sketch.epoch();
+            if (epoch == refreshedEpoch) {
+                return;
+            }
+            refreshedEpoch = epoch;
+            List<Entry> all = new ArrayList<>(heap);
+            heap.clear();
+            for (Entry entry : all) {
+                entry.count = sketch.estimate(entry.key.hi(), entry.key.lo());
+                if (entry.count == 0) {
+                    entries.remove(entry.key);
+                } else {
+                    heap.add(entry);
+                }
+            }
+        }
+    }
+
+    private record Key(long hi, long lo) {
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final String label;
+        private long count;
+
+        private Entry(Key key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    private static final class Throttle {
+        private final String label;
+        private long until;
+
+        private Throttle(String label) {
+            this.label = label;
+        }
+    }
+}
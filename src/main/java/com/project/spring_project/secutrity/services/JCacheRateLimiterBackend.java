@@ -0,0 +1,99 @@
+package com.project.spring_project.secutrity.services;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConfigurationBuilder;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.grid.jcache.JCacheProxyManager;
+
+import javax.cache.Cache;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limit buckets stored in a JCache cache through Bucket4j, shared by every node using the same cache.
+ * <p>
+ * Each call is an entry processor invocation on the cache, a remote call with a clustered provider. The
+ * {@link LeasingRateLimiterBackend} takes tokens from here in batches to avoid one per request.
+ */
+public class JCacheRateLimiterBackend implements RateLimiterBackend {
+
+    private final Cache<String, byte[]> cache;
+    private final JCacheProxyManager<String> proxyManager;
+    private final BucketConfiguration configuration;
+    private final String prefix;
+
+    /**
+     * Creates the backend of a single bandwidth.
+     *
+     * @param cache   the cache holding the serialized buckets
+     * @param permits the bucket capacity, also the number of tokens refilled per period
+     * @param period  the time to refill a whole bucket
+     */
+    public JCacheRateLimiterBackend(Cache<String, byte[]> cache, long permits, Duration period) {
+        this(cache, "default", List.of(new RateLimitBandwidth(permits, period)));
+    }
+
+    /**
+     * Creates the backend of a policy.
+     *
+     * @param cache      the cache holding the serialized buckets
+     * @param name       the policy name, prepended to the keys so that policies sharing the cache stay apart
+     * @param bandwidths the limits of every bucket, all of which must allow a request
+     */
+    public JCacheRateLimiterBackend(Cache<String, byte[]> cache, String name, List<RateLimitBandwidth> bandwidths) {
+        this.cache = cache;
+        this.proxyManager = new JCacheProxyManager<>(cache);
+        ConfigurationBuilder builder = BucketConfiguration.builder();
+        for (RateLimitBandwidth bandwidth : bandwidths) {
+            builder.addLimit(Bandwidth.classic(bandwidth.permits(),
+                    Refill.greedy(bandwidth.permits(), bandwidth.period())));
+        }
+        this.configuration = builder.build();
+        this.prefix = name + ':';
+    }
+
+    @Override
+    public long tryConsume(long hi, long lo) {
+        ConsumptionProbe probe = bucket(hi, lo).tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed() ? probe.getRemainingTokens() : -Math.max(1, probe.getNanosToWaitForRefill());
+    }
+
+    /**
+     * Takes as many tokens as available from the bucket of a key, up to a limit.
+     *
+     * @param hi     the high 64 bits of the key
+     * @param lo     the low 64 bits of the key
+     * @param tokens the most tokens to take
+     * @return the tokens taken, with the state of the bucket afterwards
+     */
+    public Grant tryConsumeUpTo(long hi, long lo, long tokens) {
+        VerboseResult<Long> result = bucket(hi, lo).asVerbose().tryConsumeAsMuchAsPossible(tokens);
+        long granted = result.getValue();
+        long nanosToWait = granted > 0 ? 0 : Math.max(1, result.getState()
+                .calculateDelayNanosAfterWillBePossibleToConsume(1, result.getOperationTimeNanos(), false));
+        return new Grant(granted, result.getState().getAvailableTokens(), nanosToWait);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    private Bucket bucket(long hi, long lo) {
+        return proxyManager.builder().build(prefix + Long.toHexString(hi) + ':' + Long.toHexString(lo), configuration);
+    }
+
+    /**
+     * Result of {@link #tryConsumeUpTo(long, long, long)}.
+     *
+     * @param tokens      the tokens taken
+     * @param remaining   the tokens left in the shared bucket
+     * @param nanosToWait the time until a token is available, 0 if some were taken
+     */
+    public record Grant(long tokens, long remaining, long nanosToWait) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.secutrity.jwt.VerifiedToken;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal built only from the claims of a verified access token.
+ * <p>
+ * Used by the stateless authentication mode ({@code app.jwtStatelessAuth=true}) so that authenticated
+ * requests do not need to load the {@code User} entity. Services that need the full entity should load it
+ * by {@link #getId()} or {@link #getUsername()}.
+ */
+@Getter
+public class JwtUserPrincipal implements UserDetails, RoleMaskPrincipal {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final List<GrantedAuthority> authorities;
+    private final long roleMask;
+
+    public JwtUserPrincipal(Long id, String username, String email, List<GrantedAuthority> authorities) {
+        this(id, username, email, authorities, RoleCatalog.UNRESOLVED);
+    }
+
+    public JwtUserPrincipal(Long id, String username, String email, List<GrantedAuthority> authorities,
+                            long roleMask) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.authorities = authorities;
+        this.roleMask = roleMask;
+    }
+
+    /**
+     * Creates a principal from a verified token.
+     * <p>
+     * Tokens issued at login carry authorities ("ROLE_USER") while tokens issued on refresh carry role names
+     * ("USER"), so both forms are normalised to Spring's "ROLE_" convention. The role mask comes from the
+     * {@code rm} claim; tokens issued without it are checked by role name.
+     *
+     * @param token the verified access token
+     * @return the principal
+     */
+    public static JwtUserPrincipal from(VerifiedToken token) {
+        List<GrantedAuthority> authorities = token.getRoles().stream()
+                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return new JwtUserPrincipal(token.getUserId(), token.getSubject(), token.getEmail(), authorities,
+                token.getRoleMask() != null ? token.getRoleMask() : RoleCatalog.UNRESOLVED);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * The password is never part of the token.
+     *
+     * @return always null
+     */
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
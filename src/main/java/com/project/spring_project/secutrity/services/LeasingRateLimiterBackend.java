@@ -0,0 +1,137 @@
+package com.project.spring_project.secutrity.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Hybrid backend: tokens are taken from the shared {@link JCacheRateLimiterBackend} in small batches and handed
+ * out locally.
+ * <p>
+ * A lease of up to {@code leaseSize} tokens saves {@code leaseSize - 1} remote calls. Leased tokens come out of the
+ * shared bucket, so a client never gets more than the cluster-wide limit; tokens left in a lease after
+ * {@code leaseMs} are dropped. So that a client does not lose them, a key only leases more than one token once it
+ * has used up its previous lease within {@code leaseMs}: a client sending fewer requests takes one token per remote
+ * call, and only a client spread over several nodes at a high rate may be limited slightly early. Calls for the
+ * same key on one node wait for a single remote call instead of each making one.
+ */
+public class LeasingRateLimiterBackend implements RateLimiterBackend {
+
+    private final JCacheRateLimiterBackend remote;
+    private final int leaseSize;
+    private final long leaseNanos;
+    private final int maxLeases;
+    private final LongSupplier nanoClock;
+
+    private final Map<Key, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Key for lookups, so that only a new lease allocates one.
+     */
+    private static final ThreadLocal<Key> PROBE = ThreadLocal.withInitial(Key::new);
+
+    /**
+     * Creates the backend.
+     *
+     * @param remote    the shared buckets
+     * @param leaseSize the most tokens taken from the shared bucket at once
+     * @param leaseMs   how long leased tokens can be used
+     * @param maxLeases the number of leases above which expired ones are purged
+     * @param nanoClock the time source, in nanoseconds (e.g. {@code System::nanoTime})
+     */
+    public LeasingRateLimiterBackend(JCacheRateLimiterBackend remote, int leaseSize, long leaseMs, int maxLeases,
+                                     LongSupplier nanoClock) {
+        this.remote = remote;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.leaseNanos = leaseMs * 1_000_000L;
+        this.maxLeases = maxLeases;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes one token from the lease of a key, leasing more from the shared bucket when it is empty or expired.
+     * <p>
+     * The new lease has {@code leaseSize} tokens if the previous one was used up before it expired, one otherwise.
+     * <p>
+     * The tokens left are those of the lease plus those the shared bucket had when it was leased.
+     *
+     * @param hi the high 64 bits of the key
+     * @param lo the low 64 bits of the key
+     * @return the tokens left, or the negated wait reported by the shared bucket
+     */
+    @Override
+    public long tryConsume(long hi, long lo) {
+        Key probe = PROBE.get();
+        probe.hi = hi;
+        probe.lo = lo;
+        Lease lease = leases.get(probe);
+        if (lease == null) {
+            if (leases.size() >= maxLeases) {
+                purgeExpired();
+            }
+            lease = leases.computeIfAbsent(new Key(hi, lo), k -> new Lease());
+        }
+        synchronized (lease) {
+            long now = nanoClock.getAsLong();
+            boolean current = lease.leased && now - lease.leasedAt < leaseNanos;
+            if (current && lease.tokens > 0) {
+                lease.tokens--;
+                return lease.tokens + lease.remoteRemaining;
+            }
+            JCacheRateLimiterBackend.Grant grant = remote.tryConsumeUpTo(hi, lo, current ? leaseSize : 1);
+            lease.tokens = Math.max(0, grant.tokens() - 1);
+            lease.remoteRemaining = grant.remaining();
+            lease.leasedAt = now;
+            lease.leased = true;
+            return grant.tokens() > 0 ? lease.tokens + grant.remaining() : -grant.nanosToWait();
+        }
+    }
+
+    @Override
+    public void clear() {
+        leases.clear();
+        remote.clear();
+    }
+
+    private void purgeExpired() {
+        long now = nanoClock.getAsLong();
+        leases.values().removeIf(lease -> {
+            synchronized (lease) {
+                return lease.tokens == 0 || now - lease.leasedAt >= leaseNanos;
+            }
+        });
+    }
+
+    /**
+     * Key of a lease. Keys in the map are never changed; only the lookup key of each thread is.
+     */
+    private static final class Key {
+        private long hi;
+        private long lo;
+
+        private Key() {
+        }
+
+        private Key(long hi, long lo) {
+            this.hi = hi;
+            this.lo = lo;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.hi == hi && key.lo == lo;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(hi) + Long.hashCode(lo);
+        }
+    }
+
+    private static final class Lease {
+        private long tokens;
+        private long remoteRemaining;
+        private long leasedAt;
+        private boolean leased;
+    }
+}
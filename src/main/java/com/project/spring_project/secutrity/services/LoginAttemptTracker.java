@@ -0,0 +1,299 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.entity.user.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory failed-login counters and lockouts, keyed by user id.
+ * <p>
+ * A user is locked after {@code app.maxFailedLoginAttempts} failures within {@code app.failedLoginWindowMs} and
+ * unlocked automatically after {@code app.accountLockDurationMs}. Bad passwords no longer write the user row:
+ * the state lives in lock-striped maps, and the {@code failed_attempts}, {@code account_locked} and
+ * {@code lock_time} columns are a write-behind copy flushed in batches by {@link #flush()} and read back on
+ * startup. A lock already in the database (an administrator's, or one flushed earlier) is still honoured.
+ */
+@Component
+public class LoginAttemptTracker implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    private static final int STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxAttempts;
+    private final long lockDurationMs;
+    private final long windowMs;
+    private final Clock clock;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public LoginAttemptTracker(JdbcTemplate jdbcTemplate,
+                               @Value("${app.maxFailedLoginAttempts:5}") int maxAttempts,
+                               @Value("${app.accountLockDurationMs:900000}") long lockDurationMs,
+                               @Value("${app.failedLoginWindowMs:900000}") long windowMs) {
+        this(jdbcTemplate, maxAttempts, lockDurationMs, windowMs, Clock.systemDefaultZone());
+    }
+
+    public LoginAttemptTracker(JdbcTemplate jdbcTemplate, int maxAttempts, long lockDurationMs, long windowMs,
+                               Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lockDurationMs = lockDurationMs;
+        this.windowMs = windowMs;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Checks whether a user is locked out.
+     * <p>
+     * A lock whose duration has passed is lifted, and the unlock is flushed with the next batch. A lock stored
+     * in the database without a lock time never expires.
+     *
+     * @param user the user trying to log in
+     * @return true if the user must not log in
+     */
+    public boolean isLocked(User user) {
+        long now = clock.millis();
+        Stripe stripe = stripeOf(user.getId());
+        synchronized (stripe) {
+            Attempts attempts = stripe.attempts.get(user.getId());
+            if (attempts != null && attempts.lockedAt != 0) {
+                if (now - attempts.lockedAt < lockDurationMs) {
+                    return true;
+                }
+                stripe.attempts.remove(user.getId());
+                dirtyUsers.add(user.getId());
+                return false;
+            }
+        }
+        if (!user.isAccountLocked()) {
+            return false;
+        }
+        if (user.getLockTime() == null) {
+            return true;
+        }
+        long lockedAt = user.getLockTime().atZone(clock.getZone()).toInstant().toEpochMilli();
+        if (now - lockedAt < lockDurationMs) {
+            return true;
+        }
+        dirtyUsers.add(user.getId());
+        return false;
+    }
+
+    /**
+     * Records a failed login.
+     *
+     * @param userId the id of the user
+     * @return true if this failure locked the user
+     */
+    public boolean recordFailure(Long userId) {
+        long now = clock.millis();
+        Stripe stripe = stripeOf(userId);
+        boolean locked;
+        synchronized (stripe) {
+            Attempts attempts = stripe.attempts.computeIfAbsent(userId, id -> new Attempts(maxAttempts));
+            attempts.add(now, now - windowMs);
+            locked = attempts.size >= maxAttempts;
+            if (locked) {
+                attempts.lockedAt = now;
+            }
+        }
+        dirtyUsers.add(userId);
+        return locked;
+    }
+
+    /**
+     * Records a successful login, clearing the failures of the user.
+     *
+     * @param user the user that logged in
+     */
+    public void recordSuccess(User user) {
+        Stripe stripe = stripeOf(user.getId());
+        boolean hadFailures;
+        synchronized (stripe) {
+            hadFailures = stripe.attempts.remove(user.getId()) != null;
+        }
+        if (hadFailures || user.getFailedAttempts() != 0 || user.isAccountLocked()) {
+            dirtyUsers.add(user.getId());
+        }
+    }
+
+    /**
+     * Returns the failures of a user within the window.
+     *
+     * @param userId the id of the user
+     * @return the number of failed logins counted towards a lockout
+     */
+    public int getFailedAttempts(Long userId) {
+        long now = clock.millis();
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            Attempts attempts = stripe.attempts.get(userId);
+            if (attempts == null) {
+                return 0;
+            }
+            if (attempts.lockedAt == 0) {
+                attempts.prune(now - windowMs);
+            }
+            return attempts.size;
+        }
+    }
+
+    /**
+     * Writes the state of every user changed since the last flush, and drops failures that left the window.
+     */
+    @Scheduled(fixedDelayString = "${app.loginAttemptFlushIntervalMs:5000}")
+    public void flush() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Map.Entry<Long, Attempts>> it = stripe.attempts.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Long, Attempts> entry = it.next();
+                    Attempts attempts = entry.getValue();
+                    if (attempts.lockedAt == 0 && attempts.prune(now - windowMs)) {
+                        dirtyUsers.add(entry.getKey());
+                        if (attempts.size == 0) {
+                            it.remove();
+                        }
+                    }
+                }
+            }
+        }
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Long> it = dirtyUsers.iterator();
+        while (it.hasNext()) {
+            Long userId = it.next();
+            it.remove();
+            batch.add(snapshot(userId));
+        }
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE users SET failed_attempts = ?, account_locked = ?, lock_time = ? WHERE id = ?", batch);
+        } catch (RuntimeException e) {
+            // Keep the users dirty so the next flush retries them
+            batch.forEach(row -> dirtyUsers.add((Long) row[3]));
+            logger.warn("Could not persist {} login attempt counters: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the failures and locks persisted by a previous run.
+     * <p>
+     * The time of each failure is not stored, so restored failures count as made at startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long now = clock.millis();
+        jdbcTemplate.query("SELECT id, failed_attempts, account_locked, lock_time FROM users "
+                + "WHERE failed_attempts > 0 OR account_locked = TRUE", rs -> {
+            Long userId = rs.getLong("id");
+            Attempts attempts = new Attempts(maxAttempts);
+            for (int i = Math.min(rs.getInt("failed_attempts"), maxAttempts); i > 0; i--) {
+                attempts.add(now, Long.MIN_VALUE);
+            }
+            Timestamp lockTime = rs.getTimestamp("lock_time");
+            if (rs.getBoolean("account_locked")) {
+                if (lockTime == null) {
+                    return; // Locked without a lock time: only the database copy decides
+                }
+                attempts.lockedAt = lockTime.getTime();
+            }
+            Stripe stripe = stripeOf(userId);
+            synchronized (stripe) {
+                stripe.attempts.put(userId, attempts);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private Object[] snapshot(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        synchronized (stripe) {
+            Attempts attempts = stripe.attempts.get(userId);
+            if (attempts == null) {
+                return new Object[]{0, false, null, userId};
+            }
+            Timestamp lockTime = attempts.lockedAt == 0 ? null : new Timestamp(attempts.lockedAt);
+            return new Object[]{attempts.size, attempts.lockedAt != 0, lockTime, userId};
+        }
+    }
+
+    private Stripe stripeOf(Long userId) {
+        int h = userId == null ? 0 : Long.hashCode(userId);
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        private final Map<Long, Attempts> attempts = new HashMap<>();
+    }
+
+    /**
+     * Times of the most recent failures of one user, oldest first, and the time it was locked (0 if not locked).
+     */
+    private static final class Attempts {
+        private final long[] failures;
+        private int head;
+        private int size;
+        private long lockedAt;
+
+        private Attempts(int capacity) {
+            this.failures = new long[capacity];
+        }
+
+        void add(long time, long windowStart) {
+            prune(windowStart);
+            if (size == failures.length) {
+                head = (head + 1) % failures.length;
+                size--;
+            }
+            failures[(head + size) % failures.length] = time;
+            size++;
+        }
+
+        /**
+         * Drops the failures before the start of the window.
+         *
+         * @return true if any failure was dropped
+         */
+        boolean prune(long windowStart) {
+            boolean pruned = false;
+            while (size > 0 && failures[head] < windowStart) {
+                head = (head + 1) % failures.length;
+                size--;
+                pruned = true;
+            }
+            return pruned;
+        }
+    }
+}
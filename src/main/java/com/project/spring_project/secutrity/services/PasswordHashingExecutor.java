@@ -0,0 +1,162 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.dto.request.RequestContext;
+import com.project.spring_project.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded executor for the auth operations that hash or verify passwords.
+ * <p>
+ * BCrypt is deliberately slow, so login, registration and password reset run here instead of on the servlet
+ * request threads: the pool has one thread per core ({@code app.passwordHashingThreads}) and a bounded queue
+ * ({@code app.passwordHashingQueueCapacity}). When both are full the task is rejected with a
+ * {@link PasswordHashingBusyException}, answered as 503 with {@code Retry-After}, instead of piling up work that
+ * would starve every other endpoint.
+ * <p>
+ * The request, locale and security contexts of the submitting thread are propagated to the worker.
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+    private volatile Timer queueWait;
+
+    public PasswordHashingExecutor(@Value("${app.passwordHashingThreads:0}") int threads,
+                                   @Value("${app.passwordHashingQueueCapacity:100}") int queueCapacity,
+                                   @Value("${app.passwordHashingRetryAfterSeconds:1}") int retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    /**
+     * Runs a task on the hashing pool.
+     * <p>
+     * The returned future completes with the result of the task, or exceptionally with whatever it threw.
+     *
+     * @param task the task, typically an auth service call that hashes or verifies a password
+     * @param <T>  the result type
+     * @return a future completed by the hashing pool
+     * @throws PasswordHashingBusyException if the pool and its queue are full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        HttpServletRequest request = RequestContext.getRequest();
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        long submittedAt = System.nanoTime();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                Timer timer = queueWait;
+                if (timer != null) {
+                    timer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+                RequestContext.setRequest(request);
+                LocaleContextHolder.setLocaleContext(localeContext);
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    RequestContext.clear();
+                    LocaleContextHolder.resetLocaleContext();
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfterSeconds);
+        }
+        return future;
+    }
+
+    /**
+     * Runs a task without result on the hashing pool.
+     *
+     * @param task the task, typically an auth service call that hashes or verifies a password
+     * @return a future completed by the hashing pool
+     * @throws PasswordHashingBusyException if the pool and its queue are full
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Auth tasks waiting for a password hashing thread")
+                .register(registry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing threads currently busy")
+                .register(registry);
+        FunctionCounter.builder("password.hashing.rejected", rejected, LongAdder::sum)
+                .description("Auth requests rejected with 503 because the password hashing queue was full")
+                .register(registry);
+        queueWait = Timer.builder("password.hashing.queue.wait")
+                .description("Time auth tasks spent queued before a password hashing thread picked them up")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Names the pool threads and keeps them from blocking JVM shutdown.
+     */
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package com.project.spring_project.secutrity.services;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class PasswordService {
 
     private final PasswordEncoder passwordEncoder;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
 
     @Value("${security.pepper}")
     private String pepper;
 
+    public PasswordService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+    }
+
     /**
      * Encodes a raw password using the password encoder and a pepper.
      *
@@ -21,7 +29,7 @@ public class PasswordService {
      * @return the encoded password
      */
     public String encodePassword(String rawPassword) {
-        return passwordEncoder.encode(rawPassword + pepper);
+        return encodeTimer.record(() -> passwordEncoder.encode(rawPassword + pepper));
     }
 
     /**
@@ -32,6 +40,33 @@ public class PasswordService {
      * @return true if the passwords match, false otherwise
      */
     public boolean matches(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword + pepper, encodedPassword);
+        return Boolean.TRUE.equals(
+                matchesTimer.record(() -> passwordEncoder.matches(rawPassword + pepper, encodedPassword)));
+    }
+
+    /**
+     * Checks whether an encoded password should be hashed again.
+     * <p>
+     * True when it was made with another algorithm than the configured one, or with a lower BCrypt cost.
+     *
+     * @param encodedPassword the encoded password to check
+     * @return true if the password should be rehashed with {@link #encodePassword(String)}
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Registers the timer recording the latency of a password hashing operation.
+     *
+     * @param meterRegistry the registry of the timer
+     * @param operation     the operation, encode or matches
+     * @return the timer
+     */
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hash.duration")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.project.spring_project.secutrity.services;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One limit of a rate limit policy: {@code permits} requests per {@code period}, refilled greedily.
+ * <p>
+ * Written as {@code permits/period} in properties and in {@link RateLimited#limits()}, e.g. {@code 5/1m} or
+ * {@code 1000/1h}. A policy with several bandwidths allows a request only when every one of them has a token.
+ *
+ * @param permits the bucket capacity, also the number of tokens refilled per period
+ * @param period  the time to refill a whole bucket
+ */
+public record RateLimitBandwidth(long permits, Duration period) {
+
+    public RateLimitBandwidth {
+        if (permits <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit permits and period must be positive");
+        }
+    }
+
+    /**
+     * Parses a bandwidth written as {@code permits/period}.
+     *
+     * @param value the bandwidth, the period in Spring Boot's simple duration format ({@code 30s}, {@code 1m}, ...)
+     * @return the bandwidth
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static RateLimitBandwidth parse(String value) {
+        int slash = value.indexOf('/');
+        if (slash <= 0) {
+            throw new IllegalArgumentException("Rate limit must be written as permits/period: " + value);
+        }
+        return new RateLimitBandwidth(Long.parseLong(value.substring(0, slash).trim()),
+                DurationStyle.SIMPLE.parse(value.substring(slash + 1).trim()));
+    }
+
+    /**
+     * Parses a list of bandwidths.
+     *
+     * @param values the bandwidths, each written as {@code permits/period}
+     * @return the bandwidths, in the same order
+     */
+    public static List<RateLimitBandwidth> parseAll(List<String> values) {
+        return values.stream().map(RateLimitBandwidth::parse).toList();
+    }
+
+    @Override
+    public String toString() {
+        return permits + "/" + DurationStyle.SIMPLE.print(period);
+    }
+}
@@ -0,0 +1,147 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.util.IpAddresses;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One rate limit policy: what requests are counted per, and the buckets that count them.
+ * <p>
+ * Policies keyed by user count authenticated requests per user id, and anonymous ones per client address. A role
+ * policy picks the buckets of the first tier whose role the user has, falling back to its own limits.
+ */
+public class RateLimitPolicy {
+
+    /**
+     * Result of {@link #tryConsume} when no bucket applies to the request.
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * High bits of the IPv6 discard prefix 100::/64, used for client keys that are not IP addresses.
+     */
+    private static final long NON_ADDRESS_KEY = 0x0100_0000_0000_0000L;
+
+    /**
+     * High bits of 100:0:0:1::/64, in the same discard prefix, used for user ids.
+     */
+    private static final long USER_KEY = 0x0100_0000_0000_0001L;
+
+    private static final ThreadLocal<long[]> ADDRESS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final String name;
+    private final RateLimited.Key key;
+    private final RateLimiterBackend buckets;
+    private final String[] tierAuthorities;
+    private final RateLimiterBackend[] tierBuckets;
+
+    /**
+     * Creates a policy.
+     *
+     * @param name    the policy name
+     * @param key     what requests are counted per
+     * @param buckets the buckets of the policy's own limits, null if it has none
+     * @param tiers   role policies only: the buckets by role name, in order of precedence
+     */
+    public RateLimitPolicy(String name, RateLimited.Key key, RateLimiterBackend buckets,
+                           Map<String, RateLimiterBackend> tiers) {
+        this.name = name;
+        this.key = key;
+        this.buckets = buckets;
+        this.tierAuthorities = new String[tiers.size()];
+        this.tierBuckets = new RateLimiterBackend[tiers.size()];
+        int i = 0;
+        for (Map.Entry<String, RateLimiterBackend> tier : tiers.entrySet()) {
+            String role = tier.getKey().toUpperCase();
+            tierAuthorities[i] = role.startsWith("ROLE_") ? role : "ROLE_" + role;
+            tierBuckets[i++] = tier.getValue();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Takes a token for a request.
+     *
+     * @param clientAddress  the client address, see {@link IpAddresses#clientAddress}
+     * @param authentication the authentication of the request, null if there is none
+     * @return the probe of the bucket (see {@link RateLimiterBackend#tryConsume(long, long)}), or
+     * {@link #UNLIMITED} if the policy does not limit this request
+     */
+    public long tryConsume(String clientAddress, Authentication authentication) {
+        Long userId = key == RateLimited.Key.IP ? null : userId(authentication);
+        RateLimiterBackend backend = key == RateLimited.Key.ROLE && userId != null
+                ? tierOf(authentication)
+                : buckets;
+        if (backend == null) {
+            return UNLIMITED;
+        }
+        if (userId != null) {
+            return backend.tryConsume(USER_KEY, userId);
+        }
+        long[] address = ADDRESS.get();
+        if (!IpAddresses.parse(clientAddress, address)) {
+            address[0] = NON_ADDRESS_KEY;
+            address[1] = hash(clientAddress);
+        }
+        return backend.tryConsume(address[0], address[1]);
+    }
+
+    /**
+     * Returns every backend of the policy.
+     *
+     * @return the buckets of its own limits and of its tiers
+     */
+    public List<RateLimiterBackend> backends() {
+        List<RateLimiterBackend> backends = new ArrayList<>(List.of(tierBuckets));
+        if (buckets != null) {
+            backends.add(buckets);
+        }
+        return backends;
+    }
+
+    private RateLimiterBackend tierOf(Authentication authentication) {
+        for (int i = 0; i < tierAuthorities.length; i++) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if (tierAuthorities[i].equals(authority.getAuthority())) {
+                    return tierBuckets[i];
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static Long userId(Authentication authentication) {
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtUserPrincipal jwtPrincipal) {
+            return jwtPrincipal.getId();
+        }
+        if (principal instanceof CustomUserDetails userDetails) {
+            return userDetails.getUser().getId();
+        }
+        return null;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of a key.
+     */
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        if (key != null) {
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+}
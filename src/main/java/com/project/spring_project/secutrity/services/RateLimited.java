@@ -0,0 +1,58 @@
+package com.project.spring_project.secutrity.services;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limits a controller method, or every method of a controller.
+ * <p>
+ * Either names policies of the {@code app.rateLimitPolicies} table, or declares the limits inline:
+ * <pre>
+ * &#64;RateLimited("auth")
+ * &#64;RateLimited(key = RateLimited.Key.USER, limits = {"10/1s", "1000/1h"})
+ * </pre>
+ * These apply on top of the table policies whose routes match the handler. The policies of each handler are
+ * resolved once at startup by {@link RateLimitingService}.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    /**
+     * The names of the policies of the {@code app.rateLimitPolicies} table to apply.
+     */
+    String[] value() default {};
+
+    /**
+     * Inline limits, each written as {@code permits/period} (e.g. {@code 5/1m}).
+     */
+    String[] limits() default {};
+
+    /**
+     * What the inline limits are counted per.
+     */
+    Key key() default Key.IP;
+
+    /**
+     * What a policy counts requests per.
+     */
+    enum Key {
+        /**
+         * The client address.
+         */
+        IP,
+        /**
+         * The authenticated user id; anonymous requests are counted per client address.
+         */
+        USER,
+        /**
+         * The authenticated user id, with the limits of the first tier whose role the user has; requests that match
+         * no tier get the policy's own limits, if any.
+         */
+        ROLE
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.spring_project.secutrity.services;
+
+import java.util.List;
+
+/**
+ * Where the rate limit buckets of one policy live, selected with {@code app.rateLimitBackend}.
+ * <p>
+ * Keys are 128-bit values: the client address as parsed by {@link com.project.spring_project.util.IpAddresses},
+ * or a user id for policies keyed by principal.
+ *
+ * @see TokenBucketTable
+ * @see JCacheRateLimiterBackend
+ * @see LeasingRateLimiterBackend
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Takes one token from the bucket of a key.
+     * <p>
+     * The result is the probe of the bucket, packed in a long so the local backend does not allocate: 0 or more is
+     * the number of tokens left after taking one, and a negative value is minus the nanoseconds until a token is
+     * available again.
+     *
+     * @param hi the high 64 bits of the key
+     * @param lo the low 64 bits of the key
+     * @return the tokens left, or the negated wait if no token was available
+     */
+    long tryConsume(long hi, long lo);
+
+    /**
+     * Removes every bucket.
+     */
+    void clear();
+
+    /**
+     * Tells whether a probe returned by {@link #tryConsume(long, long)} allowed the request.
+     *
+     * @param probe the probe
+     * @return true if a token was taken
+     */
+    static boolean allowed(long probe) {
+        return probe >= 0;
+    }
+
+    /**
+     * Creates the backend of a policy.
+     */
+    @FunctionalInterface
+    interface Factory {
+
+        /**
+         * Creates the buckets of one policy.
+         *
+         * @param name       the policy name, which separates its buckets from those of other policies
+         * @param bandwidths the limits every bucket enforces
+         * @return the backend
+         */
+        RateLimiterBackend create(String name, List<RateLimitBandwidth> bandwidths);
+    }
+}
@@ -1,51 +1,187 @@
 package com.project.spring_project.secutrity.services;
 
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Refill;
+import com.project.spring_project.config.RateLimitPolicyProperties;
+import com.project.spring_project.util.IpAddresses;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.*;
 
+/**
+ * Rate limits of the controller methods, from the {@code app.rateLimitPolicies} table and {@link RateLimited}.
+ * <p>
+ * The policies of every handler are resolved once, after the handler mappings are built: the table policies whose
+ * routes match one of the handler's patterns, then those named or declared by its annotation. A request then costs
+ * one map lookup plus one bucket per policy. Buckets are kept by the {@link RateLimiterBackend} chosen with
+ * {@code app.rateLimitBackend}.
+ */
+@Slf4j
 @Service
-public class RateLimitingService {
+public class RateLimitingService implements SmartInitializingSingleton {
 
-    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private static final RateLimitPolicy[] NONE = new RateLimitPolicy[0];
+
+    private final RateLimiterBackend.Factory backends;
+    private final ApplicationContext applicationContext;
+    private final Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+    private final Map<String, List<PathPattern>> routes = new LinkedHashMap<>();
+    private final Map<AnnotatedElement, RateLimitPolicy> inlinePolicies = new HashMap<>();
+
+    private volatile Map<Method, RateLimitPolicy[]> policiesByHandler = Map.of();
+
+    public RateLimitingService(RateLimitPolicyProperties properties, RateLimiterBackend.Factory backends,
+                               ApplicationContext applicationContext) {
+        this.backends = backends;
+        this.applicationContext = applicationContext;
+        properties.getRateLimitPolicies().forEach((name, policy) -> {
+            Map<String, RateLimiterBackend> tiers = new LinkedHashMap<>();
+            policy.getTiers().forEach((role, limits) ->
+                    tiers.put(role, backends.create(name + '.' + role, RateLimitBandwidth.parseAll(limits))));
+            RateLimiterBackend buckets = policy.getLimits().isEmpty()
+                    ? null
+                    : backends.create(name, RateLimitBandwidth.parseAll(policy.getLimits()));
+            policies.put(name, new RateLimitPolicy(name, policy.getKey(), buckets, tiers));
+            routes.put(name, policy.getRoutes().stream().map(PathPatternParser.defaultInstance::parse).toList());
+        });
+    }
+
+    /**
+     * Resolves the policies of every handler method of the application.
+     *
+     * @throws IllegalStateException if an annotation names an unknown policy or declares invalid limits
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, RateLimitPolicy[]> resolved = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping :
+                applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            mapping.getHandlerMethods().forEach((info, handler) -> {
+                RateLimitPolicy[] handlerPolicies = resolve(info, handler);
+                if (handlerPolicies.length > 0) {
+                    resolved.put(handler.getMethod(), handlerPolicies);
+                }
+            });
+        }
+        policiesByHandler = Map.copyOf(resolved);
+        log.info("Rate limit policies {} apply to {} handlers", policies.keySet(), resolved.size());
+    }
 
     /**
-     * Resolves a bucket for the given key. If the bucket does not exist, it creates a new one.
+     * Returns whether any policy limits a handler.
      *
-     * @param key The key for which to resolve the bucket.
-     * @return The resolved bucket.
+     * @param handler the handler of a request
+     * @return true if {@link #tryConsume} takes tokens for it
      */
-    public Bucket resolveBucket(String key) {
-        return buckets.computeIfAbsent(key, this::newBucket);
+    public boolean isLimited(HandlerMethod handler) {
+        return policiesByHandler.containsKey(handler.getMethod());
     }
 
     /**
-     * Attempts to consume a token from the bucket associated with the given key.
+     * Takes a token from every policy of a handler for the current request.
+     * <p>
+     * Policies are checked in order and the first one without a token rejects the request; tokens already taken
+     * from the policies before it are not returned.
      *
-     * @param key The key for which to consume a token.
-     * @return true if the token was successfully consumed, false otherwise.
+     * @param handler the handler of the request
+     * @param request the request
+     * @return the probe of the most restrictive policy (see {@link RateLimiterBackend#tryConsume(long, long)}), or
+     * {@link RateLimitPolicy#UNLIMITED} if no policy limits the request
      */
-    public boolean tryConsume(String key) {
-        Bucket bucket = buckets.computeIfAbsent(key, this::newBucket);
-        return bucket.tryConsume(1);
+    public long tryConsume(HandlerMethod handler, HttpServletRequest request) {
+        RateLimitPolicy[] handlerPolicies = policiesByHandler.getOrDefault(handler.getMethod(), NONE);
+        if (handlerPolicies.length == 0) {
+            return RateLimitPolicy.UNLIMITED;
+        }
+        String clientAddress = IpAddresses.clientAddress(request);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        long result = RateLimitPolicy.UNLIMITED;
+        for (RateLimitPolicy policy : handlerPolicies) {
+            long probe = policy.tryConsume(clientAddress, authentication);
+            if (!RateLimiterBackend.allowed(probe)) {
+                return probe;
+            }
+            result = Math.min(result, probe);
+        }
+        return result;
     }
 
     /**
-     * Creates a new bucket with a specific rate limit.
+     * Returns a policy of the table.
      *
-     * @param key The key for which to create the bucket.
-     * @return A new bucket with a rate limit of 5 tokens per minute.
+     * @param name the policy name
+     * @return the policy, or null if there is none by that name
      */
-    private Bucket newBucket(String key) {
-        Bandwidth limit = Bandwidth.classic(5, Refill.greedy(5, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    public RateLimitPolicy getPolicy(String name) {
+        return policies.get(name);
     }
 
     public void resetAll() {
-        buckets.clear();
+        policies.values().forEach(policy -> policy.backends().forEach(RateLimiterBackend::clear));
+        synchronized (inlinePolicies) {
+            inlinePolicies.values().forEach(policy -> policy.backends().forEach(RateLimiterBackend::clear));
+        }
+    }
+
+    private RateLimitPolicy[] resolve(RequestMappingInfo info, HandlerMethod handler) {
+        Set<RateLimitPolicy> resolved = new LinkedHashSet<>();
+        routes.forEach((name, patterns) -> {
+            for (String path : info.getPatternValues()) {
+                if (patterns.stream().anyMatch(pattern -> pattern.matches(PathContainer.parsePath(path)))) {
+                    resolved.add(policies.get(name));
+                    return;
+                }
+            }
+        });
+
+        // The method's annotation takes the place of its controller's
+        AnnotatedElement annotated = handler.getMethod();
+        RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(annotated, RateLimited.class);
+        if (rateLimited == null) {
+            annotated = handler.getBeanType();
+            rateLimited = AnnotatedElementUtils.findMergedAnnotation(annotated, RateLimited.class);
+        }
+        if (rateLimited != null) {
+            for (String name : rateLimited.value()) {
+                RateLimitPolicy policy = policies.get(name);
+                if (policy == null) {
+                    throw new IllegalStateException("Unknown rate limit policy '" + name + "' on " + annotated);
+                }
+                resolved.add(policy);
+            }
+            if (rateLimited.limits().length > 0) {
+                resolved.add(inlinePolicy(annotated, rateLimited));
+            }
+        }
+        return resolved.toArray(NONE);
+    }
+
+    private RateLimitPolicy inlinePolicy(AnnotatedElement annotated, RateLimited rateLimited) {
+        if (rateLimited.key() == RateLimited.Key.ROLE) {
+            throw new IllegalStateException("Role rate limits need tiers from the policy table: " + annotated);
+        }
+        synchronized (inlinePolicies) {
+            return inlinePolicies.computeIfAbsent(annotated, element -> {
+                String name = element instanceof Method method
+                        ? method.getDeclaringClass().getSimpleName() + '.' + method.getName()
+                        : ((Class<?>) element).getSimpleName();
+                RateLimiterBackend buckets = backends.create(name,
+                        RateLimitBandwidth.parseAll(List.of(rateLimited.limits())));
+                return new RateLimitPolicy(name, rateLimited.key(), buckets, Map.of());
+            });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.project.spring_project.secutrity.services;
+
+import com.project.spring_project.entity.user.Role;
+import com.project.spring_project.repository.user.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bit of every role of the {@code roles} table, read once at startup.
+ * <p>
+ * A role with id {@code n} owns bit {@code n - 1}, so a set of roles is a {@code long} and a role check is a single
+ * AND. Role ids come from the database, so every node and every restart agrees on the bits, which lets access tokens
+ * carry the mask of their roles. Roles with an id above {@value #MAX_ROLE_ID} have no bit; sets containing them are
+ * {@link #UNRESOLVED} and checked by name instead.
+ */
+@Component
+public class RoleCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleCatalog.class);
+
+    /**
+     * Highest role id that has a bit. The sign bit is kept free for {@link #UNRESOLVED}.
+     */
+    public static final int MAX_ROLE_ID = 63;
+
+    /**
+     * Mask of a set of roles that cannot be expressed as bits, such as a role without id or with an id above
+     * {@value #MAX_ROLE_ID}.
+     */
+    public static final long UNRESOLVED = Long.MIN_VALUE;
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Map<String, Long> bitsByName;
+
+    @Autowired
+    public RoleCatalog(RoleRepository roleRepository) {
+        this(roleRepository.findAll());
+    }
+
+    public RoleCatalog(Collection<Role> roles) {
+        Map<String, Long> bits = new HashMap<>();
+        for (Role role : roles) {
+            long bit = bitOf(role);
+            if (bit == UNRESOLVED) {
+                logger.warn("Role {} (id {}) has no bit and will be checked by name", role.getName(), role.getId());
+                continue;
+            }
+            bits.put(role.getName(), bit);
+            bits.put(ROLE_PREFIX + role.getName(), bit);
+        }
+        this.bitsByName = Map.copyOf(bits);
+        logger.info("Role catalog loaded with {} roles", bits.size() / 2);
+    }
+
+    /**
+     * Returns the bit of a role entity, which only depends on its id.
+     *
+     * @param role the role
+     * @return the bit of the role, or {@link #UNRESOLVED} if its id has no bit
+     */
+    public static long bitOf(Role role) {
+        Long id = role.getId();
+        return id != null && id >= 1 && id <= MAX_ROLE_ID ? 1L << (id - 1) : UNRESOLVED;
+    }
+
+    /**
+     * Returns the mask of a set of role entities.
+     *
+     * @param roles the roles
+     * @return the mask of the roles, or {@link #UNRESOLVED} if one of them has no bit
+     */
+    public static long maskOf(Collection<Role> roles) {
+        long mask = 0;
+        for (Role role : roles) {
+            long bit = bitOf(role);
+            if (bit == UNRESOLVED) {
+                return UNRESOLVED;
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the bit of a role name, with or without the {@code ROLE_} prefix.
+     *
+     * @param roleName the role name or authority
+     * @return the bit of the role, or 0 if the catalog does not know it
+     */
+    public long bitOf(String roleName) {
+        Long bit = bitsByName.get(roleName);
+        return bit != null ? bit : 0;
+    }
+
+    /**
+     * Returns the mask of role names as carried by access tokens, with or without the {@code ROLE_} prefix.
+     *
+     * @param roleNames the role names or authorities
+     * @return the mask of the roles, or {@link #UNRESOLVED} if the catalog does not know one of them
+     */
+    public long maskOfNames(Collection<String> roleNames) {
+        long mask = 0;
+        for (String roleName : roleNames) {
+            long bit = bitOf(roleName);
+            if (bit == 0) {
+                return UNRESOLVED;
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the roles among granted authorities; authorities that are not roles of the catalog, such
+     * as {@code ROLE_ANONYMOUS}, are ignored.
+     *
+     * @param authorities the granted authorities
+     * @return the mask of the roles
+     */
+    public long maskOfAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null) {
+                mask |= bitOf(name);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param roleName the role name, with or without the {@code ROLE_} prefix
+     * @return whether the role has a bit
+     */
+    public boolean contains(String roleName) {
+        return bitsByName.containsKey(roleName);
+    }
+}
@@ -0,0 +1,200 @@
+package com.project.spring_project.secutrity.services;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates {@link PreAuthorize} role expressions as bit tests against the {@link RoleCatalog} mask of the principal.
+ * <p>
+ * The expression of a method is compiled the first time the method is called: {@code hasRole}, {@code hasAnyRole}
+ * and {@code isAuthenticated()} combined with {@code and} and {@code or} become a list of clauses, each a list of
+ * role masks that must all intersect the mask of the principal. Later calls of the method only read the mask of the
+ * principal and test a few bits, without allocating. Anything else, such as a role missing from the catalog,
+ * parentheses, method arguments or an annotation on the class, is handed to the SpEL manager given at construction.
+ * <p>
+ * Principals that are not {@link RoleMaskPrincipal}s, or whose roles have no bits, are checked through the catalog by
+ * authority name, which gives the same result as {@code hasRole} without a role hierarchy.
+ */
+public class RoleMaskAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private static final Pattern TERM = Pattern.compile(
+            "\\s*(?:(isAuthenticated)\\(\\s*\\)|(hasRole|hasAnyRole)\\(\\s*('[A-Za-z0-9_]+'(?:\\s*,\\s*'[A-Za-z0-9_]+')*)\\s*\\))\\s*");
+    private static final Pattern OPERATOR = Pattern.compile("(and|or)\\b");
+
+    /**
+     * Expression that could not be compiled, checked by the SpEL manager.
+     */
+    private static final Rule FALLBACK = new Rule(new long[0][]);
+
+    private final Supplier<RoleCatalog> roleCatalog;
+    private final AuthorizationManager<MethodInvocation> fallback;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+    private final Map<Method, Rule> rules = new ConcurrentHashMap<>();
+
+    /**
+     * @param roleCatalog supplies the role catalog on first use, so the manager can be created before the database
+     * @param fallback the manager of expressions that are not plain role checks
+     */
+    public RoleMaskAuthorizationManager(Supplier<RoleCatalog> roleCatalog,
+                                        AuthorizationManager<MethodInvocation> fallback) {
+        this.roleCatalog = roleCatalog;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @deprecated use {@link #authorize(Supplier, MethodInvocation)}
+     */
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        return result == null || result instanceof AuthorizationDecision
+                ? (AuthorizationDecision) result
+                : new AuthorizationDecision(result.isGranted());
+    }
+
+    /**
+     * Checks the {@link PreAuthorize} expression of a method against the current authentication.
+     *
+     * @param authentication supplies the current authentication
+     * @param invocation     the method invocation
+     * @return the decision, or that of the SpEL manager for expressions that are not plain role checks
+     * @throws AuthenticationCredentialsNotFoundException if there is no authentication
+     */
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Rule rule = rules.get(invocation.getMethod());
+        if (rule == null) {
+            rule = rules.computeIfAbsent(invocation.getMethod(), this::compile);
+        }
+        if (rule == FALLBACK) {
+            return fallback.authorize(authentication, invocation);
+        }
+        Authentication current = authentication.get();
+        if (current == null) {
+            throw new AuthenticationCredentialsNotFoundException(
+                    "An Authentication object was not found in the SecurityContext");
+        }
+        long roleMask = current.getPrincipal() instanceof RoleMaskPrincipal principal
+                ? principal.getRoleMask()
+                : RoleCatalog.UNRESOLVED;
+        if (roleMask == RoleCatalog.UNRESOLVED) {
+            roleMask = roleCatalog.get().maskOfAuthorities(current.getAuthorities());
+        }
+        boolean authenticated = current.isAuthenticated() && !trustResolver.isAnonymous(current);
+        return rule.test(roleMask, authenticated) ? GRANTED : DENIED;
+    }
+
+    private Rule compile(Method method) {
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        if (preAuthorize == null) {
+            return FALLBACK;
+        }
+        Rule rule = compile(preAuthorize.value());
+        return rule != null ? rule : FALLBACK;
+    }
+
+    /**
+     * Compiles an expression into clauses, {@code and} binding tighter than {@code or}.
+     *
+     * @param expression the {@link PreAuthorize} expression
+     * @return the compiled rule, or null if the expression is not a plain role check
+     */
+    private Rule compile(String expression) {
+        RoleCatalog catalog = roleCatalog.get();
+        List<long[]> clauses = new ArrayList<>();
+        List<Long> clause = new ArrayList<>();
+        Matcher term = TERM.matcher(expression);
+        Matcher operator = OPERATOR.matcher(expression);
+        int position = 0;
+        while (true) {
+            if (!term.region(position, expression.length()).lookingAt()) {
+                return null;
+            }
+            if (term.group(1) != null) {
+                clause.add(Rule.AUTHENTICATED);
+            } else {
+                long mask = 0;
+                for (String role : term.group(3).split(",")) {
+                    String name = role.strip();
+                    name = name.substring(1, name.length() - 1);
+                    if (name.startsWith("ROLE_") || !catalog.contains(name)) {
+                        return null;
+                    }
+                    mask |= catalog.bitOf(name);
+                }
+                clause.add(mask);
+            }
+            position = term.end();
+            if (position == expression.length()) {
+                clauses.add(toArray(clause));
+                return new Rule(clauses.toArray(long[][]::new));
+            }
+            if (!operator.region(position, expression.length()).lookingAt()) {
+                return null;
+            }
+            if (operator.group(1).equals("or")) {
+                clauses.add(toArray(clause));
+                clause.clear();
+            }
+            position = operator.end();
+        }
+    }
+
+    private static long[] toArray(List<Long> clause) {
+        return clause.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Granted when every mask of one of the clauses intersects the role mask of the principal.
+     * {@link #AUTHENTICATED} stands for {@code isAuthenticated()}.
+     */
+    static final class Rule {
+
+        static final long AUTHENTICATED = 0;
+
+        private final long[][] clauses;
+
+        private Rule(long[][] clauses) {
+            this.clauses = clauses;
+        }
+
+        boolean test(long roleMask, boolean authenticated) {
+            for (long[] clause : clauses) {
+                if (matches(clause, roleMask, authenticated)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean matches(long[] clause, long roleMask, boolean authenticated) {
+            for (long mask : clause) {
+                if (mask == AUTHENTICATED ? !authenticated : (roleMask & mask) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.spring_project.secutrity.services;
+
+/**
+ * Principal that knows the {@link RoleCatalog} mask of its roles, so role checks do not go through its authorities.
+ */
+public interface RoleMaskPrincipal {
+
+    /**
+     * @return the mask of the roles of the principal, or {@link RoleCatalog#UNRESOLVED} if they have to be checked
+     * by name
+     */
+    long getRoleMask();
+}
@@ -0,0 +1,249 @@
+package com.project.spring_project.secutrity.services;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-capacity table of token buckets keyed by 128-bit values, such as IP addresses.
+ * <p>
+ * Each bucket is a single long per bandwidth: the time at which it will be full again (the theoretical arrival time
+ * of the generic cell rate algorithm, which behaves as a token bucket with greedy refill). A request is allowed while
+ * that time is less than one bucket's worth of refill ahead of now, for every bandwidth. A bucket whose full times
+ * have all passed holds no information, so it is idle and its slot can be reused without changing any decision.
+ * <p>
+ * The table is split into lock-striped shards of primitive arrays (key high bits, key low bits, full times), so
+ * {@link #tryConsume(long, long)} does not allocate and the footprint is fixed at construction. Each key hashes to
+ * a set of {@value #WAYS} slots in its shard. A clock hand per shard walks the slots reclaiming idle buckets, a few
+ * slots on every call. When the set of a new key is full anyway, its bucket closest to full is evicted; that
+ * client starts again with a full bucket.
+ * <p>
+ * This is the {@code local} backend: each node limits on its own.
+ */
+public class TokenBucketTable implements RateLimiterBackend {
+
+    private static final int SHARDS = 64;
+    private static final int WAYS = 8;
+    private static final int SWEEP_STEPS = 2;
+    private static final long EMPTY = 0;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final int slotsPerShard;
+    private final long[] intervalNanos;
+    private final long[] burstNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    /**
+     * Creates a table with a single bandwidth.
+     *
+     * @param maxKeys   the number of keys to size the table for, rounded up to a power of two per shard
+     * @param permits   the bucket capacity, also the number of tokens refilled per period
+     * @param period    the time to refill a whole bucket
+     * @param nanoClock the time source, in nanoseconds (e.g. {@code System::nanoTime})
+     */
+    public TokenBucketTable(int maxKeys, long permits, Duration period, LongSupplier nanoClock) {
+        this(maxKeys, List.of(new RateLimitBandwidth(permits, period)), nanoClock);
+    }
+
+    /**
+     * Creates a table.
+     *
+     * @param maxKeys    the number of keys to size the table for, rounded up to a power of two per shard
+     * @param bandwidths the limits of every bucket, all of which must allow a request
+     * @param nanoClock  the time source, in nanoseconds (e.g. {@code System::nanoTime})
+     */
+    public TokenBucketTable(int maxKeys, List<RateLimitBandwidth> bandwidths, LongSupplier nanoClock) {
+        if (maxKeys <= 0 || bandwidths.isEmpty()) {
+            throw new IllegalArgumentException("Rate limit capacity and bandwidths must be positive");
+        }
+        int perShard = (maxKeys + SHARDS - 1) / SHARDS;
+        this.slotsPerShard = Math.max(WAYS, Integer.highestOneBit(perShard - 1) << 1);
+        this.intervalNanos = new long[bandwidths.size()];
+        this.burstNanos = new long[bandwidths.size()];
+        for (int b = 0; b < bandwidths.size(); b++) {
+            RateLimitBandwidth bandwidth = bandwidths.get(b);
+            intervalNanos[b] = Math.max(1, bandwidth.period().toNanos() / bandwidth.permits());
+            burstNanos[b] = intervalNanos[b] * (bandwidth.permits() - 1);
+        }
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(slotsPerShard, bandwidths.size());
+        }
+    }
+
+    /**
+     * Takes one token from the bucket of a key, creating a full bucket for a new key.
+     * <p>
+     * A token is taken from every bandwidth or from none. The tokens left are those of the tightest bandwidth, and
+     * the wait is that of the bandwidth furthest from a token.
+     *
+     * @param hi the high 64 bits of the key
+     * @param lo the low 64 bits of the key
+     * @return the tokens left, or the negated wait in nanoseconds if a bandwidth had no token
+     */
+    @Override
+    public long tryConsume(long hi, long lo) {
+        long hash = mix(hi, lo);
+        Shard shard = shards[(int) (hash >>> 58) & (SHARDS - 1)];
+        synchronized (shard) {
+            // Times are kept relative to the origin and above zero, so 0 can mark an empty slot
+            long now = nanoClock.getAsLong() - origin + 1;
+            shard.sweep(now, SWEEP_STEPS);
+
+            int base = shard.findOrClaim(hi, lo, (int) hash, now) * intervalNanos.length;
+            long[] fullAt = shard.fullAt;
+            long wait = 0;
+            long remaining = Long.MAX_VALUE;
+            for (int b = 0; b < intervalNanos.length; b++) {
+                long ahead = Math.max(fullAt[base + b], now) - now;
+                wait = Math.max(wait, ahead - burstNanos[b]);
+                remaining = Math.min(remaining, (burstNanos[b] - ahead) / intervalNanos[b]);
+            }
+            if (wait > 0) {
+                return -wait;
+            }
+            for (int b = 0; b < intervalNanos.length; b++) {
+                fullAt[base + b] = Math.max(fullAt[base + b], now) + intervalNanos[b];
+            }
+            return remaining;
+        }
+    }
+
+    /**
+     * Returns the number of keys currently tracked.
+     *
+     * @return the number of buckets in the table
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of keys the table can hold.
+     *
+     * @return the number of slots; a key may be evicted earlier when its set is full
+     */
+    public int capacity() {
+        return slotsPerShard * SHARDS;
+    }
+
+    /**
+     * Returns the size of the bucket arrays, which does not change after construction.
+     *
+     * @return the footprint in bytes, excluding object headers
+     */
+    public long footprintBytes() {
+        return (long) SHARDS * slotsPerShard * (2 + intervalNanos.length) * Long.BYTES;
+    }
+
+    @Override
+    public void clear() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Arrays.fill(shard.fullAt, EMPTY);
+                shard.size = 0;
+            }
+        }
+    }
+
+    private static long mix(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * One lock stripe: sets of {@value #WAYS} slots over parallel arrays, with one full time per bandwidth for each
+     * slot. A slot is empty when its first full time is 0.
+     */
+    private static final class Shard {
+        private final long[] hi;
+        private final long[] lo;
+        private final long[] fullAt;
+        private final int bandwidths;
+        private final int mask;
+        private final int setMask;
+        private int size;
+        private int hand;
+
+        private Shard(int slots, int bandwidths) {
+            this.hi = new long[slots];
+            this.lo = new long[slots];
+            this.fullAt = new long[slots * bandwidths];
+            this.bandwidths = bandwidths;
+            this.mask = slots - 1;
+            this.setMask = slots / WAYS - 1;
+        }
+
+        /**
+         * Returns the slot of a key, giving it a full bucket in a free or evicted slot of its set if absent.
+         */
+        private int findOrClaim(long keyHi, long keyLo, int hash, long now) {
+            int base = (hash & setMask) * WAYS;
+            int free = -1;
+            int victim = base; // Idle buckets have the earliest full times, so they are evicted first
+            long victimTime = Long.MAX_VALUE;
+            for (int slot = base; slot < base + WAYS; slot++) {
+                if (fullAt[slot * bandwidths] == EMPTY) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (hi[slot] == keyHi && lo[slot] == keyLo) {
+                    return slot;
+                } else {
+                    long time = lastFullAt(slot);
+                    if (time < victimTime) {
+                        victim = slot;
+                        victimTime = time;
+                    }
+                }
+            }
+            int slot = free >= 0 ? free : victim;
+            if (free < 0) {
+                size--;
+            }
+            hi[slot] = keyHi;
+            lo[slot] = keyLo;
+            Arrays.fill(fullAt, slot * bandwidths, (slot + 1) * bandwidths, now);
+            size++;
+            return slot;
+        }
+
+        /**
+         * Advances the clock hand, reclaiming idle buckets.
+         */
+        private void sweep(long now, int steps) {
+            for (int i = 0; i < steps && size > 0; i++) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (fullAt[slot * bandwidths] != EMPTY && lastFullAt(slot) <= now) {
+                    Arrays.fill(fullAt, slot * bandwidths, (slot + 1) * bandwidths, EMPTY);
+                    size--;
+                }
+            }
+        }
+
+        /**
+         * Returns the time at which every bandwidth of a slot is full.
+         */
+        private long lastFullAt(int slot) {
+            long time = fullAt[slot * bandwidths];
+            for (int b = 1; b < bandwidths; b++) {
+                time = Math.max(time, fullAt[slot * bandwidths + b]);
+            }
+            return time;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.spring_project.secutrity.services;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Password encoder with a configurable algorithm for new hashes that still verifies every older one.
+ * <p>
+ * Hashes in the {@code {id}hash} format are handled by a {@link DelegatingPasswordEncoder} (bcrypt, pbkdf2 and,
+ * when Bouncy Castle is on the classpath, argon2). BCrypt hashes are stored without the prefix, as they always
+ * have been, so existing hashes keep working and the column format does not change while bcrypt is in use.
+ * <p>
+ * {@link #upgradeEncoding(String)} reports hashes made with another algorithm or a lower BCrypt cost, so they
+ * can be rehashed on the next successful login.
+ */
+public class UpgradingPasswordEncoder implements PasswordEncoder {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+    public static final String ARGON2 = "argon2";
+
+    private static final String PREFIX = "{";
+
+    private final String idForEncode;
+    private final BCryptPasswordEncoder bcrypt;
+    private final DelegatingPasswordEncoder delegating;
+
+    /**
+     * Creates the encoder.
+     *
+     * @param idForEncode the algorithm for new hashes: bcrypt, pbkdf2 or argon2
+     * @param bcryptCost  the BCrypt cost factor for new bcrypt hashes
+     * @throws IllegalArgumentException if the algorithm is unknown or its implementation is not available
+     */
+    public UpgradingPasswordEncoder(String idForEncode, int bcryptCost) {
+        this.bcrypt = new BCryptPasswordEncoder(bcryptCost);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", getClass().getClassLoader())) {
+            encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        }
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Unsupported password encoder: " + idForEncode
+                    + (ARGON2.equals(idForEncode) ? " (add org.bouncycastle:bcprov-jdk18on to the classpath)" : ""));
+        }
+        this.idForEncode = idForEncode;
+        this.delegating = new DelegatingPasswordEncoder(idForEncode, encoders);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return BCRYPT.equals(idForEncode) ? bcrypt.encode(rawPassword) : delegating.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        return isPrefixed(encodedPassword)
+                ? delegating.matches(rawPassword, encodedPassword)
+                : bcrypt.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        if (BCRYPT.equals(idForEncode)) {
+            // New bcrypt hashes are un-prefixed: any prefixed hash is rehashed, bcrypt ones only if the cost is lower
+            return isPrefixed(encodedPassword) || bcrypt.upgradeEncoding(encodedPassword);
+        }
+        return !isPrefixed(encodedPassword) || delegating.upgradeEncoding(encodedPassword);
+    }
+
+    private static boolean isPrefixed(String encodedPassword) {
+        return encodedPassword.startsWith(PREFIX);
+    }
+}
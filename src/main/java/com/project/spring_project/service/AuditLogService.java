@@ -2,12 +2,15 @@ package com.project.spring_project.service;
 
 
 import com.project.spring_project.dto.AuditLogDto;
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
 import com.project.spring_project.entity.AuditLog;
 import com.project.spring_project.entity.user.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface AuditLogService {
     void logAudit(User user, String operation, String details);
     Page<AuditLogDto> getAllAuditLogs(Pageable pageable) ;
+    Slice<AuditLogDto> searchAuditLogs(AuditLogSearchRequest search, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+package com.project.spring_project.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
+import com.project.spring_project.exception.BadRequestException;
+import com.project.spring_project.repository.AuditLogSpecifications;
+import com.project.spring_project.util.LocalizationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams audit logs matching a search as NDJSON or CSV, in timestamp order.
+ * <p>
+ * The rows are read with one query over a forward-only, read-only result set with the MySQL streaming fetch size, so
+ * the driver hands them over one at a time instead of loading the result, and each row is written to the response
+ * as it is read, through a Jackson {@link JsonGenerator} or a CSV writer, without building entities or DTOs. An export
+ * therefore uses the same memory whatever its size. There is no count query and no offset.
+ * <p>
+ * The query holds a pooled connection until the export ends; the {@code exports} concurrency group bounds how many
+ * run at once. If the client goes away, the statement is cancelled rather than left draining the rest of the rows.
+ */
+@Component
+public class AuditLogExporter {
+
+    private static final String SELECT = "SELECT a.id, a.user_id, u.username, a.operation, a.timestamp, a.details, "
+            + "a.resource, a.ip_address FROM audit_log a LEFT JOIN users u ON u.id = a.user_id";
+
+    private static final String[] COLUMNS =
+            {"id", "userId", "username", "operation", "timestamp", "details", "resource", "ipAddress"};
+
+    /**
+     * Fetch size that makes MySQL Connector/J stream the result set row by row.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * The format of an export.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        public static Format of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+    private final LocalizationService localizationService;
+    private final long timeoutMs;
+
+    public AuditLogExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            LocalizationService localizationService,
+                            @Value("${app.auditExportTimeoutMs:3600000}") long timeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = objectMapper.getFactory();
+        this.localizationService = localizationService;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Prepares the export of the audit logs matching a search; the query runs when the body is written.
+     *
+     * @param search the filters, any of which may be empty
+     * @param format the format of the rows
+     * @param gzip   whether to gzip the output
+     * @return the body writing the export
+     * @throws BadRequestException if the time range is empty
+     */
+    public StreamingResponseBody export(AuditLogSearchRequest search, Format format, boolean gzip) {
+        if (search.getFrom() != null && search.getTo() != null && !search.getFrom().isBefore(search.getTo())) {
+            throw new BadRequestException(localizationService.get("audit.search.range.invalid"));
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = query(search, args);
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(target) : new JsonRowWriter(target)) {
+                stream(sql, args, writer);
+            }
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+    }
+
+    /**
+     * @return how long an export may run, in milliseconds
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Builds the query of a search, with the same conditions as {@link AuditLogSpecifications#matching}.
+     */
+    static String query(AuditLogSearchRequest search, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        condition(sql, args, "a.user_id = ?", search.getUserId());
+        condition(sql, args, "a.operation = ?", trimmed(search.getOperation()));
+        condition(sql, args, "a.ip_address = ?", trimmed(search.getIpAddress()));
+        String resource = trimmed(search.getResource());
+        condition(sql, args, "a.resource LIKE ? ESCAPE '\\\\'",
+                resource != null ? AuditLogSpecifications.likePrefix(resource) : null);
+        condition(sql, args, "a.timestamp >= ?", search.getFrom() != null ? Timestamp.valueOf(search.getFrom()) : null);
+        condition(sql, args, "a.timestamp < ?", search.getTo() != null ? Timestamp.valueOf(search.getTo()) : null);
+        return sql.append(" ORDER BY a.timestamp").toString();
+    }
+
+    private static void condition(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value == null) {
+            return;
+        }
+        sql.append(args.isEmpty() ? " WHERE " : " AND ").append(condition);
+        args.add(value);
+    }
+
+    private static String trimmed(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private void stream(String sql, List<Object> args, RowWriter writer) throws IOException {
+        PreparedStatement[] statement = new PreparedStatement[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(STREAMING_FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                statement[0] = ps;
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    cancel(statement[0]);
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops the query on the server, so that closing the streaming result set does not read the rows left.
+     */
+    private static void cancel(PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // The statement is closed right after, whether or not it could be cancelled
+        }
+    }
+
+    /**
+     * Writes the current row of the result set.
+     */
+    private interface RowWriter extends AutoCloseable {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, with the fields of {@code AuditLogDto}.
+     */
+    private final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        private JsonRowWriter(OutputStream out) throws IOException {
+            generator = jsonFactory.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            long userId = rs.getLong(2);
+            if (rs.wasNull()) {
+                generator.writeNullField(COLUMNS[1]);
+            } else {
+                generator.writeNumberField(COLUMNS[1], userId);
+            }
+            generator.writeStringField(COLUMNS[2], rs.getString(3));
+            generator.writeStringField(COLUMNS[3], rs.getString(4));
+            Timestamp timestamp = rs.getTimestamp(5);
+            generator.writeStringField(COLUMNS[4], timestamp != null ? timestamp.toLocalDateTime().toString() : null);
+            generator.writeStringField(COLUMNS[5], rs.getString(6));
+            generator.writeStringField(COLUMNS[6], rs.getString(7));
+            generator.writeStringField(COLUMNS[7], rs.getString(8));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header line. Text starting like a formula is prefixed with a quote, so that a spreadsheet
+     * opening the export does not evaluate request data.
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final OutputStream out;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.out = out;
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            long userId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                writer.write(Long.toString(userId));
+            }
+            writer.write(',');
+            text(rs.getString(3));
+            writer.write(',');
+            text(rs.getString(4));
+            writer.write(',');
+            Timestamp timestamp = rs.getTimestamp(5);
+            if (timestamp != null) {
+                writer.write(timestamp.toLocalDateTime().toString());
+            }
+            writer.write(',');
+            text(rs.getString(6));
+            writer.write(',');
+            text(rs.getString(7));
+            writer.write(',');
+            text(rs.getString(8));
+            writer.write("\r\n");
+        }
+
+        private void text(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean formula = "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+            if (!formula && value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+            out.flush();
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.project.spring_project.service.impl;
 
 import com.project.spring_project.dto.AuditLogDto;
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
 import com.project.spring_project.dto.request.RequestContext;
-import com.project.spring_project.entity.AuditLog;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.mapper.AuditLogMapper;
+import com.project.spring_project.exception.BadRequestException;
 import com.project.spring_project.repository.AuditLogRepository;
+import com.project.spring_project.repository.AuditLogSpecifications;
 import com.project.spring_project.service.AuditLogService;
+import com.project.spring_project.util.IpAddresses;
+import com.project.spring_project.util.LocalizationService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -21,9 +28,14 @@ public class AuditLogServiceImpl implements AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
     private final AuditLogMapper auditLogMapper;
+    private final AuditLogWriter auditLogWriter;
+    private final LocalizationService localizationService;
 
     /**
      * Logs an audit entry for a specific user operation.
+     * <p>
+     * The IP address and URI are read here, on the request thread; the entry is written to the local audit log
+     * and inserted later by the {@link AuditLogWriter}.
      *
      * @param user      The user performing the operation.
      * @param operation The type of operation performed.
@@ -37,23 +49,12 @@ public class AuditLogServiceImpl implements AuditLogService {
         String resource = null;
 
         if (request != null) {
-            ipAddress = request.getHeader("X-Forwarded-For");
-            if (ipAddress == null || ipAddress.isEmpty()) {
-                ipAddress = request.getRemoteAddr();
-            }
-
+            ipAddress = IpAddresses.clientAddress(request);
             resource = request.getRequestURI();
         }
 
-        AuditLog auditLog = new AuditLog();
-        auditLog.setUser(user);
-        auditLog.setOperation(operation);
-        auditLog.setTimestamp(LocalDateTime.now());
-        auditLog.setDetails(details);
-        auditLog.setResource(resource);
-        auditLog.setIpAddress(ipAddress);
-
-        auditLogRepository.save(auditLog);
+        auditLogWriter.submit(new AuditLogWriter.Entry(UUID.randomUUID(), user != null ? user.getId() : null,
+                operation, LocalDateTime.now(), details, resource, ipAddress));
     }
 
     /**
@@ -67,4 +68,29 @@ public class AuditLogServiceImpl implements AuditLogService {
         return auditLogRepository.findAll(pageable)
                 .map(auditLogMapper::toDto);
     }
+
+    /**
+     * Searches audit logs by user, operation, IP address, resource prefix and time range.
+     * <p>
+     * Only sorting by timestamp is allowed, so that every search is read in the order of one of the audit log
+     * indexes instead of sorting the matching rows. The matching rows are not counted, which on a large table would
+     * cost more than reading the page: the result only tells whether there is a next page.
+     *
+     * @param search   The filters, any of which may be empty.
+     * @param pageable Pagination information.
+     * @return A slice of the matching audit logs.
+     */
+    @Override
+    public Slice<AuditLogDto> searchAuditLogs(AuditLogSearchRequest search, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!order.getProperty().equals("timestamp")) {
+                throw new BadRequestException(localizationService.get("audit.search.sort.invalid", order.getProperty()));
+            }
+        }
+        if (search.getFrom() != null && search.getTo() != null && !search.getFrom().isBefore(search.getTo())) {
+            throw new BadRequestException(localizationService.get("audit.search.range.invalid"));
+        }
+        return auditLogRepository.findSlice(AuditLogSpecifications.matching(search), pageable)
+                .map(auditLogMapper::toDto);
+    }
 }
\ No newline at end of file
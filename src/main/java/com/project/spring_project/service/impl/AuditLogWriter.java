@@ -0,0 +1,490 @@
+package com.project.spring_project.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.project.spring_project.util.SegmentLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit entries to a local {@link SegmentLog} first, and from there to the {@code audit_log} table in JDBC
+ * batches, from a background thread.
+ * <p>
+ * Callers only append the entry to the memory-mapped log in {@code app.auditLogDir}, so their latency does not
+ * depend on the database. The writer thread inserts up to {@code app.auditBatchSize} entries per batch, as soon as a
+ * batch is pending or after {@code app.auditFlushMs}, and commits the log position once the batch is in. While the
+ * database is slow or down the entries stay in the log and the insert is retried, backing off up to
+ * {@code app.auditRetryMaxMs}; they are loaded once it recovers, after a restart too. A batch inserted but not
+ * committed is inserted again, and the unique {@code event_id} of each entry makes the second insert a no-op.
+ * Entries submitted inside a transaction are logged after it commits, so rolled back operations are not audited.
+ * <p>
+ * Text fields are cut to the size of their column when submitted. A batch failing for another reason than the
+ * database being unavailable is inserted again one entry at a time, and the entries that still fail are appended to
+ * {@code dead-letter.ndjson} in the log directory, so that one bad entry does not hold back the ones after it.
+ * <p>
+ * The log holds up to {@code app.auditLogMaxBytes}. When it is full, {@code app.auditOverflowPolicy} decides:
+ * {@code block} waits up to {@code app.auditBlockTimeoutMs} for the writer to free a segment, then drops the entry;
+ * {@code drop} drops it at once. Dropped entries are counted and logged.
+ * <p>
+ * On shutdown the writer stops after the web server and inserts what is left in the log, waiting up to
+ * {@code app.auditShutdownTimeoutMs}; entries it could not insert are inserted after the next start.
+ */
+@Component
+public class AuditLogWriter implements SmartLifecycle, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT = "INSERT INTO audit_log (event_id, user_id, operation, timestamp, details, "
+            + "resource, ip_address) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE event_id = event_id";
+
+    /**
+     * What to do with an entry when the log is full.
+     */
+    public enum OverflowPolicy {BLOCK, DROP}
+
+    /**
+     * An audit entry, with the request data already captured on the calling thread.
+     * <p>
+     * Text longer than its column is cut, so that a long header or URI cannot fail the insert.
+     *
+     * @param eventId unique id of the entry, so that inserting it again does nothing
+     */
+    public record Entry(UUID eventId, Long userId, String operation, LocalDateTime timestamp, String details,
+                        String resource, String ipAddress) {
+
+        public Entry {
+            operation = truncate(operation, 100);
+            // TEXT holds 65535 bytes, up to 4 per character
+            details = truncate(details, 16383);
+            resource = truncate(resource, 255);
+            ipAddress = truncate(ipAddress, 45);
+        }
+
+        private static String truncate(String value, int maxLength) {
+            if (value == null || value.length() <= maxLength) {
+                return value;
+            }
+            int end = Character.isHighSurrogate(value.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+            return value.substring(0, end);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final SegmentLog log;
+    private final Path deadLetterFile;
+    private final int batchSize;
+    private final long flushNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final long retryMaxMs;
+    private final long shutdownTimeoutMs;
+
+    private final Object space = new Object();
+    private final AtomicLong appended = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                          @Value("${app.auditLogDir:logs/audit}") String logDir,
+                          @Value("${app.auditSegmentBytes:16777216}") int segmentBytes,
+                          @Value("${app.auditLogMaxBytes:1073741824}") long logMaxBytes,
+                          @Value("${app.auditBatchSize:100}") int batchSize,
+                          @Value("${app.auditFlushMs:200}") long flushMs,
+                          @Value("${app.auditOverflowPolicy:block}") String overflowPolicy,
+                          @Value("${app.auditBlockTimeoutMs:1000}") long blockTimeoutMs,
+                          @Value("${app.auditRetryMaxMs:30000}") long retryMaxMs,
+                          @Value("${app.auditShutdownTimeoutMs:10000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.deadLetterFile = Path.of(logDir, "dead-letter.ndjson");
+        try {
+            this.log = new SegmentLog(Path.of(logDir), segmentBytes, logMaxBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the audit log in " + logDir, e);
+        }
+        this.batchSize = Math.max(1, batchSize);
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushMs));
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.retryMaxMs = Math.max(1, retryMaxMs);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * Logs an entry for the writer, after the current transaction commits if there is one.
+     *
+     * @param entry the entry to insert
+     */
+    public void submit(Entry entry) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(entry);
+                }
+            });
+        } else {
+            append(entry);
+        }
+    }
+
+    private void append(Entry entry) {
+        byte[] payload = encode(entry);
+        try {
+            boolean logged = log.append(payload);
+            if (!logged && overflowPolicy == OverflowPolicy.BLOCK) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+                synchronized (space) {
+                    long wait;
+                    while (!(logged = log.append(payload)) && (wait = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(space, wait);
+                    }
+                }
+            }
+            if (logged) {
+                if (appended.incrementAndGet() - consumed >= batchSize) {
+                    LockSupport.unpark(writer);
+                }
+                return;
+            }
+        } catch (IOException e) {
+            logger.error("Could not append an audit entry to the audit log: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        long count = dropped.sum();
+        if (count == 1 || count % 1000 == 0) {
+            logger.warn("Audit log full, {} audit entries dropped so far, latest: {} of user {}",
+                    count, entry.operation(), entry.userId());
+        }
+    }
+
+    private void runWriter() {
+        long backoffMs = 0;
+        while (true) {
+            boolean stopping = !running;
+            List<SegmentLog.Record> records = log.read(batchSize);
+            if (records.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, flushNanos);
+                continue;
+            }
+            int inserted;
+            try {
+                log.force();
+                inserted = insert(records);
+                log.commit(records.get(records.size() - 1).next());
+            } catch (RuntimeException | IOException e) {
+                log.rewind();
+                if (stopping) {
+                    logger.warn("Could not insert audit entries on shutdown, they stay in the audit log: {}",
+                            e.getMessage());
+                    return;
+                }
+                if (backoffMs == 0) {
+                    logger.error("Could not insert audit entries, retrying while they stay in the audit log: {}",
+                            e.getMessage());
+                }
+                retries.increment();
+                backoffMs = Math.min(retryMaxMs, Math.max(TimeUnit.NANOSECONDS.toMillis(flushNanos), backoffMs * 2));
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                continue;
+            }
+            if (backoffMs != 0) {
+                logger.info("Audit entries are inserted again");
+                backoffMs = 0;
+            }
+            consumed += records.size();
+            written.add(inserted);
+            synchronized (space) {
+                space.notifyAll();
+            }
+            if (records.size() < batchSize && running) {
+                LockSupport.parkNanos(this, flushNanos);
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch, or its entries one at a time if the batch fails for another reason than the database being
+     * unavailable.
+     *
+     * @return the number of entries inserted, the others being dead-lettered
+     * @throws RuntimeException if the database is unavailable
+     * @throws IOException if an entry could not be dead-lettered
+     */
+    private int insert(List<SegmentLog.Record> records) throws IOException {
+        List<Object[]> rows = new ArrayList<>(records.size());
+        try {
+            for (SegmentLog.Record record : records) {
+                rows.add(row(decode(record.payload())));
+            }
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            return records.size();
+        } catch (RuntimeException e) {
+            if (isUnavailable(e)) {
+                throw e;
+            }
+            logger.warn("Audit batch failed, inserting its {} entries one at a time: {}", records.size(),
+                    e.getMessage());
+        }
+        int inserted = 0;
+        for (SegmentLog.Record record : records) {
+            try {
+                jdbcTemplate.update(INSERT, row(decode(record.payload())));
+                inserted++;
+            } catch (RuntimeException e) {
+                if (isUnavailable(e)) {
+                    throw e;
+                }
+                deadLetter(record.payload(), e);
+            }
+        }
+        return inserted;
+    }
+
+    private static Object[] row(Entry entry) {
+        return new Object[]{entry.eventId().toString(), entry.userId(), entry.operation(),
+                entry.timestamp() != null ? Timestamp.valueOf(entry.timestamp()) : null,
+                entry.details(), entry.resource(), entry.ipAddress()};
+    }
+
+    /**
+     * @return whether the failure is the database being unreachable or busy, rather than the data
+     */
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * Appends an entry that cannot be inserted to the dead-letter file, with the error, as one JSON line.
+     */
+    private void deadLetter(byte[] payload, RuntimeException error) throws IOException {
+        ObjectNode line = objectMapper.createObjectNode();
+        try {
+            Entry entry = decode(payload);
+            line.put("eventId", entry.eventId().toString());
+            line.put("userId", entry.userId());
+            line.put("operation", entry.operation());
+            line.put("timestamp", entry.timestamp() != null ? entry.timestamp().toString() : null);
+            line.put("details", entry.details());
+            line.put("resource", entry.resource());
+            line.put("ipAddress", entry.ipAddress());
+        } catch (RuntimeException e) {
+            line.put("payload", Base64.getEncoder().encodeToString(payload));
+        }
+        line.put("error", String.valueOf(error.getMessage()));
+        byte[] bytes = (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes));
+            // Durable before the log position moves past the entry
+            channel.force(false);
+        }
+        deadLettered.increment();
+        logger.error("Audit entry {} could not be inserted and was written to {}: {}",
+                line.path("eventId").asText("?"), deadLetterFile, error.getMessage());
+    }
+
+    static byte[] encode(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.eventId().getMostSignificantBits());
+            out.writeLong(entry.eventId().getLeastSignificantBits());
+            out.writeBoolean(entry.userId() != null);
+            out.writeLong(entry.userId() != null ? entry.userId() : 0);
+            out.writeBoolean(entry.timestamp() != null);
+            out.writeLong(entry.timestamp() != null ? entry.timestamp().toEpochSecond(ZoneOffset.UTC) : 0);
+            out.writeInt(entry.timestamp() != null ? entry.timestamp().getNano() : 0);
+            writeString(out, entry.operation());
+            writeString(out, entry.details());
+            writeString(out, entry.resource());
+            writeString(out, entry.ipAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Entry decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            UUID eventId = new UUID(in.readLong(), in.readLong());
+            boolean hasUser = in.readBoolean();
+            long userId = in.readLong();
+            boolean hasTimestamp = in.readBoolean();
+            long seconds = in.readLong();
+            int nanos = in.readInt();
+            return new Entry(eventId, hasUser ? userId : null, readString(in),
+                    hasTimestamp ? LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC) : null,
+                    readString(in), readString(in), readString(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer once it has inserted the entries in the log, or after the shutdown timeout.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("Audit writer did not finish within {} ms, the rest of the audit log is inserted after "
+                    + "the next start", shutdownTimeoutMs);
+        }
+        log.force();
+    }
+
+    /**
+     * Stops the writer and releases the audit log directory, so that another instance can open it.
+     */
+    @PreDestroy
+    public void close() {
+        stop();
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.warn("Could not release the audit log: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so entries of requests still running during a graceful shutdown are inserted.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public long getPending() {
+        return Math.max(0, appended.get() - consumed);
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.log.size", log, SegmentLog::sizeBytes)
+                .description("Size of the segments of the local audit log")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("audit.pending", this, AuditLogWriter::getPending)
+                .description("Audit entries logged since the start and not inserted yet")
+                .register(registry);
+        FunctionCounter.builder("audit.written", written, LongAdder::sum)
+                .description("Audit entries inserted")
+                .register(registry);
+        FunctionCounter.builder("audit.dropped", dropped, LongAdder::sum)
+                .description("Audit entries dropped because the audit log was full")
+                .register(registry);
+        FunctionCounter.builder("audit.retries", retries, LongAdder::sum)
+                .description("Failed audit batch inserts, retried from the audit log")
+                .register(registry);
+        FunctionCounter.builder("audit.dead.lettered", deadLettered, LongAdder::sum)
+                .description("Audit entries that could not be inserted, written to the dead-letter file")
+                .register(registry);
+    }
+}
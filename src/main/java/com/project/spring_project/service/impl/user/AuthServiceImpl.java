@@ -4,25 +4,39 @@ import com.project.spring_project.entity.user.PasswordResetToken;
 import com.project.spring_project.entity.user.RefreshToken;
 import com.project.spring_project.entity.user.Role;
 import com.project.spring_project.entity.user.User;
+import com.project.spring_project.exception.BadRequestException;
 import com.project.spring_project.exception.EmailSendException;
+import com.project.spring_project.exception.TooManyRequestsException;
 import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.dto.request.RequestContext;
 import com.project.spring_project.dto.request.RegisterRequest;
 import com.project.spring_project.dto.response.AuthResponse;
 import com.project.spring_project.repository.user.PasswordResetTokenRepository;
+import com.project.spring_project.repository.user.RefreshTokenFamilyRepository;
 import com.project.spring_project.repository.user.RefreshTokenRepository;
 import com.project.spring_project.repository.user.RoleRepository;
 import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
+import com.project.spring_project.secutrity.services.LoginAttemptTracker;
 import com.project.spring_project.secutrity.services.PasswordService;
 import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.secutrity.jwt.TokenRevocationList;
+import com.project.spring_project.secutrity.jwt.VerifiedToken;
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
 import com.project.spring_project.service.AuditLogService;
 import com.project.spring_project.service.user.AuthService;
 import com.project.spring_project.service.EmailService;
+import com.project.spring_project.util.IpAddresses;
 import com.project.spring_project.util.LocalizationService;
+import com.project.spring_project.util.TokenDigest;
 import com.project.spring_project.util.TokenUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.mail.MailException;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -32,12 +46,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
-    private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtService;
     private final UserRepository userRepository;
     private final RefreshTokenServiceImpl refreshTokenServiceImpl;
@@ -45,73 +59,87 @@ public class AuthServiceImpl implements AuthService {
     private final RoleRepository roleRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
     private final EmailService emailService;
     private final AuditLogService auditLogService;
     private final LocalizationService localizationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SessionRegistry sessionRegistry;
+    private final TokenRevocationList revocationList;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final HeavyHitterDetector heavyHitterDetector;
 
     /**
      * This method is used to authenticate a user and generate a JWT token.
+     * <p>
+     * The user is loaded once, with its roles, and the password is verified against it directly. Failed attempts
+     * and lockouts are tracked by the {@link LoginAttemptTracker}, so the user row is only updated here when the
+     * password hash is upgraded. Unknown usernames and bad passwords are also fed to the
+     * {@link HeavyHitterDetector}, which throttles usernames and clients behind too many failures.
      *
      * @param request the authentication request containing username/email and password
      * @return AuthResponse containing the JWT token and refresh token
      */
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = LockedException.class)
     public AuthResponse login(AuthRequest request) {
-        User user = userRepository.findByUsernameOrEmail(request.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException(localizationService.get("user.not.found")));
-
-        if (user.isAccountLocked()) {
-            if (user.getLockTime() != null && user.getLockTime().isBefore(LocalDateTime.now().minusMinutes(15))) {
-                // Unlock after timeout
-                user.setAccountLocked(false);
-                user.setFailedAttempts(0);
-                user.setLockTime(null);
-                userRepository.save(user);
-            } else {
-
-                auditLogService.logAudit(user, "ACCOUNT LOCKED", "Account is locked.");
-                throw new LockedException(localizationService.get("exception.user.account.locked"));
-            }
+        String clientAddress = clientAddress();
+        long throttledNanos = heavyHitterDetector.throttledNanos(request.getUsername(), clientAddress);
+        if (throttledNanos > 0) {
+            throw new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(throttledNanos)));
         }
 
-        try{
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()
-                    )
-            );
+        User user = userRepository.findByUsernameOrEmail(request.getUsername()).orElse(null);
+        if (user == null) {
+            heavyHitterDetector.recordLoginFailure(request.getUsername(), clientAddress);
+            throw new UsernameNotFoundException(localizationService.get("user.not.found"));
+        }
 
-            String token = jwtService.generateToken(authentication);
+        if (loginAttemptTracker.isLocked(user)) {
+            auditLogService.logAudit(user, "ACCOUNT LOCKED", "Account is locked.");
+            throw new LockedException(localizationService.get("exception.user.account.locked"));
+        }
 
-            //CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            //User user = userDetails.getUser();
-            String encodedToken = TokenUtils.hashedToken(token);
+        if (!user.isEnabled()) {
+            // The lock was checked above; the remaining account status checks all depend on enabled
+            throw new DisabledException(localizationService.get("AccountStatusUserDetailsChecker.disabled"));
+        }
 
-            user.setActiveToken(encodedToken);
-            user.setFailedAttempts(0);
-            user.setAccountLocked(false);
-            user.setLockTime(null);
-            userRepository.save(user);
+        if (!passwordService.matches(request.getPassword(), user.getPassword())) {
+            loginAttemptTracker.recordFailure(user.getId());
+            heavyHitterDetector.recordLoginFailure(request.getUsername(), clientAddress);
+            throw new BadCredentialsException(localizationService.get("exception.invalid.credentials"));
+        }
 
-            RefreshToken refreshToken = refreshTokenServiceImpl.createRefreshToken(user);
+        CustomUserDetails userDetails = new CustomUserDetails(user);
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                userDetails, null, userDetails.getAuthorities());
 
-            auditLogService.logAudit(user, "LOGIN", "User successfully logged in.");
-            return new AuthResponse(token, refreshToken.getRawToken());
-        } catch (BadCredentialsException ex) {
-            int newFailAttempts = user.getFailedAttempts() + 1;
-            user.setFailedAttempts(newFailAttempts);
+        String token = jwtService.generateToken(authentication);
 
-            if (newFailAttempts >= 5) {
-                user.setAccountLocked(true);
-                user.setLockTime(LocalDateTime.now());
-            }
+        TokenDigest session = TokenDigest.of(token);
+        sessionRegistry.register(user.getId(), session);
+        if (passwordService.needsRehash(user.getPassword())) {
+            // Hashed with an older algorithm or cost: replace it now that the raw password is known
+            user.setPassword(passwordService.encodePassword(request.getPassword()));
+        }
+        loginAttemptTracker.recordSuccess(user);
+        verifiedTokenCache.invalidateUser(user.getId());
 
-            userRepository.save(user);
+        RefreshToken refreshToken = refreshTokenServiceImpl.createRefreshToken(user, session);
 
-            throw ex; // rethrow to controller/global exception handler
-        }
+        auditLogService.logAudit(user, "LOGIN", "User successfully logged in.");
+        return new AuthResponse(token, refreshToken.getRawToken());
+    }
+
+    /**
+     * Returns the address of the client of the current request, propagated to the password hashing pool.
+     *
+     * @return the client address, or null outside of a request
+     */
+    private String clientAddress() {
+        HttpServletRequest request = RequestContext.getRequest();
+        return request == null ? null : IpAddresses.clientAddress(request);
     }
 
     /**
@@ -213,6 +241,42 @@ public class AuthServiceImpl implements AuthService {
         passwordResetTokenRepository.save(resetToken);
     }
 
+    /**
+     * This method is used to log out the session of the given access token.
+     * <p>
+     * The access token is revoked until it expires and removed from the user's sessions. If the refresh token of the
+     * session is provided, its token family is revoked so it cannot issue new access tokens.
+     *
+     * @param accessToken  the raw access token of the session
+     * @param refreshToken the raw refresh token of the session, may be null
+     */
+    @Override
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        VerifiedToken verifiedToken = jwtService.verify(accessToken)
+                .orElseThrow(() -> new BadRequestException(localizationService.get("exception.invalid.expired.session")));
+        Long userId = verifiedToken.getUserId();
+        TokenDigest digest = TokenDigest.of(accessToken);
+
+        revocationList.revoke(digest, verifiedToken.getExpiration(), userId);
+        sessionRegistry.remove(userId, digest);
+        verifiedTokenCache.invalidateUser(userId);
+
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenRepository.findByTokenHash(TokenUtils.hashedToken(refreshToken))
+                    .filter(token -> token.getUser().getId().equals(userId))
+                    .ifPresent(token -> {
+                        token.setUsed(true);
+                        if (token.getFamily() != null) {
+                            refreshTokenServiceImpl.revoke(token.getFamily());
+                        }
+                    });
+        }
+
+        userRepository.findById(userId)
+                .ifPresent(user -> auditLogService.logAudit(user, "LOGOUT", "User logged out."));
+    }
+
     /**
      * This method is used to delete a test user.
      *
@@ -226,7 +290,10 @@ public class AuthServiceImpl implements AuthService {
         if (user != null) {
             passwordResetTokenRepository.deleteByUserId(user.getId());
             refreshTokenRepository.deleteByUser(user);
+            refreshTokenFamilyRepository.deleteByUser(user);
             userRepository.delete(user);
+            verifiedTokenCache.invalidateUser(userId);
+            sessionRegistry.removeAll(userId);
         }
         auditLogService.logAudit(user, "USER_DELETION", "User deleted: " + username);
 
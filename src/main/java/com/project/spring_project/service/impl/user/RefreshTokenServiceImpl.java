@@ -1,17 +1,24 @@
 package com.project.spring_project.service.impl.user;
 
 import com.project.spring_project.entity.user.RefreshToken;
+import com.project.spring_project.entity.user.RefreshTokenFamily;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.dto.request.RefreshTokenRequest;
 import com.project.spring_project.dto.response.AuthResponse;
 import com.project.spring_project.exception.BadRequestException;
+import com.project.spring_project.repository.user.RefreshTokenFamilyRepository;
 import com.project.spring_project.repository.user.RefreshTokenRepository;
-import com.project.spring_project.repository.user.UserRepository;
 import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.RefreshGraceCache;
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
 import com.project.spring_project.util.LocalizationService;
 import com.project.spring_project.service.user.RefreshTokenService;
+import com.project.spring_project.util.TokenDigest;
 import com.project.spring_project.util.TokenUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +26,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.UUID;
 
 import static com.project.spring_project.util.TokenUtils.hashedToken;
@@ -31,89 +37,194 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     private boolean oneSingleSignOn;
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
     private final JwtTokenProvider jwtService;
-    private final UserRepository userRepository;
     private final LocalizationService localizationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SessionRegistry sessionRegistry;
+    private final RefreshGraceCache refreshGraceCache;
 
-    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, JwtTokenProvider jwtService, UserRepository userRepository, LocalizationService localizationService) {
+    /**
+     * The transactional proxy of this service, so that {@link #rotate} runs in its own transaction; this instance
+     * when it is built outside Spring.
+     */
+    @Lazy
+    @Autowired
+    private RefreshTokenServiceImpl self = this;
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, RefreshTokenFamilyRepository refreshTokenFamilyRepository, JwtTokenProvider jwtService, LocalizationService localizationService, VerifiedTokenCache verifiedTokenCache, SessionRegistry sessionRegistry, RefreshGraceCache refreshGraceCache) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
         this.jwtService = jwtService;
-        this.userRepository = userRepository;
         this.localizationService = localizationService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.sessionRegistry = sessionRegistry;
+        this.refreshGraceCache = refreshGraceCache;
     }
 
     /**
-     * Generates a new refresh token for the user.
+     * Generates a new refresh token for the user, starting a new token family.
      *
      * @param user The user for whom the refresh token is generated.
      * @return The generated refresh token.
      */
     @Override
     public RefreshToken createRefreshToken(User user) {
-        String rawToken = UUID.randomUUID().toString();
-        String hashedToken = hashedToken(rawToken); // use the same PasswordEncoder as for passwords
-
-        RefreshToken token = new RefreshToken();
-        token.setUser(user);
-        token.setTokenHash(hashedToken);
-        token.setExpiryDate(Instant.now().plus(Duration.ofDays(7))); // or a config value
-        refreshTokenRepository.save(token);
+        return createRefreshToken(user, null);
+    }
 
-        // Set the raw token (NOT saved) so it can be returned to the client
-        token.setRawToken(rawToken);
-        return token;
+    /**
+     * Generates a new refresh token for the user, starting a new token family for the session of an access token.
+     *
+     * @param user         The user for whom the refresh token is generated.
+     * @param sessionToken The digest of the access token issued with it, may be null.
+     * @return The generated refresh token.
+     */
+    @Override
+    public RefreshToken createRefreshToken(User user, TokenDigest sessionToken) {
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setUser(user);
+        return issue(family, sessionToken);
     }
 
     /**
      * Validates the refresh token and generates a new access token.
+     * <p>
+     * The token is consumed with a single conditional update, so of two concurrent requests with the same token
+     * only one succeeds, and the cost does not depend on how many tokens the user has accumulated. A used token
+     * that is no longer the current token of its family has been replayed: the whole family is revoked.
+     * <p>
+     * A duplicate call with a token consumed within {@code app.jwtRefreshGraceMs} gets the response of the first
+     * call from the {@link RefreshGraceCache}. This method is not transactional: a duplicate call waits for the first
+     * one without holding a connection, and only the rotation itself runs in a transaction, which has committed by
+     * the time its result is shared.
      *
      * @param request The request containing the refresh token.
      * @return The response containing the new access token and refresh token.
      */
     @Override
     public AuthResponse refreshAccessToken(RefreshTokenRequest request) {
-        String hashedToken = hashedToken(request.getRefreshToken());
+        TokenDigest digest = TokenDigest.of(request.getRefreshToken());
+        return refreshGraceCache.refresh(digest, () -> self.rotate(digest.toHex()));
+    }
+
+    /**
+     * Consumes a refresh token and issues the next token of its family with a new access token.
+     * <p>
+     * A rejected token still commits, so that the revocation of a replayed family is kept.
+     *
+     * @param hashedToken the hash of the presented refresh token
+     * @return The response containing the new access token and refresh token.
+     */
+    @Transactional(noRollbackFor = BadRequestException.class)
+    public AuthResponse rotate(String hashedToken) {
         RefreshToken token = refreshTokenRepository.findByTokenHash(hashedToken)
                 .orElseThrow(() -> new BadRequestException(localizationService.get("token.refresh.invalid")));
 
-        if (token.isUsed() || token.getExpiryDate().isBefore(Instant.now())) {
+        if (token.getExpiryDate().isBefore(Instant.now())) {
             throw new BadRequestException(localizationService.get("token.refresh.used"));
         }
+        if (token.isUsed()) {
+            throw rejectUsed(token);
+        }
 
-        User user = userRepository.findById(token.getUser().getId())
-                .orElseThrow(() -> new IllegalArgumentException(localizationService.get("user.not.found")));
-        if (oneSingleSignOn) {
-            // Get the most recent token for this user
-            List<RefreshToken> tokens = refreshTokenRepository.findByUserOrderByExpiryDateDesc(user);
-            if (tokens.isEmpty() || !tokens.getFirst().getTokenHash().equals(hashedToken)) {
-                throw new BadRequestException(localizationService.get("token.refresh.invalid.latest"));
-            }
+        RefreshTokenFamily family = token.getFamily();
+        User user = token.getUser();
+        if (oneSingleSignOn && (family == null || !isSessionActive(family))) {
+            // Only a family whose access token still holds a session slot can be refreshed
+            throw new BadRequestException(localizationService.get("token.refresh.invalid.latest"));
         }
 
-        token.setUsed(true);
-        refreshTokenRepository.save(token);
+        if (refreshTokenRepository.consume(hashedToken) == 0) {
+            throw rejectUsed(token);
+        }
 
         String jwt = jwtService.generateToken(user);
-        String encodedToken = TokenUtils.hashedToken(jwt);
-
-        RefreshToken newToken = createRefreshToken(user);
+        TokenDigest session = TokenDigest.of(jwt);
+
+        if (family == null) {
+            // Issued before token families: the rotation starts a family for it
+            family = new RefreshTokenFamily();
+            family.setUser(user);
+        } else if (family.getSessionTokenHash() != null) {
+            sessionRegistry.remove(user.getId(), TokenDigest.fromHex(family.getSessionTokenHash()));
+        }
+        RefreshToken newToken = issue(family, session);
 
-        user.setActiveToken(encodedToken);
-        userRepository.save(user);
+        sessionRegistry.register(user.getId(), session);
+        verifiedTokenCache.invalidateUser(user.getId());
 
         return new AuthResponse(jwt, newToken.getRawToken());
     }
 
     /**
-     * Deletes all refresh tokens associated with the user.
+     * Makes a new token the current token of a family, and saves both.
+     */
+    private RefreshToken issue(RefreshTokenFamily family, TokenDigest sessionToken) {
+        String rawToken = UUID.randomUUID().toString();
+        String hashedToken = hashedToken(rawToken);
+
+        family.setCurrentTokenHash(hashedToken);
+        family.setSessionTokenHash(sessionToken != null ? sessionToken.toHex() : null);
+        refreshTokenFamilyRepository.save(family);
+
+        RefreshToken token = new RefreshToken();
+        token.setUser(family.getUser());
+        token.setFamily(family);
+        token.setTokenHash(hashedToken);
+        token.setExpiryDate(Instant.now().plus(Duration.ofDays(7))); // or a config value
+        refreshTokenRepository.save(token);
+
+        // Set the raw token (NOT saved) so it can be returned to the client
+        token.setRawToken(rawToken);
+        return token;
+    }
+
+    /**
+     * Builds the error for a used token, revoking its family first if the token was replayed.
+     */
+    private BadRequestException rejectUsed(RefreshToken token) {
+        RefreshTokenFamily family = token.getFamily();
+        if (family != null && !family.isRevoked()
+                && !TokenUtils.constantTimeEquals(family.getCurrentTokenHash(), token.getTokenHash())) {
+            revoke(family);
+        }
+        return new BadRequestException(localizationService.get("token.refresh.used"));
+    }
+
+    /**
+     * Revokes a token family: its tokens can no longer be refreshed and its access token loses its session.
      *
+     * @param family the family to revoke
+     */
+    public void revoke(RefreshTokenFamily family) {
+        Long userId = family.getUser().getId();
+        family.setRevoked(true);
+        refreshTokenRepository.markAllUsedByFamilyId(family.getId());
+        if (family.getSessionTokenHash() != null) {
+            sessionRegistry.remove(userId, TokenDigest.fromHex(family.getSessionTokenHash()));
+        }
+        verifiedTokenCache.invalidateUser(userId);
+    }
+
+    private boolean isSessionActive(RefreshTokenFamily family) {
+        return !family.isRevoked() && family.getSessionTokenHash() != null
+                && sessionRegistry.isActive(family.getUser().getId(), TokenDigest.fromHex(family.getSessionTokenHash()));
+    }
+
+    /**
+     * Deletes the refresh tokens that expired more than 30 days ago, then the families left without tokens.
+     * <p>
+     * Used tokens are kept until they expire, so that a replayed token is still recognized and revokes its family
+     * rather than being reported as unknown; once expired, a token can no longer be replayed.
      */
     @Override
     @Scheduled(cron = "0 0 3 * * ?") // Runs daily at 3 AM
     @Transactional
     public void cleanOldRefreshTokens() {
         Instant cutoff = Instant.now().minus(30, ChronoUnit.DAYS);
-        refreshTokenRepository.deleteAllExpiredOrUsedBefore(cutoff);
+        refreshTokenRepository.deleteAllExpiredBefore(cutoff);
+        refreshTokenFamilyRepository.deleteAllWithoutTokens();
     }
 
 }
\ No newline at end of file
@@ -5,8 +5,12 @@ import com.project.spring_project.entity.user.Role;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.mapper.UserMapper;
 import com.project.spring_project.dto.request.UserUpdateRequest;
+import com.project.spring_project.repository.user.RefreshTokenRepository;
 import com.project.spring_project.repository.user.RoleRepository;
 import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.secutrity.jwt.TokenRevocationList;
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
 import com.project.spring_project.service.AuditLogService;
 import com.project.spring_project.util.LocalizationService;
 import com.project.spring_project.service.user.UserService;
@@ -31,6 +35,10 @@ public class UserServiceImpl implements UserService {
     private final LocalizationService localizationService;
     private final UserMapper userMapper;
     private final AuditLogService auditLogService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SessionRegistry sessionRegistry;
+    private final TokenRevocationList revocationList;
 
     /**
      * Retrieves a paginated list of all users.
@@ -106,7 +114,9 @@ public class UserServiceImpl implements UserService {
 
         auditLogService.logAudit(user, "UPDATE_USER", "Update user from " + oldUserJson + " to " + JsonUtils.objectToJsonNotNulls(request));
 
-        return userMapper.toDto(userRepository.save(user));
+        UserDto updated = userMapper.toDto(userRepository.save(user));
+        verifiedTokenCache.invalidateUser(id);
+        return updated;
     }
 
     /**
@@ -120,6 +130,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new IllegalArgumentException(localizationService.get("user.not.found")));
         user.setEnabled(false);
         userRepository.save(user);
+        verifiedTokenCache.invalidateUser(id);
 
     }
 
@@ -135,6 +146,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new IllegalArgumentException(localizationService.get("user.not.found")));
         user.setEnabled(active);
         userRepository.save(user);
+        verifiedTokenCache.invalidateUser(id);
 
     }
 
@@ -160,11 +172,53 @@ public class UserServiceImpl implements UserService {
 
         user.setRoles(roles);
         userRepository.save(user);
+        verifiedTokenCache.invalidateUser(userId);
 
         // Log the role change
         auditLogService.logAudit(user, "ROLE_CHANGE", "Role changed from " + oldRolesJson + " to " + JsonUtils.objectToJsonNotNulls(roles));
     }
 
+    /**
+     * Revokes every session of a user.
+     * <p>
+     * All access tokens issued to the user so far are rejected and all refresh tokens are marked as used.
+     *
+     * @param userId the ID of the user whose sessions are to be revoked
+     */
+    @Override
+    @Transactional
+    public void revokeUserSessions(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException(localizationService.get("user.not.found")));
+
+        revocationList.revokeUser(userId);
+        sessionRegistry.removeAll(userId);
+        verifiedTokenCache.invalidateUser(userId);
+        int refreshTokens = refreshTokenRepository.markAllUsedByUserId(userId);
+
+        auditLogService.logAudit(user, "REVOKE_SESSIONS", "Revoked all sessions, " + refreshTokens + " refresh tokens invalidated");
+    }
+
+    /**
+     * Revokes every session of the users holding a role.
+     * <p>
+     * All access tokens issued so far to users with the role are rejected and their refresh tokens are marked as used.
+     *
+     * @param roleName the name of the role (e.g. "USER")
+     */
+    @Override
+    @Transactional
+    public void revokeRoleSessions(String roleName) {
+        Role role = roleRepository.findByName(roleName)
+                .orElseThrow(() -> new IllegalArgumentException(localizationService.get("user.role.not.found", roleName)));
+
+        revocationList.revokeRole(role.getName());
+        verifiedTokenCache.clear();
+        int refreshTokens = refreshTokenRepository.markAllUsedByRoleName(role.getName());
+
+        auditLogService.logAudit(null, "REVOKE_ROLE_SESSIONS", "Revoked all sessions of role " + role.getName() + ", " + refreshTokens + " refresh tokens invalidated");
+    }
+
     /**
      * Changes the language of the currently authenticated user.
      *
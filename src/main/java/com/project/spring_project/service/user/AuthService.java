@@ -9,5 +9,6 @@ public interface AuthService {
     void register(RegisterRequest request);
     void requestPasswordReset(String email, boolean sendAsCode);
     void resetPassword(String token, String newPassword);
+    void logout(String accessToken, String refreshToken);
     void deleteTestUser(String username);
 }
\ No newline at end of file
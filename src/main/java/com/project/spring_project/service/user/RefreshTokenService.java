@@ -4,9 +4,11 @@ import com.project.spring_project.entity.user.RefreshToken;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.dto.request.RefreshTokenRequest;
 import com.project.spring_project.dto.response.AuthResponse;
+import com.project.spring_project.util.TokenDigest;
 
 public interface RefreshTokenService {
     RefreshToken createRefreshToken(User user);
+    RefreshToken createRefreshToken(User user, TokenDigest sessionToken);
     AuthResponse refreshAccessToken(RefreshTokenRequest request);
     void cleanOldRefreshTokens();
 }
@@ -17,4 +17,6 @@ public interface UserService {
     void updateUserStatus(Long id, boolean active);
     void updateUserRoles(Long userId, List<String> newRoles);
     void changeLanguage(String language);
+    void revokeUserSessions(Long userId);
+    void revokeRoleSessions(String roleName);
 }
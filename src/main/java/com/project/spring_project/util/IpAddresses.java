@@ -0,0 +1,206 @@
+package com.project.spring_project.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Allocation-free parsing of IPv4 and IPv6 literals into 128-bit values.
+ * <p>
+ * Addresses are returned as two longs, the high and the low 64 bits of the IPv6 address. IPv4 addresses are mapped
+ * to {@code ::ffff:a.b.c.d}, so both families share one key space. Brackets ({@code [::1]}) and zone ids
+ * ({@code fe80::1%eth0}) are accepted and ignored; host names are not resolved.
+ */
+public final class IpAddresses {
+
+    /**
+     * The low 64 bits of {@code ::ffff:0.0.0.0}, the IPv4-mapped prefix.
+     */
+    public static final long IPV4_MAPPED = 0x0000_FFFF_0000_0000L;
+
+    private static final int GROUPS = 8;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Retrieves the client's IP address from the request.
+     * <p>
+     * This is the remote address of the connection. Behind a proxy or load balancer, Tomcat replaces it with the
+     * address from {@code X-Forwarded-For} only when the connection comes from a trusted proxy
+     * ({@code server.forward-headers-strategy=native}, {@code server.tomcat.remoteip.*}); the header itself is never
+     * read here, since any client can send it.
+     *
+     * @param request the HttpServletRequest object
+     * @return the client's IP address as a String
+     */
+    public static String clientAddress(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Parses an IP address literal.
+     *
+     * @param address the literal, e.g. {@code 203.0.113.7} or {@code 2001:db8::1}
+     * @param out     receives the high 64 bits at index 0 and the low 64 bits at index 1
+     * @return true if the value was an IP address literal; {@code out} is left unspecified otherwise
+     */
+    public static boolean parse(CharSequence address, long[] out) {
+        if (address == null) {
+            return false;
+        }
+        int start = 0;
+        int end = address.length();
+        if (end >= 2 && address.charAt(0) == '[' && address.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+        boolean ipv6 = false;
+        for (int i = start; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == '%') {
+                end = i;
+                break;
+            }
+            ipv6 |= c == ':';
+        }
+        if (start >= end) {
+            return false;
+        }
+        if (!ipv6) {
+            long ipv4 = parseIpv4(address, start, end);
+            if (ipv4 < 0) {
+                return false;
+            }
+            out[0] = 0;
+            out[1] = IPV4_MAPPED | ipv4;
+            return true;
+        }
+        return parseIpv6(address, start, end, out);
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address.
+     *
+     * @return the address as an unsigned 32-bit value, or -1 if it is not valid
+     */
+    private static long parseIpv4(CharSequence s, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int i = start;
+        while (true) {
+            int digits = 0;
+            int octet = 0;
+            char c;
+            while (i < end && (c = s.charAt(i)) >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                i++;
+                if (++digits > 3) {
+                    return -1;
+                }
+            }
+            if (digits == 0 || octet > 255) {
+                return -1;
+            }
+            value = (value << 8) | octet;
+            octets++;
+            if (i == end) {
+                return octets == 4 ? value : -1;
+            }
+            if (s.charAt(i) != '.' || octets == 4) {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    private static boolean parseIpv6(CharSequence s, int start, int end, long[] out) {
+        // Groups before "::" go to head, groups after it to tail; both are shifted in from the right
+        long headHi = 0;
+        long headLo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int head = 0;
+        int tail = 0;
+        boolean compressed = false;
+
+        int i = start;
+        if (s.charAt(i) == ':') {
+            if (end - i < 2 || s.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+        while (i < end) {
+            int groupStart = i;
+            int group = 0;
+            int digit;
+            while (i < end && i - groupStart < 5 && (digit = Character.digit(s.charAt(i), 16)) >= 0) {
+                group = (group << 4) | digit;
+                i++;
+            }
+            int groups;
+            long value;
+            if (i < end && s.charAt(i) == '.') {
+                // Embedded IPv4 address, the last two groups
+                long ipv4 = parseIpv4(s, groupStart, end);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                groups = 2;
+                value = ipv4;
+                i = end;
+            } else {
+                if (i == groupStart || i - groupStart > 4) {
+                    return false;
+                }
+                groups = 1;
+                value = group;
+            }
+            int shift = groups * 16;
+            if (compressed) {
+                tailHi = (tailHi << shift) | (tailLo >>> (64 - shift));
+                tailLo = (tailLo << shift) | value;
+                tail += groups;
+            } else {
+                headHi = (headHi << shift) | (headLo >>> (64 - shift));
+                headLo = (headLo << shift) | value;
+                head += groups;
+            }
+            if (head + tail > GROUPS) {
+                return false;
+            }
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':' || ++i == end) {
+                return false;
+            }
+            if (s.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            }
+        }
+        if (compressed ? head + tail == GROUPS : head != GROUPS) {
+            return false;
+        }
+
+        // Move the head groups to the top of the address
+        int shift = (GROUPS - head) * 16;
+        if (shift >= 128) {
+            headHi = 0;
+            headLo = 0;
+        } else if (shift >= 64) {
+            headHi = headLo << (shift - 64);
+            headLo = 0;
+        } else if (shift > 0) {
+            headHi = (headHi << shift) | (headLo >>> (64 - shift));
+            headLo <<= shift;
+        }
+        out[0] = headHi | tailHi;
+        out[1] = headLo | tailLo;
+        return true;
+    }
+}
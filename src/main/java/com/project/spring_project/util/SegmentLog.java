@@ -0,0 +1,373 @@
+package com.project.spring_project.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable append-only log of byte records, kept in memory-mapped segment files of a fixed size.
+ * <p>
+ * Each record is framed as its length, the CRC-32C of its payload and the payload; the length is written last, so a
+ * record is either complete or ends the segment. When the current segment is full the log moves to a new one, up
+ * to {@code maxBytes} of segments. Records are in the page cache as soon as {@link #append(byte[])} returns, so they
+ * survive a crash of the process; {@link #force()} writes them to the disk.
+ * <p>
+ * A single consumer {@link #read(int) reads} records from the last {@link #commit(Position) committed} position,
+ * which is stored in a checkpoint file; segments before it are deleted. Records read but not committed when the
+ * process stops are read again after a restart, so delivery is at least once.
+ * <p>
+ * On open, every segment is scanned up to its first missing or corrupt record: a record torn by a crash is
+ * dropped and the following appends overwrite it.
+ * <p>
+ * A log holds an exclusive lock on a file of its directory until it is {@link #close() closed}, since two logs on
+ * one directory would append over each other and overwrite each other's checkpoint.
+ */
+public final class SegmentLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+
+    private static final int HEADER = 8;
+    private static final String SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String LOCK = "lock";
+
+    /**
+     * Position right after a record: a segment and an offset in it.
+     */
+    public record Position(long segment, int offset) {
+    }
+
+    /**
+     * A record and the position that follows it, to commit once the record is processed.
+     */
+    public record Record(byte[] payload, Position next) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+
+    // Guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment head;
+    private int headOffset;
+
+    // Only used by the consumer
+    private long readSegment;
+    private int readOffset;
+    private Position committed;
+
+    /**
+     * Opens the log in a directory, creating it if needed.
+     *
+     * @param directory    the directory of the segment and checkpoint files
+     * @param segmentBytes the size of each segment file
+     * @param maxBytes     the maximum size of all segments; appends fail beyond it
+     * @throws IOException           if the directory or a segment cannot be read or created
+     * @throws IllegalStateException if another log, in this process or another one, has the directory open
+     */
+    public SegmentLog(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes));
+        Files.createDirectories(directory);
+        this.lockChannel = lock(directory);
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the segments and the checkpoint of the directory.
+     */
+    private void open() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long sequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            Segment segment = new Segment(sequence, map(file, 0));
+            segment.end = scan(segment);
+            segments.put(sequence, segment);
+        }
+
+        Position checkpoint = readCheckpoint();
+        if (segments.isEmpty()) {
+            long first = checkpoint != null ? checkpoint.segment() : 0;
+            segments.put(first, newSegment(first));
+        }
+        if (checkpoint == null || checkpoint.segment() < segments.firstKey()) {
+            checkpoint = new Position(segments.firstKey(), 0);
+        }
+        head = segments.lastEntry().getValue();
+        headOffset = head.end;
+        head.end = -1;
+        // Clear what a torn record left, so it cannot be mistaken for a record after the next restart
+        byte[] zeros = new byte[4096];
+        for (int i = headOffset; i < head.buffer.capacity(); i += zeros.length) {
+            head.buffer.put(i, zeros, 0, Math.min(zeros.length, head.buffer.capacity() - i));
+        }
+        if (checkpoint.segment() > head.sequence
+                || checkpoint.segment() == head.sequence && checkpoint.offset() > headOffset) {
+            logger.warn("Checkpoint {} is past the end of the log, resuming at its end", checkpoint);
+            checkpoint = new Position(head.sequence, headOffset);
+        }
+
+        committed = checkpoint;
+        readSegment = checkpoint.segment();
+        readOffset = checkpoint.offset();
+    }
+
+    /**
+     * Locks the directory of a log for this instance.
+     *
+     * @return the channel of the lock file, which holds the lock until it is closed
+     */
+    private static FileChannel lock(Path directory) throws IOException {
+        Path file = directory.resolve(LOCK);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("The segment log in " + directory.toAbsolutePath() + " is already open "
+                    + "(" + file + " is locked): every instance needs a directory of its own");
+        }
+        return channel;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload the record
+     * @return false if the log is full
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized boolean append(byte[] payload) throws IOException {
+        int size = HEADER + payload.length;
+        if (size > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        if (headOffset + size > head.buffer.capacity()) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            head.end = headOffset;
+            head.buffer.force();
+            head = newSegment(head.sequence + 1);
+            segments.put(head.sequence, head);
+            headOffset = 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        head.buffer.put(headOffset + HEADER, payload);
+        head.buffer.putInt(headOffset + 4, (int) crc.getValue());
+        head.buffer.putInt(headOffset, payload.length);
+        headOffset += size;
+        return true;
+    }
+
+    /**
+     * Reads the next records after the last one read.
+     *
+     * @param max the maximum number of records
+     * @return the records, empty if there is none
+     */
+    public List<Record> read(int max) {
+        List<Record> records = new ArrayList<>(Math.min(max, 256));
+        while (records.size() < max) {
+            Segment segment;
+            int limit;
+            boolean last;
+            synchronized (this) {
+                segment = segments.get(readSegment);
+                if (segment == null) {
+                    break;
+                }
+                last = segment == head;
+                limit = last ? headOffset : segment.end;
+            }
+            ByteBuffer buffer = segment.buffer;
+            while (records.size() < max && readOffset < limit) {
+                int length = buffer.getInt(readOffset);
+                byte[] payload = new byte[length];
+                buffer.get(readOffset + HEADER, payload);
+                readOffset += HEADER + length;
+                records.add(new Record(payload, new Position(readSegment, readOffset)));
+            }
+            if (readOffset < limit || last) {
+                break;
+            }
+            readSegment++;
+            readOffset = 0;
+        }
+        return records;
+    }
+
+    /**
+     * Marks the records up to a position as processed: the checkpoint is stored and the segments before it deleted.
+     *
+     * @param position the position after the last processed record
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void commit(Position position) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temporary, ByteBuffer.allocate(12).putLong(position.segment()).putInt(position.offset()).array());
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        committed = position;
+        List<Long> consumed;
+        synchronized (this) {
+            consumed = new ArrayList<>(segments.headMap(position.segment()).keySet());
+            consumed.forEach(segments::remove);
+        }
+        for (Long sequence : consumed) {
+            Files.deleteIfExists(segmentFile(sequence));
+        }
+    }
+
+    /**
+     * Moves back to the last committed position, so the records read since are read again.
+     */
+    public void rewind() {
+        readSegment = committed.segment();
+        readOffset = committed.offset();
+    }
+
+    /**
+     * Writes the appended records to the disk.
+     */
+    public void force() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = head.buffer;
+        }
+        buffer.force();
+    }
+
+    /**
+     * @return whether records were appended after the last one read
+     */
+    public synchronized boolean hasUnread() {
+        return readSegment < head.sequence || readOffset < headOffset;
+    }
+
+    /**
+     * @return the size of the segment files
+     */
+    public synchronized long sizeBytes() {
+        long size = 0;
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            size += entry.getValue().buffer.capacity();
+        }
+        return size;
+    }
+
+    /**
+     * Releases the directory. Records appended are kept in the page cache; call {@link #force()} first to write them
+     * to the disk.
+     *
+     * @throws IOException if the lock file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lockChannel.close();
+    }
+
+    private Segment newSegment(long sequence) throws IOException {
+        return new Segment(sequence, map(segmentFile(sequence), segmentBytes));
+    }
+
+    private Path segmentFile(long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SUFFIX));
+    }
+
+    /**
+     * Maps a segment file, creating it with the given size if it does not exist.
+     */
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() == 0) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+    }
+
+    /**
+     * Finds the end of the valid records of a segment.
+     */
+    private static int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        CRC32C crc = new CRC32C();
+        int offset = 0;
+        while (offset + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(offset + HEADER, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                logger.warn("Corrupt record at offset {} of segment {}, dropping the rest of the segment",
+                        offset, segment.sequence);
+                break;
+            }
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new Position(buffer.getLong(), buffer.getInt());
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        // End of the records once the segment is no longer appended to, -1 for the head
+        private int end;
+
+        private Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+}
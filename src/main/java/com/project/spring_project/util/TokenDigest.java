@@ -0,0 +1,171 @@
+package com.project.spring_project.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digest of a token held as four longs (32 bytes) instead of a 64 character hex string.
+ * <p>
+ * Used as the in-memory key for sessions and cached tokens. Digests are computed with a per-thread
+ * {@link MessageDigest} and scratch buffers, so hashing an ASCII token (every JWT) allocates nothing but the
+ * returned instance. {@link #matches(TokenDigest)} compares in constant time; {@link #toHex()} gives the same
+ * value as {@link TokenUtils#hashedToken(String)} for the database columns.
+ */
+public final class TokenDigest {
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final int MAX_BUFFERED_TOKEN = 4096;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    private final long w0;
+    private final long w1;
+    private final long w2;
+    private final long w3;
+
+    private TokenDigest(long w0, long w1, long w2, long w3) {
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+        this.w3 = w3;
+    }
+
+    /**
+     * Computes the SHA-256 digest of a token.
+     *
+     * @param token the raw token
+     * @return the digest
+     */
+    public static TokenDigest of(String token) {
+        return HASHER.get().digest(token);
+    }
+
+    /**
+     * Parses a digest from its hexadecimal form.
+     *
+     * @param hex the 64 character hexadecimal digest, as stored in the database
+     * @return the digest
+     * @throws IllegalArgumentException if the value is not a 64 character hexadecimal string
+     */
+    public static TokenDigest fromHex(String hex) {
+        if (hex == null || hex.length() != DIGEST_LENGTH * 2) {
+            throw new IllegalArgumentException("Invalid token digest");
+        }
+        return new TokenDigest(parseLong(hex, 0), parseLong(hex, 16), parseLong(hex, 32), parseLong(hex, 48));
+    }
+
+    /**
+     * Compares two digests in constant time.
+     *
+     * @param other the digest to compare with
+     * @return true if both digests are equal
+     */
+    public boolean matches(TokenDigest other) {
+        if (other == null) {
+            return false;
+        }
+        return ((w0 ^ other.w0) | (w1 ^ other.w1) | (w2 ^ other.w2) | (w3 ^ other.w3)) == 0;
+    }
+
+    /**
+     * Returns the lowercase hexadecimal form of the digest.
+     *
+     * @return the 64 character hexadecimal digest
+     */
+    public String toHex() {
+        char[] chars = new char[DIGEST_LENGTH * 2];
+        appendHex(chars, 0, w0);
+        appendHex(chars, 16, w1);
+        appendHex(chars, 32, w2);
+        appendHex(chars, 48, w3);
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TokenDigest other && matches(other);
+    }
+
+    @Override
+    public int hashCode() {
+        // The words are already uniformly distributed
+        return (int) w0;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    private static void appendHex(char[] chars, int offset, long word) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX_DIGITS[(int) (word & 0xF)];
+            word >>>= 4;
+        }
+    }
+
+    private static long parseLong(String hex, int offset) {
+        long word = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid token digest");
+            }
+            word = (word << 4) | digit;
+        }
+        return word;
+    }
+
+    /**
+     * Per-thread digest state: the MessageDigest plus input and output buffers.
+     */
+    private static final class Hasher {
+        private final MessageDigest sha256;
+        private final byte[] input = new byte[MAX_BUFFERED_TOKEN];
+        private final byte[] output = new byte[DIGEST_LENGTH];
+
+        private Hasher() {
+            try {
+                this.sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        private TokenDigest digest(String token) {
+            int length = token.length();
+            boolean ascii = length <= input.length;
+            for (int i = 0; ascii && i < length; i++) {
+                char c = token.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                } else {
+                    input[i] = (byte) c;
+                }
+            }
+            if (ascii) {
+                sha256.update(input, 0, length);
+            } else {
+                sha256.update(token.getBytes(StandardCharsets.UTF_8));
+            }
+            try {
+                sha256.digest(output, 0, DIGEST_LENGTH);
+            } catch (DigestException e) {
+                sha256.reset();
+                throw new IllegalStateException("Error hashing token", e);
+            }
+            return new TokenDigest(
+                    (long) LONGS.get(output, 0),
+                    (long) LONGS.get(output, 8),
+                    (long) LONGS.get(output, 16),
+                    (long) LONGS.get(output, 24));
+        }
+    }
+}
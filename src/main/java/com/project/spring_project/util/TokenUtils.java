@@ -1,29 +1,37 @@
 package com.project.spring_project.util;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
 public class TokenUtils {
 
     /**
      * Hashes a given token using SHA-256 algorithm.
+     * <p>
+     * The digest is computed by {@link TokenDigest}, which reuses a per-thread MessageDigest.
      *
      * @param token the token to be hashed
      * @return the hashed token as a hexadecimal string
      */
     public static String hashedToken(String token) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashedBytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing token", e);
+        return TokenDigest.of(token).toHex();
+    }
+
+    /**
+     * Compares two hashed tokens in constant time.
+     * <p>
+     * The running time only depends on the length of the values, not on where they differ.
+     *
+     * @param a the first hashed token
+     * @param b the second hashed token
+     * @return true if both values are equal
+     */
+    public static boolean constantTimeEquals(String a, String b) {
+        if (a == null || b == null || a.length() != b.length()) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < a.length(); i++) {
+            diff |= a.charAt(i) ^ b.charAt(i);
         }
+        return diff == 0;
     }
 
     public static String generateRandomCode(int i) {
@@ -1,5 +1,6 @@
 package com.project.spring_project;
 
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
 import com.project.spring_project.secutrity.services.RateLimitingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,8 +10,12 @@ public abstract class BaseTest {
     @Autowired
     protected RateLimitingService rateLimitingService;
 
+    @Autowired
+    protected HeavyHitterDetector heavyHitterDetector;
+
     @BeforeEach
     void resetRateLimit() {
         rateLimitingService.resetAll();
+        heavyHitterDetector.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request JWT work of the old filter path (three parser builds and three signature checks)
+ * with the single {@link JwtTokenProvider#verify(String)} call.
+ * <p>
+ * Run with the main method from the IDE, or {@code java -cp <test classpath> org.openjdk.jmh.Main JwtVerification}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String ISSUER = "my-spring-app";
+    private static final String AUDIENCE = "my-app-client";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = newProvider();
+        token = provider.generateJwtToken("benchmark-user", List.of("ROLE_USER"), 42L, "benchmark@example.com");
+    }
+
+    /**
+     * Builds a provider outside of Spring with the same settings as application.properties.
+     *
+     * @return an initialised JwtTokenProvider
+     */
+    static JwtTokenProvider newProvider() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", "benchmark-secret-key-long-enough-for-hs256");
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 900_000L);
+        ReflectionTestUtils.setField(provider, "jwtIssuer", ISSUER);
+        ReflectionTestUtils.setField(provider, "jwtAudience", AUDIENCE);
+        ReflectionTestUtils.setField(provider, "refreshExpirationInMs", 604_800_000L);
+        provider.init();
+        return provider;
+    }
+
+    @Benchmark
+    public String legacyValidateThenGetUsername() {
+        // validateToken -> getClaims
+        Claims claims = Jwts.parserBuilder().setSigningKey(provider.getKey()).build()
+                .parseClaimsJws(token).getBody();
+        // validateToken -> isTokenExpired -> getExpirationDate -> getClaims
+        Date expiration = Jwts.parserBuilder().setSigningKey(provider.getKey()).build()
+                .parseClaimsJws(token).getBody().getExpiration();
+        boolean valid = !expiration.before(new Date())
+                && claims.getIssuer().equals(ISSUER)
+                && claims.getAudience().equals(AUDIENCE);
+        if (!valid) {
+            return null;
+        }
+        // JwtAuthenticationFilter -> getUsernameFromJWT
+        return Jwts.parserBuilder().setSigningKey(provider.getKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String singleVerify() {
+        return provider.verify(token).map(VerifiedToken::getSubject).orElse(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.SpringProjectApplication;
+import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.dto.request.RegisterRequest;
+import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.service.user.AuthService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput against the dev database, through {@link AuthService#login(AuthRequest)}.
+ * <p>
+ * The BCrypt cost is pinned to 4 so the database round trips, not the hash, dominate the result. Needs the dev
+ * MySQL instance; run with the main method or {@code java -cp <test classpath> org.openjdk.jmh.Main Login}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String USERNAME = "login_benchmark_user";
+    private static final String PASSWORD = "BenchmarkPassword1!";
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private AuthRequest request;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .properties("app.bcryptCost=4", "spring.jpa.show-sql=false")
+                .run();
+        authService = context.getBean(AuthService.class);
+
+        if (context.getBean(UserRepository.class).findByUsername(USERNAME).isEmpty()) {
+            RegisterRequest register = new RegisterRequest();
+            register.setUsername(USERNAME);
+            register.setEmail(USERNAME + "@example.com");
+            register.setPassword(PASSWORD);
+            authService.register(register);
+        }
+
+        request = new AuthRequest();
+        request.setUsername(USERNAME);
+        request.setPassword(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        authService.deleteTestUser(USERNAME);
+        context.close();
+    }
+
+    @Benchmark
+    public Object login() {
+        return authService.login(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.project.spring_project.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.config.ConcurrencyLimitProperties;
+import com.project.spring_project.config.CorsConfig;
+import com.project.spring_project.config.SecurityConfig;
+import com.project.spring_project.secutrity.filter.CidrAccessFilter;
+import com.project.spring_project.secutrity.filter.ConcurrencyLimitFilter;
+import com.project.spring_project.secutrity.jwt.JwtAuthenticationEntryPoint;
+import com.project.spring_project.secutrity.jwt.JwtAuthenticationFilter;
+import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.secutrity.jwt.TokenRevocationList;
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
+import com.project.spring_project.secutrity.services.BCryptCostCalibrator;
+import com.project.spring_project.secutrity.services.CidrAccessList;
+import com.project.spring_project.secutrity.services.CidrTrie;
+import com.project.spring_project.secutrity.services.ConcurrencyLimiter;
+import com.project.spring_project.secutrity.services.PasswordService;
+import com.project.spring_project.secutrity.services.UserDetailsServiceImpl;
+import com.project.spring_project.util.LocalizationService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares an anonymous read of a public location route through the public read filter chain with the same
+ * request through the main chain, the only chain before.
+ * <p>
+ * Both chains are built by {@link SecurityConfig} in a plain application context, with the collaborators that need
+ * the database mocked; the controller itself is not called. Run with {@code -prof gc} to see the allocation per
+ * request: {@code java -cp <test classpath> org.openjdk.jmh.Main PublicRead -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicReadBenchmark {
+
+    private static final FilterChain CONTROLLER = (request, response) -> {
+    };
+
+    private AnnotationConfigApplicationContext context;
+    private FilterChainProxy application;
+    private FilterChainProxy mainChainOnly;
+
+    @Setup
+    public void setUp() {
+        BCryptCostCalibrator calibrator = mock(BCryptCostCalibrator.class);
+        when(calibrator.resolveCost()).thenReturn(BCryptCostCalibrator.MIN_COST);
+        LocalizationService localizationService = mock(LocalizationService.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        ConcurrencyLimitProperties.Group locations = new ConcurrencyLimitProperties.Group();
+        locations.setRoutes(List.of(SecurityConfig.PUBLIC_READ_ROUTES));
+        locations.setMaxLimit(Integer.MAX_VALUE);
+        locations.setInitialLimit(Integer.MAX_VALUE);
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setConcurrencyLimitGroups(Map.of("locations", locations));
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("app.oneSingleSignOn", "false")));
+        context.registerBean(JwtAuthenticationFilter.class, () -> new JwtAuthenticationFilter(
+                mock(JwtTokenProvider.class), mock(VerifiedTokenCache.class), mock(SessionRegistry.class),
+                mock(TokenRevocationList.class), mock(UserDetailsServiceImpl.class),
+                new JwtAuthenticationEntryPoint(), localizationService));
+        context.registerBean(CidrAccessFilter.class, () -> new CidrAccessFilter(
+                new CidrAccessList(null, null, CidrTrie.Action.ALLOW), localizationService, objectMapper));
+        context.registerBean(ConcurrencyLimitFilter.class, () -> new ConcurrencyLimitFilter(
+                new ConcurrencyLimiter(properties), localizationService, objectMapper));
+        context.registerBean(UserDetailsServiceImpl.class, () -> mock(UserDetailsServiceImpl.class));
+        context.registerBean(JwtAuthenticationEntryPoint.class);
+        context.registerBean(PasswordService.class, () -> mock(PasswordService.class));
+        context.registerBean(BCryptCostCalibrator.class, () -> calibrator);
+        context.register(CorsConfig.class, SecurityConfig.class);
+        context.refresh();
+
+        application = context.getBean(FilterChainProxy.class);
+        mainChainOnly = new FilterChainProxy(context.getBean("securityFilterChain", SecurityFilterChain.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/countries/1/states");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse publicReadChain() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        application.doFilter(request(), response, CONTROLLER);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mainChain() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        mainChainOnly.doFilter(request(), response, CONTROLLER);
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PublicReadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
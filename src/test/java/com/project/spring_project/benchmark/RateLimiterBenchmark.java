@@ -0,0 +1,81 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.secutrity.services.RateLimitPolicy;
+import com.project.spring_project.secutrity.services.RateLimited;
+import com.project.spring_project.secutrity.services.RateLimiterBackend;
+import com.project.spring_project.secutrity.services.TokenBucketTable;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous rate limiter, one Bucket4j bucket per client IP string in an unbounded map, with the
+ * {@link RateLimitPolicy} keyed by client address and backed by a fixed-size token bucket table.
+ * <p>
+ * Each call picks a random address out of {@code clients}. Run with {@code -prof gc} to see the allocation per
+ * call: {@code java -cp <test classpath> org.openjdk.jmh.Main RateLimiter -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int clients;
+
+    private String[] addresses;
+    private ConcurrentHashMap<String, Bucket> bucket4j;
+    private RateLimitPolicy table;
+
+    @Setup
+    public void setUp() {
+        addresses = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            addresses[i] = i % 4 == 0
+                    ? "2001:db8::" + Integer.toHexString(i >>> 16) + ":" + Integer.toHexString(i & 0xFFFF)
+                    : "10." + ((i >>> 16) & 0xFF) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+        }
+        bucket4j = new ConcurrentHashMap<>();
+        table = new RateLimitPolicy("auth", RateLimited.Key.IP,
+                new TokenBucketTable(clients, 5, Duration.ofMinutes(1), System::nanoTime), Map.of());
+    }
+
+    private String nextAddress() {
+        return addresses[ThreadLocalRandom.current().nextInt(clients)];
+    }
+
+    /**
+     * The implementation of the rate limiter before the token bucket table.
+     */
+    @Benchmark
+    public boolean bucket4jPerKey() {
+        Bucket bucket = bucket4j.computeIfAbsent(nextAddress(), key ->
+                Bucket.builder().addLimit(Bandwidth.classic(5, Refill.greedy(5, Duration.ofMinutes(1)))).build());
+        return bucket.tryConsume(1);
+    }
+
+    @Benchmark
+    public boolean tokenBucketTable() {
+        return RateLimiterBackend.allowed(table.tryConsume(nextAddress(), null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.SpringProjectApplication;
+import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.dto.request.RefreshTokenRequest;
+import com.project.spring_project.dto.request.RegisterRequest;
+import com.project.spring_project.dto.response.AuthResponse;
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.service.user.AuthService;
+import com.project.spring_project.service.user.RefreshTokenService;
+import com.project.spring_project.util.TokenUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh token rotation against the dev database, for a user without history and one holding 10k used tokens.
+ * <p>
+ * A refresh only touches the presented token and its family, so both cases should take the same time. Tokens of
+ * one user are rotated in sequence, hence a single thread. Needs the dev MySQL instance; run with the main method
+ * or {@code java -cp <test classpath> org.openjdk.jmh.Main RefreshToken}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(1)
+@Fork(1)
+public class RefreshTokenBenchmark {
+
+    private static final String USERNAME = "refresh_benchmark_user";
+    private static final String PASSWORD = "BenchmarkPassword1!";
+
+    @Param({"0", "10000"})
+    private int historicalTokens;
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private RefreshTokenService refreshTokenService;
+    private RefreshTokenRequest request;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .properties("app.bcryptCost=4", "spring.jpa.show-sql=false")
+                .run();
+        authService = context.getBean(AuthService.class);
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+
+        authService.deleteTestUser(USERNAME);
+        RegisterRequest register = new RegisterRequest();
+        register.setUsername(USERNAME);
+        register.setEmail(USERNAME + "@example.com");
+        register.setPassword(PASSWORD);
+        authService.register(register);
+
+        User user = context.getBean(UserRepository.class).findByUsername(USERNAME).orElseThrow();
+        insertHistory(context.getBean(JdbcTemplate.class), user.getId());
+
+        AuthRequest login = new AuthRequest();
+        login.setUsername(USERNAME);
+        login.setPassword(PASSWORD);
+        request = new RefreshTokenRequest();
+        request.setRefreshToken(authService.login(login).getRefreshToken());
+    }
+
+    private void insertHistory(JdbcTemplate jdbcTemplate, Long userId) {
+        Timestamp expiry = Timestamp.from(Instant.now().plus(7, ChronoUnit.DAYS));
+        List<Object[]> rows = new ArrayList<>(historicalTokens);
+        for (int i = 0; i < historicalTokens; i++) {
+            rows.add(new Object[]{TokenUtils.hashedToken(UUID.randomUUID().toString()), expiry, userId});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO refresh_token (token_hash, expiry_date, user_id, used) VALUES (?, ?, ?, TRUE)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        authService.deleteTestUser(USERNAME);
+        context.close();
+    }
+
+    @Benchmark
+    public AuthResponse refresh() {
+        AuthResponse response = refreshTokenService.refreshAccessToken(request);
+        request.setRefreshToken(response.getRefreshToken());
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RefreshTokenBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
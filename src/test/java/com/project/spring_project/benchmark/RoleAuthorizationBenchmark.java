@@ -0,0 +1,74 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.controller.TestController;
+import com.project.spring_project.entity.user.Role;
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.RoleCatalog;
+import com.project.spring_project.secutrity.services.RoleMaskAuthorizationManager;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the SpEL evaluation of {@code hasRole('AUDITOR') or hasRole('ADMIN')} with its compiled bit test, for an
+ * admin, who only passes the second check.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per check:
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main RoleAuthorization -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleAuthorizationBenchmark {
+
+    private PreAuthorizeAuthorizationManager spel;
+    private RoleMaskAuthorizationManager roleMask;
+    private MethodInvocation invocation;
+    private Supplier<Authentication> authentication;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Role admin = new Role(1L, "ADMIN", null);
+        RoleCatalog catalog = new RoleCatalog(List.of(admin, new Role(2L, "AUDITOR", null), new Role(3L, "USER", null)));
+        spel = new PreAuthorizeAuthorizationManager();
+        roleMask = new RoleMaskAuthorizationManager(() -> catalog, spel);
+        invocation = new SimpleMethodInvocation(new TestController(null),
+                TestController.class.getMethod("auditorEndpoint"));
+
+        User user = new User();
+        user.setUsername("admin");
+        user.setRoles(Set.of(admin));
+        CustomUserDetails details = new CustomUserDetails(user);
+        Authentication token = new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities());
+        authentication = () -> token;
+    }
+
+    @Benchmark
+    public boolean spelExpression() {
+        return spel.authorize(authentication, invocation).isGranted();
+    }
+
+    @Benchmark
+    public boolean roleMaskBitTest() {
+        return roleMask.authorize(authentication, invocation).isGranted();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoleAuthorizationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.spring_project.benchmark;
+
+import com.project.spring_project.util.TokenDigest;
+import com.project.spring_project.util.TokenUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous {@code TokenUtils.hashedToken} (new MessageDigest and one String.format per byte) with
+ * the per-thread {@link TokenDigest}, and String.equals with the constant-time digest comparison.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per operation:
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main TokenDigest -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenDigestBenchmark {
+
+    private String token;
+    private String storedHex;
+    private TokenDigest storedDigest;
+
+    @Setup
+    public void setUp() {
+        token = JwtVerificationBenchmark.newProvider()
+                .generateJwtToken("benchmark-user", List.of("ROLE_USER"), 42L, "benchmark@example.com");
+        storedHex = TokenUtils.hashedToken(token);
+        storedDigest = TokenDigest.fromHex(storedHex);
+    }
+
+    /**
+     * The implementation of TokenUtils.hashedToken before the digest was reused.
+     */
+    private static String legacyHashedToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashedBytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hashedBytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing token", e);
+        }
+    }
+
+    @Benchmark
+    public String legacyHash() {
+        return legacyHashedToken(token);
+    }
+
+    @Benchmark
+    public String hexHash() {
+        return TokenUtils.hashedToken(token);
+    }
+
+    @Benchmark
+    public TokenDigest binaryDigest() {
+        return TokenDigest.of(token);
+    }
+
+    @Benchmark
+    public boolean legacyHashAndEquals() {
+        return legacyHashedToken(token).equals(storedHex);
+    }
+
+    @Benchmark
+    public boolean binaryDigestAndMatches() {
+        return TokenDigest.of(token).matches(storedDigest);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenDigestBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
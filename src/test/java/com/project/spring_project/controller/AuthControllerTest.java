@@ -22,6 +22,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -30,6 +33,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -68,6 +72,16 @@ public class AuthControllerTest extends BaseTest {
         return authResponse.getToken();
     }
 
+    /**
+     * Performs a request to an endpoint that completes on the password hashing pool and dispatches its result.
+     */
+    private ResultActions performAsync(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
     /*
     #############   REGISTER
     */
@@ -135,7 +149,7 @@ public class AuthControllerTest extends BaseTest {
         loginRequest.setUsername(testUserUtil.getTestUsername());
         loginRequest.setPassword(testUserUtil.getRawPassword());
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(loginRequest)))
                 .andExpect(status().isOk())
@@ -144,7 +158,7 @@ public class AuthControllerTest extends BaseTest {
 
     @Test
     public void loginShouldReturnToken() throws Exception {
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(testUserUtil.getRequestBody()))
                 .andExpect(status().isOk())
@@ -155,7 +169,7 @@ public class AuthControllerTest extends BaseTest {
     void loginWithInvalidCredentialsShouldFail() throws Exception {
         String invalidRequest = "{\"username\": \""+testUserUtil.getTestUsername()+"\", \"password\": \"Wrongpassword1!\"}";
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(invalidRequest))
                 .andExpect(status().isUnauthorized());
@@ -196,7 +210,7 @@ public class AuthControllerTest extends BaseTest {
         loginRequest.setUsername(user.getUsername());
         loginRequest.setPassword(testUserUtil.getRawPassword());
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(loginRequest)))
                 .andExpect(status().isLocked()) // or .isForbidden() depending on implementation
@@ -209,7 +223,7 @@ public class AuthControllerTest extends BaseTest {
         loginRequest.setUsername(testUserUtil.getTestUsername());
         loginRequest.setPassword(testUserUtil.getRawPassword());
 
-        MvcResult result = mockMvc.perform(post("/api/auth/login")
+        MvcResult result = performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(loginRequest)))
                 .andExpect(status().isOk())
@@ -281,6 +295,45 @@ public class AuthControllerTest extends BaseTest {
                 .andExpect(status().isForbidden());
     }
 
+    /*
+    #############   LOGOUT
+    */
+
+    @Test
+    void logout_revokesAccessTokenAndRefreshToken() throws Exception {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(testUserUtil.getTestUsername());
+        request.setPassword(testUserUtil.getRawPassword());
+        AuthResponse authResponse = testUserUtil.getAuthService().login(request);
+
+        mockMvc.perform(get("/api/test/user")
+                        .header("Authorization", "Bearer " + authResponse.getToken()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + authResponse.getToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + authResponse.getRefreshToken() + "\"}"))
+                .andExpect(status().isOk());
+
+        // The access token is rejected even though it has not expired
+        mockMvc.perform(get("/api/test/user")
+                        .header("Authorization", "Bearer " + authResponse.getToken()))
+                .andExpect(status().isUnauthorized());
+
+        // And the refresh token of the session can no longer be used
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + authResponse.getRefreshToken() + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void logout_withoutToken_isRejected() throws Exception {
+        mockMvc.perform(post("/api/auth/logout"))
+                .andExpect(status().isUnauthorized());
+    }
+
     /*
     #############   PASSWORD RECOVERY
     */
@@ -332,7 +385,7 @@ public class AuthControllerTest extends BaseTest {
         assertTrue(passwordResetToken.isPresent(), "Token should be created");
 
         String newPassword = "newSecurePassword1!";
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"token\": \"" + passwordResetToken.get().getToken() + "\", \"newPassword\": \"" + newPassword + "\"}"))
                 .andExpect(status().isOk());
@@ -362,7 +415,7 @@ public class AuthControllerTest extends BaseTest {
         passwordResetToken.get().setExpiryDate(LocalDateTime.now().minusMinutes(1));
         testUserUtil.getPasswordResetTokenRepository().save(passwordResetToken.get());
 
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"token\": \"" + passwordResetToken.get().getToken() + "\", \"newPassword\": \"irrelevant1!\"}"))
                 .andExpect(status().isBadRequest());
@@ -394,13 +447,13 @@ public class AuthControllerTest extends BaseTest {
 
         // First attempt - success
         String newPassword = "newSecurePassword1!";
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"token\": \"" + passwordResetToken.get().getToken() + "\", \"newPassword\": \""+newPassword+"\"}"))
                 .andExpect(status().isOk());
 
         // Second attempt - should fail
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"token\": \"" + passwordResetToken.get().getToken() + "\", \"newPassword\": \"irrelevant1!\"}"))
                 .andExpect(status().isBadRequest());
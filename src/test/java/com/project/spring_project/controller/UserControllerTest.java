@@ -133,6 +133,31 @@ public class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void revokeUserSessions_shouldRejectExistingTokens() throws Exception {
+        String token = getToken();
+
+        mockMvc.perform(post("/api/users/" + currentUser.getId() + "/sessions/revoke")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/" + currentUser.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+        // A new login is not affected by the revocation
+        mockMvc.perform(get("/api/users/" + currentUser.getId())
+                        .header("Authorization", "Bearer " + getToken()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void revokeRoleSessions_shouldReturnOk() throws Exception {
+        mockMvc.perform(post("/api/users/roles/AUDITOR/sessions/revoke")
+                        .header("Authorization", "Bearer " + getToken()))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void changeLanguage_shouldReturnOk() throws Exception {
         String body = "{\"language\": \"es\"}";
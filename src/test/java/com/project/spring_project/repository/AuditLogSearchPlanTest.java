@@ -0,0 +1,147 @@
+package com.project.spring_project.repository;
+
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
+import com.project.spring_project.entity.AuditLog;
+import com.project.spring_project.utils.TestUserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with EXPLAIN that every audit log search filter, alone or with a time range, reads an index range instead of
+ * scanning audit_log.
+ */
+@SpringBootTest
+@Profile("dev")
+public class AuditLogSearchPlanTest {
+
+    private static final String DETAILS = "audit-search-plan-test";
+    private static final long FIRST_USER = 990_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final String RANGE = "timestamp >= ? AND timestamp < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private TestUserUtil testUserUtil;
+
+    private Long testUserId;
+
+    /**
+     * Inserts 5000 entries of 50 users, one of them the test user, so that the optimizer sees selective indexes.
+     */
+    @BeforeEach
+    void setUp() {
+        testUserUtil.registerUserIfNotExists();
+        testUserId = testUserUtil.fingUserByUsername(testUserUtil.getTestUsername()).orElseThrow().getId();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long userId = i % 50 == 0 ? testUserId : FIRST_USER + i % 50;
+            rows.add(new Object[]{UUID.randomUUID().toString(), userId, "OPERATION_" + i % 10,
+                    Timestamp.valueOf(START.plusMinutes(i)), DETAILS, "/api/resource/" + i % 20, "10.0.0." + i % 100});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO audit_log (event_id, user_id, operation, timestamp, details, resource, "
+                + "ip_address) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE TABLE audit_log");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM audit_log WHERE details = ?", DETAILS);
+        testUserUtil.deleteTestUser();
+    }
+
+    private Map<String, Object> explain(String where, Object... args) {
+        String sql = "EXPLAIN SELECT id FROM audit_log" + (where.isEmpty() ? "" : " WHERE " + where)
+                + " ORDER BY timestamp DESC LIMIT 20";
+        return jdbcTemplate.queryForList(sql, args).stream()
+                .filter(row -> "audit_log".equals(row.get("table")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void assertUsesIndex(String index, String where, Object... args) {
+        Map<String, Object> plan = explain(where, args);
+        assertEquals(index, plan.get("key"), where);
+        assertNotEquals("ALL", plan.get("type"), where);
+    }
+
+    private static Object[] withRange(Object... args) {
+        Object[] all = new Object[args.length + 2];
+        System.arraycopy(args, 0, all, 0, args.length);
+        all[args.length] = Timestamp.valueOf(START.plusHours(10));
+        all[args.length + 1] = Timestamp.valueOf(START.plusHours(20));
+        return all;
+    }
+
+    @Test
+    void eachFilterUsesItsIndex() {
+        assertUsesIndex("ix_audit_log_user_id_timestamp", "user_id = ?", FIRST_USER + 1);
+        assertUsesIndex("ix_audit_log_operation_timestamp", "operation = ?", "OPERATION_3");
+        assertUsesIndex("ix_audit_log_ip_address_timestamp", "ip_address = ?", "10.0.0.7");
+        assertUsesIndex("ix_audit_log_resource_timestamp", "resource LIKE ? ESCAPE '\\\\'", "/api/resource/7%");
+        assertUsesIndex("ix_audit_log_timestamp", RANGE, withRange());
+        assertUsesIndex("ix_audit_log_timestamp", "");
+    }
+
+    @Test
+    void eachFilterWithTimeRangeUsesItsIndex() {
+        assertUsesIndex("ix_audit_log_user_id_timestamp", "user_id = ? AND " + RANGE, withRange(FIRST_USER + 1));
+        assertUsesIndex("ix_audit_log_operation_timestamp", "operation = ? AND " + RANGE, withRange("OPERATION_3"));
+        assertUsesIndex("ix_audit_log_ip_address_timestamp", "ip_address = ? AND " + RANGE, withRange("10.0.0.7"));
+    }
+
+    @Test
+    void combinedFiltersUseOneOfTheIndexes() {
+        Map<String, Object> plan = explain("user_id = ? AND operation = ? AND ip_address = ? AND " + RANGE,
+                withRange(FIRST_USER + 1, "OPERATION_1", "10.0.0.1"));
+
+        assertTrue(String.valueOf(plan.get("key")).startsWith("ix_audit_log_"), String.valueOf(plan.get("key")));
+        assertNotEquals("ALL", plan.get("type"));
+    }
+
+    @Test
+    void specificationsMatchTheFilters() {
+        AuditLogSearchRequest search = new AuditLogSearchRequest();
+        search.setUserId(testUserId);
+        search.setOperation("OPERATION_0");
+        search.setResource("/api/resource/1");
+        search.setFrom(START);
+        search.setTo(START.plusMinutes(1000));
+
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "timestamp");
+        Slice<AuditLog> first = auditLogRepository.findSlice(AuditLogSpecifications.matching(search),
+                PageRequest.of(0, 4, newestFirst));
+        Slice<AuditLog> last = auditLogRepository.findSlice(AuditLogSpecifications.matching(search),
+                PageRequest.of(2, 4, newestFirst));
+
+        // Entries 50, 150, ..., 950: the test user, operation 0 and resource 10
+        assertEquals(4, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(START.plusMinutes(950), first.getContent().get(0).getTimestamp());
+        assertTrue(first.getContent().stream().allMatch(entry -> entry.getUser().getId().equals(testUserId)));
+        assertEquals(2, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+        assertEquals(START.plusMinutes(150), last.getContent().get(0).getTimestamp());
+    }
+}
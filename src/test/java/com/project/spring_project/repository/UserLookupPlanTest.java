@@ -0,0 +1,127 @@
+package com.project.spring_project.repository;
+
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.utils.RecordingStatementInspector;
+import com.project.spring_project.utils.TestUserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with EXPLAIN that login lookups use the normalized identifier indexes instead of scanning users.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.project.spring_project.utils.RecordingStatementInspector")
+@Profile("dev")
+public class UserLookupPlanTest {
+
+    private static final String FILLER = "lookup-plan-test-";
+    private static final Pattern USERS_ALIAS = Pattern.compile("from users (\\w+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestUserUtil testUserUtil;
+
+    /**
+     * Inserts 2000 users besides the test user, so that the optimizer sees selective indexes.
+     */
+    @BeforeEach
+    void setUp() {
+        testUserUtil.registerUserIfNotExists();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String username = FILLER + i;
+            String email = username + "@example.com";
+            rows.add(new Object[]{username, "-", email, username, email});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, email, username_normalized, "
+                + "email_normalized) VALUES (?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE TABLE users");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", FILLER + "%");
+        testUserUtil.deleteTestUser();
+    }
+
+    private Map<String, Object> explainUsers(String where, Object... args) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN SELECT id FROM users WHERE " + where, args);
+        return plan.stream()
+                .filter(row -> "users".equals(row.get("table")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void eachIdentifierIsAnIndexLookup() {
+        String username = User.normalizeIdentifier(testUserUtil.getTestUsername());
+        String email = User.normalizeIdentifier(testUserUtil.getEmail());
+
+        Map<String, Object> byUsername = explainUsers("username_normalized = ?", username);
+        Map<String, Object> byEmail = explainUsers("email_normalized = ?", email);
+
+        assertEquals("ux_users_username_normalized", byUsername.get("key"));
+        assertEquals("ux_users_email_normalized", byEmail.get("key"));
+        assertNotEquals("ALL", byUsername.get("type"));
+        assertNotEquals("ALL", byEmail.get("type"));
+    }
+
+    /**
+     * Explains the statement {@link UserRepository#findByNormalizedIdentifier} issues, roles join included.
+     */
+    private Map<String, Object> explainLoginLookup(String identifier) {
+        RecordingStatementInspector.clear();
+        userRepository.findByUsernameOrEmail(identifier);
+        String sql = RecordingStatementInspector.statements().stream()
+                .filter(statement -> statement.contains("username_normalized"))
+                .findFirst()
+                .orElseThrow();
+
+        Matcher alias = USERS_ALIAS.matcher(sql);
+        assertTrue(alias.find(), sql);
+        Object[] args = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        Arrays.fill(args, User.normalizeIdentifier(identifier));
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, args).stream()
+                .filter(row -> alias.group(1).equals(row.get("table")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void loginConditionUsesBothIndexes() {
+        Map<String, Object> plan = explainLoginLookup(testUserUtil.getEmail());
+
+        String key = String.valueOf(plan.get("key"));
+        assertNotEquals("ALL", plan.get("type"), plan.toString());
+        assertTrue(key.contains("ux_users_username_normalized"), plan.toString());
+        assertTrue(key.contains("ux_users_email_normalized"), plan.toString());
+    }
+
+    @Test
+    void loginLookupIgnoresCaseAndSpaces() {
+        String mixedCase = "  " + testUserUtil.getEmail().toUpperCase() + " ";
+
+        assertTrue(userRepository.findByUsernameOrEmail(mixedCase).isPresent());
+        assertTrue(userRepository.findByUsernameOrEmail(testUserUtil.getTestUsername().toUpperCase()).isPresent());
+    }
+}
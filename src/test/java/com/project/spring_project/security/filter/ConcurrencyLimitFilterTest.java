@@ -0,0 +1,159 @@
+package com.project.spring_project.security.filter;
+
+import com.project.spring_project.BaseTest;
+import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.entity.user.Role;
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.exception.BadRequestException;
+import com.project.spring_project.secutrity.services.AdaptiveConcurrencyLimit;
+import com.project.spring_project.secutrity.services.ConcurrencyLimiter;
+import com.project.spring_project.utils.TestUserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConcurrencyLimitFilterTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private TestUserUtil testUserUtil;
+
+    @BeforeEach
+    void setupTestUser() {
+        testUserUtil.registerUserIfNotExists();
+    }
+
+    @AfterEach
+    void cleanTestUser() {
+        testUserUtil.deleteTestUser();
+    }
+
+    private AdaptiveConcurrencyLimit limit(String group) {
+        return concurrencyLimiter.getLimits().stream()
+                .filter(limit -> limit.getName().equals(group))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private String groupOf(String contextPath, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setContextPath(contextPath);
+        AdaptiveConcurrencyLimit limit = concurrencyLimiter.limitFor(request);
+        return limit == null ? null : limit.getName();
+    }
+
+    private String getToken() {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(testUserUtil.getTestUsername());
+        request.setPassword(testUserUtil.getRawPassword());
+        return testUserUtil.getAuthService().login(request).getToken();
+    }
+
+    @Test
+    void requestsTakeTheFirstMatchingGroup() {
+        assertEquals("exports", groupOf("", "/api/audit/audit-logs/export"), "Listed before admin");
+        assertEquals("admin", groupOf("", "/api/audit/audit-logs"));
+        assertEquals("auth", groupOf("", "/api/auth/login"));
+        assertEquals("auth", groupOf("/app", "/app/api/auth/login"));
+        assertEquals("locations", groupOf("", "/api/countries/1/states"));
+        assertNull(groupOf("", "/actuator/health"));
+    }
+
+    @Test
+    void saturatedGroupAnswers503() throws Exception {
+        AdaptiveConcurrencyLimit exports = limit("exports");
+        int held = 0;
+        try {
+            while (exports.tryAcquire()) {
+                held++;
+            }
+            long rejected = exports.getRejected();
+
+            // Shed before authentication, so no token is needed
+            mockMvc.perform(get("/api/audit/audit-logs/export")
+                            .header(HttpHeaders.ACCEPT_LANGUAGE, "es"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.status").value(503))
+                    .andExpect(jsonPath("$.message").value(
+                            messageSource.getMessage("exception.server.busy", null, Locale.forLanguageTag("es"))));
+
+            assertEquals(rejected + 1, exports.getRejected());
+            assertEquals(held, exports.getInFlight(), "A rejected request holds no slot");
+        } finally {
+            for (int i = 0; i < held; i++) {
+                exports.release(0);
+            }
+        }
+    }
+
+    @Test
+    void asyncRequestHoldsItsSlotUntilItCompletes() throws Exception {
+        AdaptiveConcurrencyLimit auth = limit("auth");
+        int inFlight = auth.getInFlight();
+
+        MvcResult started = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(testUserUtil.getRequestBody()))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        assertEquals(inFlight + 1, auth.getInFlight());
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+        assertEquals(inFlight, auth.getInFlight());
+    }
+
+    @Test
+    void concurrencyEndpointRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/concurrency"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/concurrency")
+                        .header("Authorization", "Bearer " + getToken()))
+                .andExpect(status().isForbidden());
+
+        User user = testUserUtil.getUserRepository().findByUsername(testUserUtil.getTestUsername())
+                .orElseThrow(() -> new BadRequestException("User not found"));
+        Role role = testUserUtil.getRoleRepository().findByName("ADMIN")
+                .orElseThrow(() -> new BadRequestException("Role not found"));
+        user.setRoles(Set.of(role));
+        testUserUtil.getUserRepository().save(user);
+
+        mockMvc.perform(get("/actuator/concurrency")
+                        .header("Authorization", "Bearer " + getToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].group").value("exports"))
+                .andExpect(jsonPath("$[0].limit").value(2));
+    }
+}
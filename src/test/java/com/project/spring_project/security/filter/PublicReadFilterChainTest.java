@@ -0,0 +1,91 @@
+package com.project.spring_project.security.filter;
+
+import com.project.spring_project.BaseTest;
+import com.project.spring_project.secutrity.filter.CidrAccessFilter;
+import com.project.spring_project.secutrity.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PublicReadFilterChainTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilterChainProxy filterChainProxy;
+
+    @Autowired
+    @Qualifier("jwtFilterRegistration")
+    private FilterRegistrationBean<?> jwtFilterRegistration;
+
+    private List<Filter> filtersFor(MockHttpServletRequest request) {
+        return filterChainProxy.getFilterChains().stream()
+                .filter(chain -> chain.matches(request))
+                .findFirst()
+                .map(SecurityFilterChain::getFilters)
+                .orElseThrow();
+    }
+
+    private static long count(List<Filter> filters, Class<? extends Filter> type) {
+        return filters.stream().filter(type::isInstance).count();
+    }
+
+    @Test
+    void jwtFilterIsNotRegisteredAsAServletFilter() {
+        assertFalse(jwtFilterRegistration.isEnabled());
+    }
+
+    @Test
+    void anonymousPublicReadsSkipAuthentication() {
+        List<Filter> filters = filtersFor(new MockHttpServletRequest("GET", "/api/countries/1/states"));
+
+        assertEquals(0, count(filters, JwtAuthenticationFilter.class));
+        assertEquals(0, count(filters, SecurityContextHolderFilter.class));
+        assertEquals(0, count(filters, AnonymousAuthenticationFilter.class));
+        assertEquals(1, count(filters, CidrAccessFilter.class), "Denied networks are still rejected");
+    }
+
+    @Test
+    void otherRequestsRunTheJwtFilterOnce() {
+        MockHttpServletRequest withToken = new MockHttpServletRequest("GET", "/api/countries");
+        withToken.addHeader("Authorization", "Bearer token");
+        assertEquals(1, count(filtersFor(withToken), JwtAuthenticationFilter.class));
+
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/auth/login");
+        assertEquals(1, count(filtersFor(write), JwtAuthenticationFilter.class));
+    }
+
+    @Test
+    void publicReadsKeepTheSecurityHeaders() throws Exception {
+        mockMvc.perform(get("/api/countries"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Security-Policy", "default-src 'self'"))
+                .andExpect(header().string("X-Frame-Options", "SAMEORIGIN"));
+    }
+
+    @Test
+    void invalidTokensAreStillRejectedOnPublicReads() throws Exception {
+        mockMvc.perform(get("/api/countries").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+}
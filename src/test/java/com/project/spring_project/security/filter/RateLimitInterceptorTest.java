@@ -7,14 +7,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
-class RateLimitingFilterTest extends BaseTest {
+class RateLimitInterceptorTest extends BaseTest {
 
     @Autowired
     private MockMvc mockMvc;
@@ -24,9 +28,12 @@ class RateLimitingFilterTest extends BaseTest {
         String endpoint = "/api/auth/login"; // or any endpoint protected by rate limiting
 
         for (int i = 0; i < 5; i++) {
-            mockMvc.perform(post(endpoint)
+            MvcResult result = mockMvc.perform(post(endpoint)
                             .contentType(MediaType.APPLICATION_JSON)
                             .content("{\"username\":\"user\", \"password\":\"Password123!\"}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isUnauthorized());
         }
 
@@ -34,6 +41,8 @@ class RateLimitingFilterTest extends BaseTest {
         mockMvc.perform(post(endpoint)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"username\":\"user\", \"password\":\"Password123!\"}"))
-                .andExpect(status().isTooManyRequests());
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("RateLimit-Remaining", "0"))
+                .andExpect(header().exists("Retry-After"));
     }
 }
\ No newline at end of file
@@ -3,7 +3,9 @@ package com.project.spring_project.security.jwt;
 import com.project.spring_project.entity.user.Role;
 import com.project.spring_project.entity.user.User;
 import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.VerifiedToken;
 import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.RoleCatalog;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -16,7 +18,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.test.context.TestPropertySource;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +35,9 @@ public class JwtTokenProviderTest {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private RoleCatalog roleCatalog;
+
     @BeforeEach
     void setUp() {
 
@@ -79,6 +87,32 @@ public class JwtTokenProviderTest {
         assertEquals("testuser", username);
     }
 
+    @Test
+    void testVerifyReturnsClaims() {
+        String token = jwtTokenProvider.generateJwtToken("testuser", List.of("USER"), 7L, "testuser@example.com");
+
+        Optional<VerifiedToken> verified = jwtTokenProvider.verify(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals("testuser", verified.get().getSubject());
+        assertEquals(7L, verified.get().getUserId());
+        assertEquals(List.of("USER"), verified.get().getRoles());
+        assertEquals("testuser@example.com", verified.get().getEmail());
+        assertEquals(roleCatalog.bitOf("USER"), verified.get().getRoleMask());
+        assertTrue(verified.get().getExpiration().isAfter(Instant.now()));
+    }
+
+    @Test
+    void testVerifyRejectsTokenWithoutIssuer() {
+        String token = Jwts.builder()
+                .setSubject("user")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(jwtTokenProvider.getKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtTokenProvider.verify(token).isEmpty());
+    }
+
     @Test
     void testTokenExpiration() {
         String token = Jwts.builder()
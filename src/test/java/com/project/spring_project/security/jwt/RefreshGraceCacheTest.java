@@ -0,0 +1,113 @@
+package com.project.spring_project.security.jwt;
+
+import com.project.spring_project.dto.response.AuthResponse;
+import com.project.spring_project.secutrity.jwt.RefreshGraceCache;
+import com.project.spring_project.util.TokenDigest;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefreshGraceCacheTest {
+
+    private static final TokenDigest TOKEN = TokenDigest.of("refresh-token");
+
+    private static AuthResponse response(int n) {
+        return new AuthResponse("access-" + n, "refresh-" + n);
+    }
+
+    @Test
+    void duplicateWithinTheWindowGetsTheFirstResponse() {
+        RefreshGraceCache cache = new RefreshGraceCache(10_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        AuthResponse first = cache.refresh(TOKEN, () -> response(calls.incrementAndGet()));
+        AuthResponse second = cache.refresh(TOKEN, () -> response(calls.incrementAndGet()));
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheRunningRefresh() throws Exception {
+        RefreshGraceCache cache = new RefreshGraceCache(10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<AuthResponse> first = CompletableFuture.supplyAsync(() -> cache.refresh(TOKEN, () -> {
+            started.countDown();
+            await(release);
+            return response(1);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<AuthResponse> second = CompletableFuture.supplyAsync(
+                () -> cache.refresh(TOKEN, () -> response(2)));
+
+        release.countDown();
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failedRefreshIsNotShared() {
+        RefreshGraceCache cache = new RefreshGraceCache(10_000);
+
+        assertThrows(IllegalStateException.class, () -> cache.refresh(TOKEN, () -> {
+            throw new IllegalStateException("used");
+        }));
+
+        assertEquals("access-2", cache.refresh(TOKEN, () -> response(2)).getToken());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void resultIsSharedOnlyAfterCommit() {
+        RefreshGraceCache cache = new RefreshGraceCache(10_000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.refresh(TOKEN, () -> response(1));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("access-2", cache.refresh(TOKEN, () -> response(2)).getToken());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void expiredResultIsNotShared() throws InterruptedException {
+        RefreshGraceCache cache = new RefreshGraceCache(20);
+
+        cache.refresh(TOKEN, () -> response(1));
+        Thread.sleep(40);
+
+        assertEquals("access-2", cache.refresh(TOKEN, () -> response(2)).getToken());
+    }
+
+    @Test
+    void zeroWindowDisablesTheCache() {
+        RefreshGraceCache cache = new RefreshGraceCache(0);
+
+        cache.refresh(TOKEN, () -> response(1));
+
+        assertEquals("access-2", cache.refresh(TOKEN, () -> response(2)).getToken());
+        assertEquals(0, cache.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.project.spring_project.security.jwt;
+
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.util.TokenDigest;
+import com.project.spring_project.util.TokenUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SessionRegistryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MutableClock clock = new MutableClock();
+
+    private SessionRegistry registry(int maxSessions) {
+        return new SessionRegistry(jdbcTemplate, maxSessions, 1000, 1000, clock);
+    }
+
+    /**
+     * Persisted sessions of user 1, as another instance wrote them.
+     */
+    private void persisted(String... tokens) {
+        String value = String.join(",", Arrays.stream(tokens).map(TokenUtils::hashedToken).toList());
+        when(jdbcTemplate.query(eq("SELECT active_token FROM users WHERE id = ?"), ArgumentMatchers.<ResultSetExtractor<String>>any(),
+                eq(1L))).thenReturn(value);
+    }
+
+    @Test
+    void singleSessionIsReplacedOnNewLogin() {
+        SessionRegistry registry = registry(1);
+        registry.register(1L, TokenDigest.of("a"));
+        registry.register(1L, TokenDigest.of("b"));
+
+        assertFalse(registry.isActive(1L, TokenDigest.of("a")));
+        assertTrue(registry.isActive(1L, TokenDigest.of("b")));
+        assertFalse(registry.isActive(2L, TokenDigest.of("b")));
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsDisplaced() {
+        SessionRegistry registry = registry(2);
+        registry.register(1L, TokenDigest.of("a"));
+        registry.register(1L, TokenDigest.of("b"));
+        registry.isActive(1L, TokenDigest.of("a")); // "b" is now the least recently used
+
+        registry.register(1L, TokenDigest.of("c"));
+
+        assertTrue(registry.isActive(1L, TokenDigest.of("a")));
+        assertFalse(registry.isActive(1L, TokenDigest.of("b")));
+        assertTrue(registry.isActive(1L, TokenDigest.of("c")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesChangedUsersOnceMostRecentFirst() {
+        SessionRegistry registry = registry(2);
+        registry.register(1L, TokenDigest.of("a"));
+        registry.register(1L, TokenDigest.of("b"));
+        registry.removeAll(2L); // unknown user: nothing to write
+
+        registry.flush();
+        registry.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertArrayEquals(new Object[]{TokenUtils.hashedToken("b") + "," + TokenUtils.hashedToken("a"), 1L},
+                batch.getValue().getFirst());
+    }
+
+    @Test
+    void registryIsRebuiltFromPersistedSessions() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getString("active_token"))
+                .thenReturn(TokenUtils.hashedToken("new") + "," + TokenUtils.hashedToken("old"));
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        SessionRegistry registry = registry(1);
+        registry.afterSingletonsInstantiated();
+
+        assertTrue(registry.isActive(7L, TokenDigest.of("new")));
+        assertFalse(registry.isActive(7L, TokenDigest.of("old")));
+    }
+
+    @Test
+    void tokenOfAnotherInstanceIsCheckedInTheDatabaseOnce() {
+        SessionRegistry registry = registry(1);
+        persisted("other");
+
+        assertTrue(registry.isActive(1L, TokenDigest.of("other"), clock.instant().minusSeconds(60)));
+        assertTrue(registry.isActive(1L, TokenDigest.of("other")));
+        assertFalse(registry.isActive(1L, TokenDigest.of("displaced"), clock.instant().minusSeconds(60)));
+        assertFalse(registry.isActive(1L, TokenDigest.of("displaced"), clock.instant().minusSeconds(60)));
+        verify(jdbcTemplate, times(2)).query(anyString(), ArgumentMatchers.<ResultSetExtractor<String>>any(), eq(1L));
+
+        clock.advance(Duration.ofSeconds(2));
+        assertFalse(registry.isActive(1L, TokenDigest.of("displaced")));
+        verify(jdbcTemplate, times(3)).query(anyString(), ArgumentMatchers.<ResultSetExtractor<String>>any(), eq(1L));
+    }
+
+    @Test
+    void unflushedLocalChangesWinOverThePersistedSessions() {
+        SessionRegistry registry = registry(1);
+        persisted("a");
+        registry.register(1L, TokenDigest.of("b"));
+
+        assertFalse(registry.isActive(1L, TokenDigest.of("a"), clock.instant().minusSeconds(60)));
+        assertTrue(registry.isActive(1L, TokenDigest.of("b")));
+    }
+
+    @Test
+    void tokenIssuedBeforeTheNextFlushIsAccepted() {
+        SessionRegistry registry = registry(1);
+
+        assertTrue(registry.isActive(1L, TokenDigest.of("new"), clock.instant().minusMillis(500)));
+        assertFalse(registry.isActive(1L, TokenDigest.of("old"), clock.instant().minusSeconds(60)));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-08-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.spring_project.security.jwt;
+
+import com.project.spring_project.BaseTest;
+import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.utils.TestUserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.jwtStatelessAuth=true")
+@Profile("dev")
+public class StatelessAuthenticationTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestUserUtil testUserUtil;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setupTestUser() {
+        testUserUtil.registerUserIfNotExists();
+    }
+
+    @AfterEach
+    void cleanTestUser() {
+        testUserUtil.deleteTestUser();
+    }
+
+    private String getToken() {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(testUserUtil.getTestUsername());
+        request.setPassword(testUserUtil.getRawPassword());
+        return testUserUtil.getAuthService().login(request).getToken();
+    }
+
+    @Test
+    void authenticatedRequest_doesNotLoadUserEntity() throws Exception {
+        String token = getToken();
+        clearInvocations(userRepository);
+
+        mockMvc.perform(get("/api/test/user")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept-Language", "en"))
+                .andExpect(status().isOk());
+
+        verify(userRepository, never()).findByUsernameOrEmail(anyString());
+    }
+
+    @Test
+    void rolesFromClaims_areEnforced() throws Exception {
+        mockMvc.perform(get("/api/test/admin")
+                        .header("Authorization", "Bearer " + getToken())
+                        .header("Accept-Language", "en"))
+                .andExpect(status().isForbidden());
+    }
+}
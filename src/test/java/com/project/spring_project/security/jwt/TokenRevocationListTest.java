@@ -0,0 +1,105 @@
+package com.project.spring_project.security.jwt;
+
+import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.TokenRevocationList;
+import com.project.spring_project.secutrity.jwt.VerifiedToken;
+import com.project.spring_project.util.TokenDigest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationListTest {
+
+    private static final long LIFETIME_MS = 900_000L;
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(LIFETIME_MS, 100);
+
+    private static VerifiedToken token(Long userId, List<String> roles, Instant expiration) {
+        Instant now = Instant.now();
+        return new VerifiedToken("user" + userId, userId, roles, null, now, expiration,
+                "issuer", "audience", JwtTokenProvider.nextGeneration());
+    }
+
+    private static VerifiedToken token(Long userId) {
+        return token(userId, List.of("ROLE_USER"), Instant.now().plusMillis(LIFETIME_MS));
+    }
+
+    @Test
+    void revokedTokenIsRejectedOthersAreNot() {
+        VerifiedToken loggedOut = token(1L);
+        VerifiedToken other = token(1L);
+        TokenDigest loggedOutDigest = TokenDigest.of("logged-out");
+
+        revocationList.revoke(loggedOutDigest, loggedOut.getExpiration(), 1L);
+
+        assertTrue(revocationList.isRevoked(loggedOutDigest, loggedOut));
+        assertFalse(revocationList.isRevoked(TokenDigest.of("other"), other));
+    }
+
+    @Test
+    void expiredTokenIsNotStored() {
+        VerifiedToken expired = token(1L, List.of("USER"), Instant.now().minusSeconds(1));
+        TokenDigest digest = TokenDigest.of("expired");
+
+        revocationList.revoke(digest, expired.getExpiration(), 1L);
+
+        assertFalse(revocationList.isRevoked(digest, expired));
+    }
+
+    @Test
+    void revokeUserRejectsOlderTokensOnly() {
+        VerifiedToken before = token(1L);
+        VerifiedToken otherUser = token(2L);
+
+        revocationList.revokeUser(1L);
+        VerifiedToken after = token(1L);
+
+        assertTrue(revocationList.isRevoked(TokenDigest.of("before"), before));
+        assertFalse(revocationList.isRevoked(TokenDigest.of("after"), after));
+        assertFalse(revocationList.isRevoked(TokenDigest.of("other"), otherUser));
+    }
+
+    @Test
+    void revokeRoleMatchesPrefixedAndPlainRoleNames() {
+        VerifiedToken loginToken = token(1L, List.of("ROLE_AUDITOR"), Instant.now().plusMillis(LIFETIME_MS));
+        VerifiedToken refreshToken = token(2L, List.of("AUDITOR"), Instant.now().plusMillis(LIFETIME_MS));
+        VerifiedToken userToken = token(3L);
+
+        revocationList.revokeRole("AUDITOR");
+
+        assertTrue(revocationList.isRevoked(TokenDigest.of("a"), loginToken));
+        assertTrue(revocationList.isRevoked(TokenDigest.of("b"), refreshToken));
+        assertFalse(revocationList.isRevoked(TokenDigest.of("c"), userToken));
+    }
+
+    @Test
+    void fullBucketFallsBackToRevokingTheUser() {
+        TokenRevocationList small = new TokenRevocationList(LIFETIME_MS, 1);
+        Instant expiration = Instant.now().plusMillis(LIFETIME_MS);
+        VerifiedToken first = token(1L, List.of("USER"), expiration);
+        VerifiedToken second = token(2L, List.of("USER"), expiration);
+
+        small.revoke(TokenDigest.of("first"), expiration, 1L);
+        small.revoke(TokenDigest.of("second"), expiration, 2L);
+
+        assertTrue(small.isRevoked(TokenDigest.of("first"), first));
+        assertTrue(small.isRevoked(TokenDigest.of("any-token-of-user-2"), second));
+    }
+
+    @Test
+    void pruneKeepsRevocationsOfUnexpiredTokens() {
+        VerifiedToken revoked = token(1L);
+        TokenDigest digest = TokenDigest.of("revoked");
+        revocationList.revoke(digest, revoked.getExpiration(), 1L);
+        revocationList.revokeUser(2L);
+        VerifiedToken userTwo = token(2L, List.of("USER"), Instant.now().plusMillis(LIFETIME_MS));
+
+        revocationList.prune();
+
+        assertTrue(revocationList.isRevoked(digest, revoked));
+        assertFalse(revocationList.isRevoked(TokenDigest.of("new"), userTwo));
+    }
+}
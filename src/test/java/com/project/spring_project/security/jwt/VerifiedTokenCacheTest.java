@@ -0,0 +1,116 @@
+package com.project.spring_project.security.jwt;
+
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
+import com.project.spring_project.secutrity.services.JwtUserPrincipal;
+import com.project.spring_project.util.TokenDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(100, 900_000L);
+    }
+
+    private static VerifiedTokenCache newCache(int maxEntries, long maxTtlMs) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "maxTtlMs", maxTtlMs);
+        return cache;
+    }
+
+    private static JwtUserPrincipal principal(Long id) {
+        return new JwtUserPrincipal(id, "user" + id, "user" + id + "@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private static TokenDigest digest(String token) {
+        return TokenDigest.of(token);
+    }
+
+    private void put(String token, Long userId, Instant expiration) {
+        cache.put(digest(token), userId, principal(userId), expiration, cache.stamp());
+    }
+
+    @Test
+    void getReturnsCachedEntryAndCountsHitsAndMisses() {
+        put("a", 1L, Instant.now().plusSeconds(60));
+
+        VerifiedTokenCache.Entry entry = cache.get(digest("a"));
+        assertNotNull(entry);
+        assertEquals(1L, entry.getUserId());
+        assertEquals("ROLE_USER", entry.getAuthorities().getFirst().getAuthority());
+        assertNull(cache.get(digest("b")));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void entryExpiresWithTheToken() {
+        put("expired", 1L, Instant.now().minusSeconds(1));
+        assertNull(cache.get(digest("expired")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void ttlIsCappedByMaxTtl() {
+        cache = newCache(100, 1_000L);
+        put("a", 1L, Instant.now().plusSeconds(600));
+
+        long expiresAt = cache.get(digest("a")).getExpiresAtMillis();
+        assertTrue(expiresAt <= System.currentTimeMillis() + 1_000L);
+    }
+
+    @Test
+    void invalidateUserRemovesOnlyThatUsersTokens() {
+        put("a1", 1L, Instant.now().plusSeconds(60));
+        put("a2", 1L, Instant.now().plusSeconds(60));
+        put("b1", 2L, Instant.now().plusSeconds(60));
+
+        cache.invalidateUser(1L);
+
+        assertNull(cache.get(digest("a1")));
+        assertNull(cache.get(digest("a2")));
+        assertNotNull(cache.get(digest("b1")));
+    }
+
+    @Test
+    void putAfterConcurrentInvalidationIsDiscarded() {
+        long stamp = cache.stamp();
+        cache.invalidateUser(1L); // rotation happens while the request is resolving the user
+
+        cache.put(digest("stale"), 1L, principal(1L), Instant.now().plusSeconds(60), stamp);
+
+        assertNull(cache.get(digest("stale")));
+    }
+
+    @Test
+    void sizeStaysBounded() {
+        cache = newCache(50, 900_000L);
+        for (long i = 0; i < 500; i++) {
+            put("t" + i, i, Instant.now().plusSeconds(60));
+        }
+
+        assertTrue(cache.size() <= 50);
+        assertTrue(cache.getEvictions() >= 450);
+    }
+
+    @Test
+    void zeroMaxEntriesDisablesCache() {
+        cache = newCache(0, 900_000L);
+        put("a", 1L, Instant.now().plusSeconds(60));
+        assertNull(cache.get(digest("a")));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.spring_project.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.config.ConcurrencyLimitProperties;
+import com.project.spring_project.secutrity.filter.ConcurrencyLimitFilter;
+import com.project.spring_project.secutrity.services.AdaptiveConcurrencyLimit;
+import com.project.spring_project.secutrity.services.ConcurrencyLimiter;
+import com.project.spring_project.util.LocalizationService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Starts at 10 in flight, between 2 and 50, cut by 0.5 above twice the baseline, with 100 ms windows.
+     */
+    private AdaptiveConcurrencyLimit limit() {
+        return new AdaptiveConcurrencyLimit("test", 10, 2, 50, 2.0, 0.5, 100, clock::get);
+    }
+
+    /**
+     * Runs one window of {@code concurrency} requests at a time, each taking {@code latencyMs}; the window ends with
+     * its last request.
+     */
+    private void window(AdaptiveConcurrencyLimit limit, int concurrency, long latencyMs) {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < concurrency; i++) {
+                assertTrue(limit.tryAcquire());
+            }
+            for (int i = 0; i < concurrency; i++) {
+                if (round == 9 && i == concurrency - 1) {
+                    clock.addAndGet(100 * MILLIS);
+                }
+                limit.release(latencyMs * MILLIS);
+            }
+        }
+    }
+
+    @Test
+    void requestsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimit limit = limit();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(1, limit.getRejected());
+
+        limit.release(MILLIS);
+        assertTrue(limit.tryAcquire());
+        assertEquals(10, limit.getInFlight());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndBacksOffWhenItRises() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        window(limit, 8, 5);
+        assertEquals(11, limit.getLimit(), "Most of the limit was used at baseline latency");
+        assertEquals(5 * MILLIS, limit.getBaselineNanos(), 1);
+
+        window(limit, 2, 5);
+        assertEquals(11, limit.getLimit(), "An idle group does not grow its limit");
+
+        window(limit, 8, 50);
+        assertEquals(5, limit.getLimit());
+        window(limit, 4, 50);
+        window(limit, 2, 50);
+        assertEquals(2, limit.getLimit(), "The limit stays above its minimum");
+
+        window(limit, 2, 5);
+        assertEquals(3, limit.getLimit(), "Recovers additively once latency is back to the baseline");
+    }
+
+    @Test
+    void filterShedsLoadAndHoldsSlotsOfAsyncRequests() throws Exception {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Group auth = new ConcurrencyLimitProperties.Group();
+        auth.setRoutes(List.of("/api/auth/**"));
+        auth.setInitialLimit(2);
+        properties.setConcurrencyLimitGroups(Map.of("auth", auth));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties, clock::get);
+        LocalizationService localizationService = mock(LocalizationService.class);
+        when(localizationService.get(anyString())).thenReturn("The server is busy.");
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, localizationService, new ObjectMapper());
+        AdaptiveConcurrencyLimit limit = limiter.getLimits().get(0);
+
+        MockHttpServletRequest async = new MockHttpServletRequest("POST", "/api/auth/login");
+        async.setAsyncSupported(true);
+        filter.doFilter(async, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertEquals(1, limit.getInFlight(), "The slot is held until the async request completes");
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/auth/login"), new MockHttpServletResponse(),
+                (request, response) -> assertEquals(2, limit.getInFlight()));
+        assertEquals(1, limit.getInFlight());
+
+        MockHttpServletRequest register = new MockHttpServletRequest("POST", "/api/auth/register");
+        register.setAsyncSupported(true);
+        filter.doFilter(register, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/auth/login"), rejected,
+                (request, response) -> fail("The request should have been rejected"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("The server is busy."));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/countries"), new MockHttpServletResponse(),
+                (request, response) -> assertEquals(2, limit.getInFlight(), "Other routes are not limited"));
+
+        MockAsyncContext context = (MockAsyncContext) async.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onComplete(new AsyncEvent(context));
+        }
+        assertEquals(1, limit.getInFlight());
+    }
+}
@@ -0,0 +1,101 @@
+package com.project.spring_project.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.secutrity.filter.CidrAccessFilter;
+import com.project.spring_project.secutrity.services.CidrAccessList;
+import com.project.spring_project.util.LocalizationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static com.project.spring_project.secutrity.services.CidrTrie.Action.ALLOW;
+import static com.project.spring_project.secutrity.services.CidrTrie.Action.DENY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CidrAccessListTest {
+
+    @TempDir
+    private Path directory;
+
+    private Path write(String name, String content, long modifiedSeconds) throws Exception {
+        Path file = directory.resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(modifiedSeconds)));
+        return file;
+    }
+
+    @Test
+    void listsAreLoadedAndSwappedWhenTheFilesChange() throws Exception {
+        Path deny = write("deny.txt", "; Published list\n203.0.113.0/24 ; SBL1\n\n2001:db8::/32 # test net\n", 1);
+        Path allow = write("allow.txt", "203.0.113.64/26\n", 1);
+        CidrAccessList accessList = new CidrAccessList(deny, allow, ALLOW);
+
+        assertEquals(DENY, accessList.check("203.0.113.7"));
+        assertEquals(ALLOW, accessList.check("203.0.113.70"), "Partner range inside a denied network");
+        assertEquals(DENY, accessList.check("2001:db8::1"));
+        assertEquals(ALLOW, accessList.check("198.51.100.1"));
+        assertFalse(accessList.reloadIfChanged());
+
+        write("deny.txt", "198.51.100.0/24\n", 2);
+        assertTrue(accessList.reloadIfChanged());
+        assertEquals(ALLOW, accessList.check("203.0.113.7"));
+        assertEquals(DENY, accessList.check("198.51.100.1"));
+        assertEquals(2, accessList.getTrie().size());
+    }
+
+    @Test
+    void brokenFileKeepsTheCurrentLists() throws Exception {
+        Path deny = write("deny.txt", "198.51.100.0/24\n", 1);
+        CidrAccessList accessList = new CidrAccessList(deny, null, ALLOW);
+
+        write("deny.txt", "198.51.100.0/24\n198.51.100.0/99\n", 2);
+        assertTrue(accessList.reloadIfChanged());
+        assertEquals(DENY, accessList.check("198.51.100.1"));
+    }
+
+    @Test
+    void defaultDenyOnlyLetsTheAllowListIn() throws Exception {
+        Path allow = write("allow.txt", "192.0.2.0/24\n", 1);
+        CidrAccessList accessList = new CidrAccessList(null, allow, DENY);
+
+        assertEquals(ALLOW, accessList.check("192.0.2.10"));
+        assertEquals(DENY, accessList.check("198.51.100.1"));
+        assertEquals(DENY, accessList.check("not-an-address"));
+    }
+
+    @Test
+    void filterAnswersForbiddenToDeniedClients() throws Exception {
+        Path deny = write("deny.txt", "203.0.113.0/24\n", 1);
+        LocalizationService localizationService = mock(LocalizationService.class);
+        when(localizationService.get(anyString())).thenReturn("Requests from your network are not allowed.");
+        CidrAccessFilter filter = new CidrAccessFilter(new CidrAccessList(deny, null, ALLOW), localizationService,
+                new ObjectMapper());
+
+        MockHttpServletRequest denied = new MockHttpServletRequest();
+        denied.setRemoteAddr("203.0.113.9");
+        denied.addHeader("X-Forwarded-For", "198.51.100.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(denied, response, chain);
+        assertEquals(403, response.getStatus());
+        assertNull(chain.getRequest(), "The chain stops at the filter");
+        assertTrue(response.getContentAsString().contains("not allowed"));
+
+        MockHttpServletRequest allowed = new MockHttpServletRequest();
+        allowed.setRemoteAddr("198.51.100.1");
+        allowed.addHeader("X-Forwarded-For", "203.0.113.9");
+        MockFilterChain allowedChain = new MockFilterChain();
+        filter.doFilter(allowed, new MockHttpServletResponse(), allowedChain);
+        assertSame(allowed, allowedChain.getRequest());
+    }
+}
@@ -0,0 +1,115 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.secutrity.services.CidrTrie;
+import com.project.spring_project.util.IpAddresses;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.project.spring_project.secutrity.services.CidrTrie.Action.ALLOW;
+import static com.project.spring_project.secutrity.services.CidrTrie.Action.DENY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CidrTrieTest {
+
+    private static CidrTrie.Action match(CidrTrie trie, String address) {
+        long[] parsed = new long[2];
+        assertTrue(IpAddresses.parse(address, parsed), address);
+        return trie.match(parsed[0], parsed[1]);
+    }
+
+    @Test
+    void mostSpecificBlockWins() {
+        CidrTrie trie = CidrTrie.builder()
+                .add("10.0.0.0/8", DENY)
+                .add("10.1.0.0/16", ALLOW)
+                .add("10.1.2.3", DENY)
+                .add("2001:db8::/32", DENY)
+                .add("2001:db8:1::/48", ALLOW)
+                .build();
+
+        assertEquals(DENY, match(trie, "10.200.0.1"));
+        assertEquals(ALLOW, match(trie, "10.1.9.9"));
+        assertEquals(DENY, match(trie, "10.1.2.3"));
+        assertEquals(ALLOW, match(trie, "10.1.2.4"));
+        assertNull(match(trie, "11.0.0.1"));
+        assertEquals(DENY, match(trie, "2001:db8:ffff::1"));
+        assertEquals(ALLOW, match(trie, "2001:db8:1:2::1"));
+        assertNull(match(trie, "2001:db9::1"));
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    void ipv4BlocksMatchOnlyIpv4Addresses() {
+        CidrTrie trie = CidrTrie.builder().add("0.0.0.0/0", DENY).build();
+
+        assertEquals(DENY, match(trie, "198.51.100.1"));
+        assertEquals(DENY, match(trie, "::ffff:198.51.100.1"), "IPv4-mapped addresses are IPv4 addresses");
+        assertNull(match(trie, "2001:db8::1"));
+
+        CidrTrie everything = CidrTrie.builder().add("::/0", DENY).build();
+        assertEquals(DENY, match(everything, "198.51.100.1"));
+        assertEquals(DENY, match(everything, "2001:db8::1"));
+    }
+
+    @Test
+    void hostBitsAreIgnoredAndDenyWinsOnDuplicates() {
+        CidrTrie trie = CidrTrie.builder()
+                .add("192.0.2.77/24", ALLOW)
+                .add("192.0.2.0/24", DENY)
+                .add("192.0.2.0/24", ALLOW)
+                .build();
+
+        assertEquals(DENY, match(trie, "192.0.2.1"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void invalidBlocksAreRejected() {
+        CidrTrie.Builder builder = CidrTrie.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0/33", DENY));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("2001:db8::/129", DENY));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0/8", DENY));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0/x", DENY));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("example.com", DENY));
+    }
+
+    @Test
+    void agreesWithALinearScanOverManyBlocks() {
+        Random random = new Random(7);
+        CidrTrie.Builder builder = CidrTrie.builder();
+        List<long[]> blocks = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int address = random.nextInt();
+            int bits = 8 + random.nextInt(25);
+            CidrTrie.Action action = random.nextBoolean() ? ALLOW : DENY;
+            builder.add(ipv4(address) + "/" + bits, action);
+            long mask = 0xFFFF_FFFFL << (32 - bits) & 0xFFFF_FFFFL;
+            blocks.add(new long[]{address & mask, mask, bits, action.ordinal()});
+        }
+        CidrTrie trie = builder.build();
+
+        for (int i = 0; i < 5_000; i++) {
+            // Near a block, so that most addresses fall in a few nested blocks
+            long address = blocks.get(random.nextInt(blocks.size()))[0] ^ random.nextInt(1 << random.nextInt(24));
+            int bestBits = -1;
+            int best = -1;
+            for (long[] block : blocks) {
+                if ((address & block[1]) == block[0]
+                        && (block[2] > bestBits || block[2] == bestBits && block[3] > best)) {
+                    bestBits = (int) block[2];
+                    best = (int) block[3];
+                }
+            }
+            CidrTrie.Action expected = best < 0 ? null : CidrTrie.Action.values()[best];
+            assertEquals(expected, match(trie, ipv4((int) address)), ipv4((int) address));
+        }
+    }
+
+    private static String ipv4(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "."
+                + (address & 0xFF);
+    }
+}
@@ -0,0 +1,159 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.dto.HeavyHitterDto;
+import com.project.spring_project.secutrity.services.CountMinSketch;
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHitterDetectorTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Ten-minute window; throttles a username at 20 failures, an address at 50 and a subnet at 200, for 15 minutes.
+     */
+    private HeavyHitterDetector detector(int sketchWidth) {
+        return new HeavyHitterDetector(10, sketchWidth, 600_000, 900_000, 100, 20, 50, 200, clock::get);
+    }
+
+    private static String address(int i) {
+        return "10." + ((i >>> 16) & 0xFF) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+    }
+
+    @Test
+    void oneUsernameFromThousandsOfAddressesIsThrottled() {
+        HeavyHitterDetector detector = detector(4096);
+
+        for (int i = 0; i < 5_000; i++) {
+            // One failure per address, each in its own /24
+            detector.recordLoginFailure(i % 2 == 0 ? "alice" : "Alice ", "10." + (i >>> 8) + "." + (i & 0xFF) + ".1");
+        }
+
+        assertTrue(detector.throttledNanos("alice", "198.51.100.9") > 0);
+        assertEquals(0, detector.throttledNanos("bob", "198.51.100.9"));
+        assertEquals(0, detector.throttledNanos(null, "10.0.7.1"), "No address failed more than once");
+
+        HeavyHitterDto top = detector.getHeavyHitters().get(0);
+        assertEquals("USERNAME", top.getKind());
+        assertEquals("alice", top.getKey());
+        assertEquals(5_000, top.getCount());
+        assertTrue(top.isThrottled());
+    }
+
+    @Test
+    void subnetIsThrottledWhileEachAddressStaysBelowItsThreshold() {
+        HeavyHitterDetector detector = detector(4096);
+
+        for (int i = 0; i < 250; i++) {
+            detector.recordLoginFailure("user" + i, "203.0.113." + (i % 125));
+        }
+
+        assertTrue(detector.throttledNanos(null, "203.0.113.200") > 0, "Every address of the /24 is throttled");
+        assertEquals(0, detector.throttledNanos(null, "203.0.114.1"));
+        assertTrue(detector.getHeavyHitters().stream()
+                .anyMatch(hitter -> hitter.getKey().equals("203.0.113.0/24") && hitter.isThrottled()));
+    }
+
+    @Test
+    void rateLimitedRequestsCountTowardsTheAddress() {
+        HeavyHitterDetector detector = detector(4096);
+
+        for (int i = 0; i < 49; i++) {
+            detector.recordRateLimited("2001:db8:1:2::7");
+        }
+        assertEquals(0, detector.throttledNanos(null, "2001:db8:1:2::7"));
+
+        detector.recordLoginFailure("mallory", "2001:db8:1:2::7");
+        assertTrue(detector.throttledNanos(null, "2001:db8:1:2::7") > 0);
+        assertTrue(detector.getHeavyHitters().stream().anyMatch(hitter -> hitter.getKey().equals("2001:db8:1::/48")));
+    }
+
+    @Test
+    void failuresLeaveTheWindowAndThrottlesExpire() {
+        HeavyHitterDetector detector = detector(4096);
+        for (int i = 0; i < 19; i++) {
+            detector.recordLoginFailure("carol", address(i));
+        }
+
+        clock.addAndGet(11 * MINUTE);
+        for (int i = 0; i < 19; i++) {
+            detector.recordLoginFailure("carol", address(i));
+        }
+        assertEquals(0, detector.throttledNanos("carol", null), "Only 19 failures are in the window");
+        assertEquals(19, detector.getHeavyHitters().get(0).getCount());
+
+        detector.recordLoginFailure("carol", null);
+        long throttled = detector.throttledNanos("carol", null);
+        assertEquals(Duration.ofMinutes(15).toNanos(), throttled);
+
+        clock.addAndGet(throttled);
+        assertEquals(0, detector.throttledNanos("carol", null));
+    }
+
+    @Test
+    void throttledKeysDoNotStopNewKeysFromBeingThrottled() {
+        HeavyHitterDetector detector = new HeavyHitterDetector(10, 4096, 600_000, 900_000, 15, 20, 50, 200,
+                clock::get);
+        for (int user = 0; user < 30; user++) {
+            for (int i = 0; i < 20; i++) {
+                detector.recordLoginFailure("user" + user, null);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            detector.recordLoginFailure("newcomer", null);
+        }
+
+        assertTrue(detector.throttledNanos("newcomer", null) > 0, "The top keys are all throttled already");
+        assertTrue(detector.throttledNanos("user29", null) > 0);
+        assertEquals(0, detector.throttledNanos("user0", null), "The oldest throttles are released past 15");
+        assertEquals(10, detector.getHeavyHitters().stream().filter(HeavyHitterDto::isThrottled).count(),
+                "Ten keys of each kind are listed");
+    }
+
+    @Test
+    void memoryStaysFixedWithAMillionDistinctKeys() {
+        HeavyHitterDetector detector = detector(1 << 15);
+        long footprint = detector.footprintBytes();
+
+        for (int i = 0; i < 1_000_000; i++) {
+            clock.addAndGet(1_000_000); // 1000 failures per second, 600k per window
+            detector.recordLoginFailure("user" + i, address(i));
+            if (i % 10_000 == 0) {
+                detector.recordLoginFailure("target", address(i));
+            }
+        }
+
+        assertEquals(footprint, detector.footprintBytes());
+        List<HeavyHitterDto> heavyHitters = detector.getHeavyHitters();
+        assertTrue(heavyHitters.size() <= 30, "At most ten keys of each kind are kept");
+        assertTrue(heavyHitters.stream().anyMatch(hitter -> hitter.getKey().equals("target")));
+        assertTrue(detector.throttledNanos("target", null) > 0, "60 failures in the last window");
+        assertEquals(0, detector.throttledNanos("user999999", null));
+    }
+
+    @Test
+    void sketchNeverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(1 << 15, 10, 600_000, clock::get);
+        for (int key = 0; key < 10_000; key++) {
+            for (int n = 0; n <= key % 5; n++) {
+                sketch.add(0, key);
+            }
+        }
+        int exact = 0;
+        for (int key = 0; key < 10_000; key++) {
+            long estimate = sketch.estimate(0, key);
+            assertTrue(estimate >= key % 5 + 1);
+            exact += estimate == key % 5 + 1 ? 1 : 0;
+        }
+        assertTrue(exact > 5_000, "Conservative updates keep most estimates exact, " + exact + " were");
+        assertEquals(10L * 4 * (1 << 15) * Integer.BYTES, sketch.footprintBytes());
+    }
+}
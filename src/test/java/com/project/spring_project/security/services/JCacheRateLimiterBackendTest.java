@@ -0,0 +1,158 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.secutrity.services.JCacheRateLimiterBackend;
+import com.project.spring_project.secutrity.services.LeasingRateLimiterBackend;
+import com.project.spring_project.secutrity.services.RateLimitBandwidth;
+import com.project.spring_project.util.IpAddresses;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.project.spring_project.secutrity.services.RateLimiterBackend.allowed;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the shared backends against Caffeine's in-process JCache provider; two backends on one cache stand for two
+ * nodes of a cluster.
+ */
+public class JCacheRateLimiterBackendTest {
+
+    private static final String PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+    private static final long CLIENT = IpAddresses.IPV4_MAPPED | 0xCB007107L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private CacheManager cacheManager;
+    private Cache<String, byte[]> cache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = Caching.getCachingProvider(PROVIDER).getCacheManager();
+        cache = cacheManager.createCache("rate-limit-test",
+                new MutableConfiguration<String, byte[]>().setTypes(String.class, byte[].class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.destroyCache("rate-limit-test");
+    }
+
+    private JCacheRateLimiterBackend node() {
+        return new JCacheRateLimiterBackend(cache, 5, Duration.ofMinutes(1));
+    }
+
+    /**
+     * A node that counts its calls to the shared cache.
+     */
+    private JCacheRateLimiterBackend countingNode(AtomicInteger remoteCalls) {
+        return new JCacheRateLimiterBackend(cache, 5, Duration.ofMinutes(1)) {
+            @Override
+            public Grant tryConsumeUpTo(long hi, long lo, long tokens) {
+                remoteCalls.incrementAndGet();
+                return super.tryConsumeUpTo(hi, lo, tokens);
+            }
+        };
+    }
+
+    @Test
+    void nodesShareOneBucketPerClient() {
+        JCacheRateLimiterBackend first = node();
+        JCacheRateLimiterBackend second = node();
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (allowed((i % 2 == 0 ? first : second).tryConsume(0, CLIENT))) {
+                allowed++;
+            }
+        }
+
+        assertEquals(5, allowed, "The limit applies to the cluster, not to each node");
+        assertTrue(allowed(first.tryConsume(0, CLIENT + 1)), "Other clients have their own bucket");
+    }
+
+    @Test
+    void clearEmptiesTheSharedBuckets() {
+        JCacheRateLimiterBackend backend = node();
+        for (int i = 0; i < 5; i++) {
+            backend.tryConsume(0, CLIENT);
+        }
+        assertFalse(allowed(backend.tryConsume(0, CLIENT)));
+
+        backend.clear();
+
+        assertTrue(allowed(backend.tryConsume(0, CLIENT)));
+    }
+
+    @Test
+    void hybridLeasesTokensInBatchesWithinTheClusterLimit() {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        LeasingRateLimiterBackend first = new LeasingRateLimiterBackend(
+                countingNode(remoteCalls), 2, 1_000, 1_000, clock::get);
+        LeasingRateLimiterBackend second = new LeasingRateLimiterBackend(
+                countingNode(remoteCalls), 2, 1_000, 1_000, clock::get);
+
+        int allowed = 0;
+        for (int i = 0; i < 4; i++) {
+            allowed += allowed(first.tryConsume(0, CLIENT)) ? 1 : 0;
+        }
+        assertEquals(4, allowed);
+        assertEquals(3, remoteCalls.get(), "One token, then two leases of two once the client is busy");
+
+        allowed += allowed(second.tryConsume(0, CLIENT)) ? 1 : 0;
+        allowed += allowed(second.tryConsume(0, CLIENT)) ? 1 : 0;
+        allowed += allowed(first.tryConsume(0, CLIENT)) ? 1 : 0;
+
+        assertEquals(5, allowed, "Leases never exceed the cluster-wide limit");
+    }
+
+    @Test
+    void expiredLeasesAreNotUsed() {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        LeasingRateLimiterBackend backend = new LeasingRateLimiterBackend(
+                countingNode(remoteCalls), 5, 1_000, 1_000, clock::get);
+
+        assertTrue(allowed(backend.tryConsume(0, CLIENT)));
+        assertTrue(allowed(backend.tryConsume(0, CLIENT)), "Leases the four tokens left");
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        // The three tokens left in the lease are gone; the shared bucket has none left either
+        assertFalse(allowed(backend.tryConsume(0, CLIENT)));
+        assertEquals(3, remoteCalls.get());
+    }
+
+    @Test
+    void slowClientsLeaseOneTokenAtATime() {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        LeasingRateLimiterBackend backend = new LeasingRateLimiterBackend(
+                countingNode(remoteCalls), 5, 1_000, 1_000, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(allowed(backend.tryConsume(0, CLIENT)), "No token is left to expire in a lease");
+            clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        }
+        assertFalse(allowed(backend.tryConsume(0, CLIENT)));
+        assertEquals(6, remoteCalls.get());
+    }
+
+    @Test
+    void probeReportsTheTightestBandwidthAndTheWait() {
+        JCacheRateLimiterBackend backend = new JCacheRateLimiterBackend(cache, "search", List.of(
+                RateLimitBandwidth.parse("2/1s"), RateLimitBandwidth.parse("100/1h")));
+
+        assertEquals(1, backend.tryConsume(0, CLIENT));
+        assertEquals(0, backend.tryConsume(0, CLIENT));
+        long probe = backend.tryConsume(0, CLIENT);
+        assertTrue(probe < 0 && -probe <= Duration.ofMillis(500).toNanos(), "Waits for the per-second bandwidth");
+
+        assertTrue(allowed(node().tryConsume(0, CLIENT)), "Policies sharing the cache keep their own buckets");
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.secutrity.services.LoginAttemptTracker;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class LoginAttemptTrackerTest {
+
+    private static final long FIFTEEN_MINUTES = Duration.ofMinutes(15).toMillis();
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MutableClock clock = new MutableClock();
+    private final LoginAttemptTracker tracker =
+            new LoginAttemptTracker(jdbcTemplate, 5, FIFTEEN_MINUTES, FIFTEEN_MINUTES, clock);
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    void fifthFailureLocksForFifteenMinutes() {
+        User user = user(1L);
+        for (int i = 0; i < 4; i++) {
+            assertFalse(tracker.recordFailure(1L));
+        }
+        assertFalse(tracker.isLocked(user));
+
+        assertTrue(tracker.recordFailure(1L));
+        assertTrue(tracker.isLocked(user));
+
+        clock.advance(FIFTEEN_MINUTES - 1);
+        assertTrue(tracker.isLocked(user));
+
+        clock.advance(1);
+        assertFalse(tracker.isLocked(user));
+        assertEquals(0, tracker.getFailedAttempts(1L));
+    }
+
+    @Test
+    void failuresOutsideTheWindowDoNotCount() {
+        for (int i = 0; i < 4; i++) {
+            tracker.recordFailure(1L);
+        }
+        clock.advance(FIFTEEN_MINUTES + 1);
+
+        assertFalse(tracker.recordFailure(1L));
+        assertEquals(1, tracker.getFailedAttempts(1L));
+    }
+
+    @Test
+    void successClearsFailures() {
+        User user = user(1L);
+        tracker.recordFailure(1L);
+        tracker.recordSuccess(user);
+
+        assertEquals(0, tracker.getFailedAttempts(1L));
+    }
+
+    @Test
+    void persistedLockIsHonoured() {
+        User lockedByAdmin = user(1L);
+        lockedByAdmin.setAccountLocked(true);
+        User lockedEarlier = user(2L);
+        lockedEarlier.setAccountLocked(true);
+        lockedEarlier.setLockTime(LocalDateTime.ofInstant(clock.instant(), clock.getZone()).minusMinutes(5));
+        User lockExpired = user(3L);
+        lockExpired.setAccountLocked(true);
+        lockExpired.setLockTime(LocalDateTime.ofInstant(clock.instant(), clock.getZone()).minusMinutes(16));
+
+        assertTrue(tracker.isLocked(lockedByAdmin));
+        assertTrue(tracker.isLocked(lockedEarlier));
+        assertFalse(tracker.isLocked(lockExpired));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesChangedUsersInOneBatch() {
+        for (int i = 0; i < 5; i++) {
+            tracker.recordFailure(1L);
+        }
+        tracker.recordFailure(2L);
+        tracker.recordFailure(2L);
+
+        tracker.flush();
+        tracker.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        for (Object[] row : batch.getValue()) {
+            if (row[3].equals(1L)) {
+                assertArrayEquals(new Object[]{5, true}, new Object[]{row[0], row[1]});
+                assertNotNull(row[2]);
+            } else {
+                assertArrayEquals(new Object[]{2, false, null, 2L}, row);
+            }
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-07-01T10:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.dto.request.RequestContext;
+import com.project.spring_project.exception.PasswordHashingBusyException;
+import com.project.spring_project.secutrity.services.PasswordHashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        RequestContext.clear();
+        LocaleContextHolder.resetLocaleContext();
+    }
+
+    @Test
+    void taskRunsWithTheSubmittersRequestAndLocale() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContext.setRequest(request);
+        LocaleContextHolder.setLocale(Locale.forLanguageTag("es"));
+
+        CompletableFuture<Object[]> seen = executor.submit(() -> new Object[]{
+                RequestContext.getRequest(), LocaleContextHolder.getLocale(), Thread.currentThread().getName()});
+
+        Object[] context = seen.get(5, TimeUnit.SECONDS);
+        assertSame(request, context[0]);
+        assertEquals(Locale.forLanguageTag("es"), context[1]);
+        assertTrue(((String) context[2]).startsWith("password-hashing-"));
+    }
+
+    @Test
+    void failureCompletesTheFutureExceptionally() {
+        CompletableFuture<Object> future = executor.submit(() -> {
+            throw new IllegalArgumentException("bad password");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.run(() -> {
+            running.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = executor.run(() -> { });
+
+        PasswordHashingBusyException e = assertThrows(PasswordHashingBusyException.class,
+                () -> executor.run(() -> { }));
+
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1, executor.getQueueSize());
+        assertEquals(1, executor.getRejected());
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
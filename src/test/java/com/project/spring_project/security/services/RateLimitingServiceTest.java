@@ -0,0 +1,220 @@
+package com.project.spring_project.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.config.RateLimitPolicyProperties;
+import com.project.spring_project.secutrity.filter.RateLimitInterceptor;
+import com.project.spring_project.secutrity.services.HeavyHitterDetector;
+import com.project.spring_project.secutrity.services.JwtUserPrincipal;
+import com.project.spring_project.secutrity.services.RateLimitPolicy;
+import com.project.spring_project.secutrity.services.RateLimited;
+import com.project.spring_project.secutrity.services.RateLimitingService;
+import com.project.spring_project.secutrity.services.TokenBucketTable;
+import com.project.spring_project.util.LocalizationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resolves the policies of a sample controller registered in a plain application context, without starting the
+ * application.
+ */
+public class RateLimitingServiceTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private GenericApplicationContext context;
+    private RateLimitingService service;
+
+    @RestController
+    @RequestMapping("/api")
+    static class SampleController {
+
+        @PostMapping("/auth/login")
+        public String login() {
+            return "login";
+        }
+
+        @RateLimited("auth")
+        @GetMapping("/public/ping")
+        public String ping() {
+            return "ping";
+        }
+
+        @GetMapping("/admin/users/{id}")
+        public String user() {
+            return "user";
+        }
+
+        @RateLimited(key = RateLimited.Key.USER, limits = {"2/1m", "100/1h"})
+        @GetMapping("/reports")
+        public String reports() {
+            return "reports";
+        }
+
+        @GetMapping("/open")
+        public String open() {
+            return "open";
+        }
+    }
+
+    @RestController
+    static class MisconfiguredController {
+
+        @RateLimited("missing")
+        @GetMapping("/api/broken")
+        public String broken() {
+            return "broken";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = context(SampleController.class);
+        service = service(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    private static GenericApplicationContext context(Class<?> controller) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(controller);
+        context.registerBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        context.refresh();
+        return context;
+    }
+
+    private RateLimitingService service(GenericApplicationContext context) {
+        RateLimitPolicyProperties properties = new RateLimitPolicyProperties();
+        RateLimitPolicyProperties.Policy auth = new RateLimitPolicyProperties.Policy();
+        auth.setRoutes(List.of("/api/auth/**"));
+        auth.setLimits(List.of("5/1m"));
+        RateLimitPolicyProperties.Policy admin = new RateLimitPolicyProperties.Policy();
+        admin.setRoutes(List.of("/api/admin/**"));
+        admin.setKey(RateLimited.Key.ROLE);
+        admin.setTiers(Map.of("ADMIN", List.of("3/1m")));
+        admin.setLimits(List.of("1/1m"));
+        properties.setRateLimitPolicies(Map.of("auth", auth, "admin", admin));
+
+        RateLimitingService service = new RateLimitingService(properties,
+                (name, bandwidths) -> new TokenBucketTable(1_000, bandwidths, clock::get), context);
+        service.afterSingletonsInstantiated();
+        return service;
+    }
+
+    private HandlerMethod handler(String name) {
+        return context.getBean(RequestMappingHandlerMapping.class).getHandlerMethods().values().stream()
+                .filter(handler -> handler.getMethod().getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static MockHttpServletRequest request(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static void authenticate(long userId, String... roles) {
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles)
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+        JwtUserPrincipal principal = new JwtUserPrincipal(userId, "user" + userId, null, List.copyOf(authorities));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    @Test
+    void routeAndNamedPoliciesShareTheirBuckets() {
+        assertEquals(4, service.tryConsume(handler("login"), request("203.0.113.7")));
+        assertEquals(3, service.tryConsume(handler("ping"), request("203.0.113.7")),
+                "The annotation names the policy of the auth routes");
+        assertEquals(4, service.tryConsume(handler("login"), request("203.0.113.8")));
+        assertEquals(RateLimitPolicy.UNLIMITED, service.tryConsume(handler("open"), request("203.0.113.7")));
+    }
+
+    @Test
+    void userPoliciesCountPerUserAcrossAddresses() {
+        authenticate(42, "USER");
+        assertEquals(1, service.tryConsume(handler("reports"), request("203.0.113.7")));
+        assertEquals(0, service.tryConsume(handler("reports"), request("198.51.100.1")));
+        assertTrue(service.tryConsume(handler("reports"), request("198.51.100.2")) < 0);
+
+        authenticate(43, "USER");
+        assertEquals(1, service.tryConsume(handler("reports"), request("203.0.113.7")));
+
+        SecurityContextHolder.clearContext();
+        assertEquals(1, service.tryConsume(handler("reports"), request("203.0.113.7")),
+                "Anonymous requests are counted per address");
+    }
+
+    @Test
+    void rolePoliciesPickTheLimitsOfTheUsersTier() {
+        authenticate(1, "USER", "ADMIN");
+        assertEquals(2, service.tryConsume(handler("user"), request("203.0.113.7")));
+
+        authenticate(2, "USER");
+        assertEquals(0, service.tryConsume(handler("user"), request("203.0.113.7")));
+        assertEquals(-60 * SECOND, service.tryConsume(handler("user"), request("203.0.113.7")));
+    }
+
+    @Test
+    void unknownPolicyNamesFailAtStartup() {
+        try (GenericApplicationContext broken = context(MisconfiguredController.class)) {
+            assertThrows(IllegalStateException.class, () -> service(broken));
+        }
+    }
+
+    @Test
+    void interceptorReportsTheProbeInHeaders() throws Exception {
+        LocalizationService localizationService = mock(LocalizationService.class);
+        when(localizationService.get(anyString())).thenReturn("Too many requests");
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(service,
+                new HeavyHitterDetector(10, 1024, 60_000, 60_000, 100, 20, 50, 200, clock::get), localizationService,
+                new ObjectMapper());
+
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertTrue(interceptor.preHandle(request("203.0.113.7"), response, handler("login")));
+            assertEquals(Integer.toString(remaining), response.getHeader(RateLimitInterceptor.REMAINING_HEADER));
+        }
+
+        clock.addAndGet(SECOND / 2);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("203.0.113.7"), rejected, handler("login")));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("12", rejected.getHeader(RateLimitInterceptor.RETRY_AFTER_HEADER), "Rounded up to a second");
+        assertTrue(rejected.getContentAsString().contains("Too many requests"));
+
+        MockHttpServletResponse open = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request("203.0.113.7"), open, handler("open")));
+        assertNull(open.getHeader(RateLimitInterceptor.REMAINING_HEADER));
+    }
+}
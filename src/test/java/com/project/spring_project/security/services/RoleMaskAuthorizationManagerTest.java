@@ -0,0 +1,145 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.controller.TestController;
+import com.project.spring_project.controller.user.UserController;
+import com.project.spring_project.entity.user.Role;
+import com.project.spring_project.entity.user.User;
+import com.project.spring_project.secutrity.services.CustomUserDetails;
+import com.project.spring_project.secutrity.services.JwtUserPrincipal;
+import com.project.spring_project.secutrity.services.RoleCatalog;
+import com.project.spring_project.secutrity.services.RoleMaskAuthorizationManager;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RoleMaskAuthorizationManagerTest {
+
+    private static final Role ADMIN = new Role(1L, "ADMIN", null);
+    private static final Role AUDITOR = new Role(2L, "AUDITOR", null);
+    private static final Role USER = new Role(3L, "USER", null);
+
+    private AuthorizationManager<MethodInvocation> expressions;
+    private RoleMaskAuthorizationManager manager;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        RoleCatalog catalog = new RoleCatalog(List.of(ADMIN, AUDITOR, USER));
+        expressions = mock(AuthorizationManager.class);
+        when(expressions.authorize(any(), any())).thenReturn(new AuthorizationDecision(true));
+        manager = new RoleMaskAuthorizationManager(() -> catalog, expressions);
+    }
+
+    private static MethodInvocation invocation(Class<?> type, String name) {
+        Method method = Arrays.stream(type.getDeclaredMethods())
+                .filter(candidate -> candidate.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+        return new SimpleMethodInvocation(null, method);
+    }
+
+    private static Authentication login(Role... roles) {
+        User user = new User();
+        user.setUsername("user");
+        user.setRoles(Set.of(roles));
+        CustomUserDetails details = new CustomUserDetails(user);
+        return new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities());
+    }
+
+    private boolean granted(Authentication authentication, MethodInvocation invocation) {
+        return manager.authorize(() -> authentication, invocation).isGranted();
+    }
+
+    @Test
+    void roleExpressionsAreBitTests() {
+        MethodInvocation adminOrAuditor = invocation(TestController.class, "auditorEndpoint");
+        MethodInvocation admin = invocation(TestController.class, "adminEndpoint");
+        MethodInvocation authenticated = invocation(UserController.class, "changeLanguage");
+
+        assertEquals(1 | 2 | 4, RoleCatalog.maskOf(Set.of(ADMIN, AUDITOR, USER)));
+        assertTrue(granted(login(AUDITOR), adminOrAuditor));
+        assertTrue(granted(login(ADMIN, USER), adminOrAuditor));
+        assertFalse(granted(login(USER), adminOrAuditor));
+        assertFalse(granted(login(AUDITOR), admin));
+        assertTrue(granted(login(), authenticated));
+        assertFalse(granted(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), authenticated));
+        verifyNoInteractions(expressions);
+    }
+
+    @Test
+    void missingAuthenticationIsAnError() {
+        MethodInvocation admin = invocation(TestController.class, "adminEndpoint");
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> manager.authorize(() -> null, admin));
+    }
+
+    @Test
+    void tokensWithoutRoleMaskAreCheckedByName() {
+        MethodInvocation adminOrAuditor = invocation(TestController.class, "auditorEndpoint");
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_AUDITOR");
+        JwtUserPrincipal oldToken = new JwtUserPrincipal(7L, "user", null, authorities);
+        JwtUserPrincipal newToken = new JwtUserPrincipal(7L, "user", null, authorities, 2);
+
+        assertEquals(RoleCatalog.UNRESOLVED, oldToken.getRoleMask());
+        assertTrue(granted(new UsernamePasswordAuthenticationToken(oldToken, null, authorities), adminOrAuditor));
+        assertTrue(granted(new UsernamePasswordAuthenticationToken(newToken, null, authorities), adminOrAuditor));
+        assertTrue(granted(new UsernamePasswordAuthenticationToken("user", null, authorities), adminOrAuditor));
+    }
+
+    @Test
+    void otherExpressionsAreLeftToSpel() {
+        assertTrue(granted(login(USER), invocation(Endpoints.class, "unknownRole")));
+        assertTrue(granted(login(USER), invocation(Endpoints.class, "argumentCheck")));
+        assertTrue(granted(login(USER), invocation(Endpoints.class, "parentheses")));
+        assertTrue(granted(login(USER), invocation(Endpoints.class, "notAnnotated")));
+        verify(expressions, times(4)).authorize(any(), any());
+
+        MethodInvocation mixed = invocation(Endpoints.class, "mixed");
+        assertTrue(granted(login(AUDITOR), mixed));
+        assertTrue(granted(login(USER), mixed));
+        assertFalse(granted(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), mixed));
+        verifyNoMoreInteractions(expressions);
+    }
+
+    static class Endpoints {
+
+        @PreAuthorize("hasRole('GUEST')")
+        void unknownRole() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
+        void argumentCheck() {
+        }
+
+        @PreAuthorize("(hasRole('ADMIN'))")
+        void parentheses() {
+        }
+
+        void notAnnotated() {
+        }
+
+        @PreAuthorize("hasAnyRole('ADMIN', 'AUDITOR') and isAuthenticated() or hasRole('USER')")
+        void mixed() {
+        }
+    }
+}
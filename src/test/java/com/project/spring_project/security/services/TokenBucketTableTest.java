@@ -0,0 +1,162 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.secutrity.services.RateLimitBandwidth;
+import com.project.spring_project.secutrity.services.RateLimitPolicy;
+import com.project.spring_project.secutrity.services.RateLimited;
+import com.project.spring_project.secutrity.services.RateLimiterBackend;
+import com.project.spring_project.secutrity.services.TokenBucketTable;
+import com.project.spring_project.util.IpAddresses;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTableTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final int DISTINCT_IPS = 10_000_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private TokenBucketTable table(int maxKeys) {
+        return new TokenBucketTable(maxKeys, 5, Duration.ofMinutes(1), clock::get);
+    }
+
+    private static long ipv4(long address) {
+        return IpAddresses.IPV4_MAPPED | address;
+    }
+
+    private static boolean allowed(TokenBucketTable table, long hi, long lo) {
+        return RateLimiterBackend.allowed(table.tryConsume(hi, lo));
+    }
+
+    @Test
+    void allowsTheBurstThenRefillsOneTokenPerInterval() {
+        TokenBucketTable table = table(1_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(allowed(table, 0, ipv4(1)));
+        }
+        assertFalse(allowed(table, 0, ipv4(1)));
+        assertTrue(allowed(table, 0, ipv4(2)), "Other keys have their own bucket");
+
+        clock.addAndGet(12 * SECOND);
+        assertTrue(allowed(table, 0, ipv4(1)));
+        assertFalse(allowed(table, 0, ipv4(1)));
+    }
+
+    @Test
+    void idleBucketsAreReclaimedByTheSweep() {
+        TokenBucketTable table = table(10_000);
+        for (int i = 0; i < 500; i++) {
+            allowed(table, 0, ipv4(i));
+        }
+        assertEquals(500, table.size());
+
+        // A minute later those buckets are full again; traffic from other clients sweeps them out
+        clock.addAndGet(60 * SECOND);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                table.tryConsume(1, i);
+            }
+        }
+
+        assertEquals(1_000, table.size());
+    }
+
+    @Test
+    void limitedKeyOutlivesTheChurnAroundIt() {
+        TokenBucketTable table = table(1_000);
+        for (int i = 0; i < 5; i++) {
+            allowed(table, 0, ipv4(7));
+        }
+        // Churn 4000 keys through a table of about 1000; the sets evict the buckets closest to full first
+        for (int round = 0; round < 20; round++) {
+            clock.addAndGet(SECOND / 10);
+            for (int i = 0; i < 200; i++) {
+                table.tryConsume(round, i);
+            }
+        }
+        assertFalse(allowed(table, 0, ipv4(7)), "A limited key within its window keeps its bucket");
+    }
+
+    @Test
+    void tenMillionDistinctIpsStayWithinTheFixedFootprint() {
+        TokenBucketTable table = table(100_000);
+        long footprint = table.footprintBytes();
+        int blocked = 0;
+
+        for (long address = 0; address < DISTINCT_IPS; address++) {
+            clock.addAndGet(1_000); // 10M requests within 10 seconds
+            if (!allowed(table, 0, ipv4(address))) {
+                blocked++;
+            }
+        }
+
+        assertEquals(0, blocked, "Every new address starts with a full bucket");
+        assertTrue(table.size() <= table.capacity());
+        assertTrue(table.capacity() >= 100_000);
+        assertEquals(footprint, table.footprintBytes());
+        assertTrue(footprint < 16L * 1024 * 1024, "Footprint was " + footprint);
+    }
+
+    @Test
+    void probeReportsTheTokensLeftAndTheWait() {
+        TokenBucketTable table = table(1_000);
+
+        assertEquals(4, table.tryConsume(0, ipv4(1)));
+        for (int i = 3; i >= 0; i--) {
+            assertEquals(i, table.tryConsume(0, ipv4(1)));
+        }
+        assertEquals(-12 * SECOND, table.tryConsume(0, ipv4(1)), "One token refills every 12 seconds");
+
+        clock.addAndGet(5 * SECOND);
+        assertEquals(-7 * SECOND, table.tryConsume(0, ipv4(1)));
+    }
+
+    @Test
+    void everyBandwidthMustAllowTheRequest() {
+        TokenBucketTable table = new TokenBucketTable(1_000, List.of(
+                new RateLimitBandwidth(2, Duration.ofSeconds(1)),
+                new RateLimitBandwidth(3, Duration.ofMinutes(1))), clock::get);
+
+        assertEquals(1, table.tryConsume(0, ipv4(1)), "The per-second bandwidth is the tighter one");
+        assertEquals(0, table.tryConsume(0, ipv4(1)));
+        assertFalse(allowed(table, 0, ipv4(1)));
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, table.tryConsume(0, ipv4(1)), "The per-minute bandwidth has one token left");
+        clock.addAndGet(SECOND);
+        assertEquals(-18 * SECOND, table.tryConsume(0, ipv4(1)), "The per-minute bandwidth refills in 20s");
+        assertEquals(table.capacity() * 4L * Long.BYTES, table.footprintBytes(), "Two keys and two full times per slot");
+    }
+
+    @Test
+    void tryConsumeDoesNotAllocate() {
+        RateLimitPolicy policy = new RateLimitPolicy("auth", RateLimited.Key.IP,
+                new TokenBucketTable(100_000, 5, Duration.ofMinutes(1), System::nanoTime), Map.of());
+        String[] addresses = new String[1_000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = i % 2 == 0 ? "10.0." + (i >> 8) + "." + (i & 0xFF) : "2001:db8::" + Integer.toHexString(i);
+        }
+        // Warm up the per-thread scratch buffer and the JIT
+        for (int i = 0; i < 200_000; i++) {
+            policy.tryConsume(addresses[i % addresses.length], null);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1_000_000; i++) {
+            policy.tryConsume(addresses[i % addresses.length], null);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(allocated < 64 * 1024, "1M calls allocated " + allocated + " bytes");
+    }
+}
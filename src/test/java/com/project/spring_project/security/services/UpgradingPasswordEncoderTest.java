@@ -0,0 +1,72 @@
+package com.project.spring_project.security.services;
+
+import com.project.spring_project.secutrity.services.BCryptCostCalibrator;
+import com.project.spring_project.secutrity.services.UpgradingPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpgradingPasswordEncoderTest {
+
+    private static final String PASSWORD = "Password123!";
+
+    @Test
+    void bcryptHashesStayUnprefixed() {
+        UpgradingPasswordEncoder encoder = new UpgradingPasswordEncoder(UpgradingPasswordEncoder.BCRYPT, 10);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertTrue(hash.startsWith("$2a$10$"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void lowerBcryptCostIsUpgraded() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        UpgradingPasswordEncoder encoder = new UpgradingPasswordEncoder(UpgradingPasswordEncoder.BCRYPT, 5);
+
+        assertTrue(encoder.matches(PASSWORD, legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void otherAlgorithmMatchesLegacyBcryptAndUpgradesIt() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        UpgradingPasswordEncoder encoder = new UpgradingPasswordEncoder(UpgradingPasswordEncoder.PBKDF2, 4);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertTrue(hash.startsWith("{pbkdf2}"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+        assertTrue(encoder.matches(PASSWORD, legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+
+        UpgradingPasswordEncoder backToBcrypt = new UpgradingPasswordEncoder(UpgradingPasswordEncoder.BCRYPT, 4);
+        assertTrue(backToBcrypt.matches(PASSWORD, hash));
+        assertTrue(backToBcrypt.upgradeEncoding(hash));
+    }
+
+    @Test
+    void emptyPasswordNeverMatchesNorUpgrades() {
+        UpgradingPasswordEncoder encoder = new UpgradingPasswordEncoder(UpgradingPasswordEncoder.BCRYPT, 4);
+
+        assertFalse(encoder.matches(PASSWORD, ""));
+        assertFalse(encoder.upgradeEncoding(""));
+    }
+
+    @Test
+    void unknownAlgorithmIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new UpgradingPasswordEncoder("md5", 10));
+    }
+
+    @Test
+    void calibratedCostDoublesUpToTheTarget() {
+        // 1 ms at cost 8: cost 12 takes ~16 ms, cost 13 ~32 ms
+        assertEquals(12, BCryptCostCalibrator.costFor(1_000_000L, 8, 20));
+        assertEquals(BCryptCostCalibrator.MIN_COST, BCryptCostCalibrator.costFor(50_000_000L, 8, 20));
+        assertEquals(BCryptCostCalibrator.MAX_COST, BCryptCostCalibrator.costFor(100_000L, 8, 60_000));
+    }
+}
@@ -0,0 +1,163 @@
+package com.project.spring_project.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.dto.request.AuditLogSearchRequest;
+import com.project.spring_project.exception.BadRequestException;
+import com.project.spring_project.service.impl.AuditLogExporter;
+import com.project.spring_project.util.LocalizationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AuditLogExporterTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 8, 1, 12, 30, 15);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AuditLogExporter exporter;
+    private String sql;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalizationService localizationService = mock(LocalizationService.class);
+        when(localizationService.get(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        exporter = new AuditLogExporter(jdbcTemplate, objectMapper, localizationService, 60_000);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            sql = invocation.getArgument(0);
+            return statement;
+        });
+    }
+
+    /**
+     * Streams the rows through the row callback, after preparing the statement on the mocked connection.
+     */
+    private void rows(List<Object[]> rows) {
+        doAnswer(invocation -> {
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            creator.createPreparedStatement(connection);
+            for (Object[] row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet resultSet(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn((Long) row[0]);
+        when(rs.getLong(2)).thenReturn(row[1] != null ? (Long) row[1] : 0L);
+        when(rs.wasNull()).thenReturn(row[1] == null);
+        when(rs.getString(3)).thenReturn((String) row[2]);
+        when(rs.getString(4)).thenReturn((String) row[3]);
+        when(rs.getTimestamp(5)).thenReturn(Timestamp.valueOf(TIME));
+        when(rs.getString(6)).thenReturn((String) row[4]);
+        when(rs.getString(7)).thenReturn((String) row[5]);
+        when(rs.getString(8)).thenReturn((String) row[6]);
+        return rs;
+    }
+
+    private static Object[] row(long id, Long userId, String details) {
+        return new Object[]{id, userId, userId != null ? "user" + userId : null, "LOGIN", details, "/api/auth/login",
+                "10.0.0.1"};
+    }
+
+    @Test
+    void ndjsonStreamsOneObjectPerLineOverAStreamingCursor() throws Exception {
+        rows(List.of(row(1, 7L, "first"), row(2, null, "second")));
+        AuditLogSearchRequest search = new AuditLogSearchRequest();
+        search.setUserId(7L);
+        search.setResource(" /api/a_b ");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(search, AuditLogExporter.Format.NDJSON, false).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(7, first.get("userId").asLong());
+        assertEquals("user7", first.get("username").asText());
+        assertEquals("2025-08-01T12:30:15", first.get("timestamp").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("userId").isNull());
+
+        assertTrue(sql.endsWith(" WHERE a.user_id = ? AND a.resource LIKE ? ESCAPE '\\\\' ORDER BY a.timestamp"), sql);
+        verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        verify(statement).setObject(1, 7L);
+        verify(statement).setObject(2, "/api/a\\_b%");
+    }
+
+    @Test
+    void gzippedCsvQuotesFieldsAndDefusesFormulas() throws Exception {
+        rows(List.of(row(1, 7L, "=HYPERLINK(\"http://example.com\")"), row(2, null, "a,b \"c\"")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(new AuditLogSearchRequest(), AuditLogExporter.Format.CSV, true).writeTo(out);
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("id,userId,username,operation,timestamp,details,resource,ipAddress\r\n"
+                + "1,7,user7,LOGIN,2025-08-01T12:30:15,\"'=HYPERLINK(\"\"http://example.com\"\")\",/api/auth/login,10.0.0.1\r\n"
+                + "2,,,LOGIN,2025-08-01T12:30:15,\"a,b \"\"c\"\"\",/api/auth/login,10.0.0.1\r\n", csv);
+        assertFalse(sql.contains("WHERE"), sql);
+    }
+
+    @Test
+    void clientGoingAwayCancelsTheQuery() throws Exception {
+        rows(LongStream.range(0, 1000).mapToObj(i -> row(i, i, "entry " + i)).toList());
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> exporter.export(new AuditLogSearchRequest(), AuditLogExporter.Format.NDJSON, false).writeTo(closed));
+        verify(statement).cancel();
+    }
+
+    @Test
+    void emptyTimeRangeIsRejected() {
+        AuditLogSearchRequest search = new AuditLogSearchRequest();
+        search.setFrom(TIME);
+        search.setTo(TIME);
+
+        assertThrows(BadRequestException.class, () -> exporter.export(search, AuditLogExporter.Format.CSV, false));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
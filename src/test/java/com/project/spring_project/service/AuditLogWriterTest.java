@@ -0,0 +1,203 @@
+package com.project.spring_project.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.spring_project.service.impl.AuditLogWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class AuditLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final List<String> eventIds = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch database = new CountDownLatch(1);
+    private final List<AuditLogWriter> writers = new ArrayList<>();
+
+    /**
+     * Records the size and event ids of each batch; the first batch counts {@link #blocked} down and waits until
+     * {@link #database} is released.
+     */
+    private void recordBatches(boolean blockFirst) {
+        doAnswer(invocation -> {
+            if (blockFirst && batches.isEmpty()) {
+                blocked.countDown();
+                assertTrue(database.await(5, TimeUnit.SECONDS));
+            }
+            List<Object[]> rows = invocation.getArgument(1);
+            rows.forEach(row -> eventIds.add((String) row[0]));
+            batches.add(rows.size());
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    private AuditLogWriter writer(JdbcTemplate jdbcTemplate, int segmentBytes, long logMaxBytes, int batchSize,
+                                  long flushMs, String overflowPolicy) {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, new ObjectMapper(), directory.toString(), segmentBytes, logMaxBytes,
+                batchSize, flushMs, overflowPolicy, 10, 20, 5000);
+        writers.add(writer);
+        return writer;
+    }
+
+    private static AuditLogWriter.Entry entry(int i) {
+        return new AuditLogWriter.Entry(UUID.randomUUID(), (long) i, "LOGIN", LocalDateTime.now(), "entry " + i,
+                "/api/auth/login", "10.0.0.1");
+    }
+
+    private static void waitFor(AuditLogWriter writer, long written) throws InterruptedException {
+        for (int i = 0; i < 500 && writer.getWritten() < written; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(written, writer.getWritten());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.countDown();
+        writers.forEach(AuditLogWriter::close);
+    }
+
+    @Test
+    void entriesAreInsertedInBatchesOnSizeOrTime() throws Exception {
+        recordBatches(true);
+        AuditLogWriter writer = writer(jdbcTemplate, 1 << 16, 1 << 20, 10, 50, "block");
+        writer.start();
+
+        writer.submit(entry(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 25; i++) {
+            writer.submit(entry(i));
+        }
+        database.countDown();
+        waitFor(writer, 26);
+
+        assertEquals(List.of(1, 10, 10, 5), batches, "Full batches go at once, the rest after 50 ms");
+    }
+
+    @Test
+    void shutdownDrainsTheLog() {
+        recordBatches(false);
+        AuditLogWriter writer = writer(jdbcTemplate, 1 << 16, 1 << 20, 50, 60_000, "block");
+        writer.start();
+        for (int i = 0; i < 30; i++) {
+            writer.submit(entry(i));
+        }
+
+        writer.stop();
+
+        assertEquals(30, writer.getWritten());
+        assertEquals(0, writer.getPending());
+    }
+
+    @Test
+    void entriesSurviveTheDatabaseAndAreLoadedAfterRestart() throws Exception {
+        JdbcTemplate down = mock(JdbcTemplate.class);
+        doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .when(down).batchUpdate(anyString(), anyList());
+        AuditLogWriter writer = writer(down, 1 << 16, 1 << 20, 10, 1, "block");
+        writer.start();
+        List<String> submitted = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            AuditLogWriter.Entry entry = entry(i);
+            submitted.add(entry.eventId().toString());
+            writer.submit(entry);
+        }
+        for (int i = 0; i < 500 && writer.getRetries() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(writer.getRetries() >= 3);
+        writer.close();
+        assertEquals(0, writer.getWritten());
+
+        recordBatches(false);
+        AuditLogWriter restarted = writer(jdbcTemplate, 1 << 16, 1 << 20, 10, 1, "block");
+        restarted.start();
+        waitFor(restarted, 15);
+
+        assertEquals(submitted, eventIds, "The same entries are inserted, with their event ids");
+    }
+
+    @Test
+    void fullLogDropsWithCounter() throws Exception {
+        recordBatches(true);
+        // About 100 bytes per entry: 2 entries per segment, 2 segments
+        AuditLogWriter writer = writer(jdbcTemplate, 256, 512, 10, 1, "drop");
+        writer.start();
+
+        writer.submit(entry(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            writer.submit(entry(i));
+        }
+        assertEquals(2, writer.getDropped());
+
+        database.countDown();
+        waitFor(writer, 4);
+    }
+
+    @Test
+    void badEntryIsDeadLetteredWithoutHoldingBackTheOthers() throws Exception {
+        AuditLogWriter.Entry bad = entry(1);
+        doThrow(new DataIntegrityViolationException("Data truncation"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        doAnswer(invocation -> {
+            // Varargs are expanded: argument 1 is the event id
+            if (bad.eventId().toString().equals(invocation.getArgument(1))) {
+                throw new DataIntegrityViolationException("Data truncation");
+            }
+            return 1;
+        }).when(jdbcTemplate).update(anyString(), any(Object[].class));
+        AuditLogWriter writer = writer(jdbcTemplate, 1 << 16, 1 << 20, 10, 1, "block");
+        writer.start();
+
+        writer.submit(entry(0));
+        writer.submit(bad);
+        writer.submit(entry(2));
+        waitFor(writer, 2);
+
+        assertEquals(1, writer.getDeadLettered());
+        List<String> lines = Files.readAllLines(directory.resolve("dead-letter.ndjson"));
+        assertEquals(1, lines.size());
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertEquals(bad.eventId().toString(), line.get("eventId").asText());
+        assertEquals("Data truncation", line.get("error").asText());
+        assertEquals(0, writer.getPending());
+    }
+
+    @Test
+    void longFieldsAreCutToTheirColumn() {
+        String forwardedFor = "203.0.113.7, ".repeat(20);
+        AuditLogWriter.Entry entry = new AuditLogWriter.Entry(UUID.randomUUID(), 1L, "LOGIN", LocalDateTime.now(),
+                "details", "/".repeat(1000), forwardedFor);
+
+        assertEquals(45, entry.ipAddress().length());
+        assertEquals(255, entry.resource().length());
+        assertEquals("details", entry.details());
+    }
+}
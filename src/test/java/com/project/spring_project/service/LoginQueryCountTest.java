@@ -0,0 +1,112 @@
+package com.project.spring_project.service;
+
+import com.project.spring_project.BaseTest;
+import com.project.spring_project.dto.request.AuthRequest;
+import com.project.spring_project.repository.user.UserRepository;
+import com.project.spring_project.secutrity.services.LoginAttemptTracker;
+import com.project.spring_project.utils.TestUserUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements of a login.
+ * <p>
+ * Before, a login looked the user up twice (once in AuthServiceImpl and once through the AuthenticationManager,
+ * each with a second select for the roles) and always saved the user. Now it is one select and the refresh token
+ * insert, the audit entry being inserted later by the AuditLogWriter; failed attempts are kept in memory by the
+ * LoginAttemptTracker.
+ */
+@SpringBootTest
+@Profile("dev")
+public class LoginQueryCountTest extends BaseTest {
+
+    @Autowired
+    private TestUserUtil testUserUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        testUserUtil.registerUserIfNotExists();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        testUserUtil.deleteTestUser();
+    }
+
+    private AuthRequest loginRequest(String password) {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(testUserUtil.getTestUsername());
+        request.setPassword(password);
+        return request;
+    }
+
+    @Test
+    void loginUsesFewerStatementsThanTheDoubleLookup() {
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.findByUsernameOrEmail(testUserUtil.getTestUsername());
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                    testUserUtil.getTestUsername(), testUserUtil.getRawPassword()));
+        });
+        long previousLookups = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        testUserUtil.getAuthService().login(loginRequest(testUserUtil.getRawPassword()));
+
+        // One select for the user and its roles, then the refresh token insert; the audit entry is queued
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount(), "Unchanged user must not be updated");
+        assertTrue(previousLookups >= 2, "The double lookup alone took " + previousLookups + " statements");
+    }
+
+    @Test
+    void failedLoginsDoNotWriteTheUserRow() {
+        Long userId = userRepository.findByUsername(testUserUtil.getTestUsername()).orElseThrow().getId();
+
+        statistics.clear();
+        assertThrows(BadCredentialsException.class,
+                () -> testUserUtil.getAuthService().login(loginRequest("Wrongpassword1!")));
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "Only the user lookup");
+        assertEquals(1, loginAttemptTracker.getFailedAttempts(userId));
+
+        statistics.clear();
+        testUserUtil.getAuthService().login(loginRequest(testUserUtil.getRawPassword()));
+
+        assertEquals(0, statistics.getEntityUpdateCount(), "Failed attempts are reset in memory");
+        assertEquals(0, loginAttemptTracker.getFailedAttempts(userId));
+    }
+}
@@ -1,13 +1,21 @@
 package com.project.spring_project.service;
 
 import com.project.spring_project.entity.user.RefreshToken;
+import com.project.spring_project.entity.user.RefreshTokenFamily;
 import com.project.spring_project.entity.user.User;
+import com.project.spring_project.dto.request.AuthRequest;
 import com.project.spring_project.dto.request.RefreshTokenRequest;
+import com.project.spring_project.dto.response.AuthResponse;
 import com.project.spring_project.exception.BadRequestException;
+import com.project.spring_project.repository.user.RefreshTokenFamilyRepository;
 import com.project.spring_project.repository.user.RefreshTokenRepository;
 import com.project.spring_project.repository.user.UserRepository;
 import com.project.spring_project.secutrity.jwt.JwtTokenProvider;
+import com.project.spring_project.secutrity.jwt.RefreshGraceCache;
+import com.project.spring_project.secutrity.jwt.SessionRegistry;
+import com.project.spring_project.secutrity.jwt.VerifiedTokenCache;
 import com.project.spring_project.service.impl.user.RefreshTokenServiceImpl;
+import com.project.spring_project.service.user.AuthService;
 import com.project.spring_project.util.LocalizationService;
 import com.project.spring_project.util.TokenUtils;
 import com.project.spring_project.utils.TestUserUtil;
@@ -24,7 +32,11 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -33,27 +45,60 @@ public class RefreshTokenServiceImplTest {
 
     private RefreshTokenRepository refreshTokenRepositoryMock;
     private RefreshTokenServiceImpl refreshTokenServiceImplMock;
+    private SessionRegistry sessionRegistryMock;
+    private JwtTokenProvider jwtServiceMock;
     private final UserRepository userRepository;
     private final RefreshTokenServiceImpl refreshTokenServiceImpl;
     private final RefreshTokenRepository refreshTokenRepository;
     private final TestUserUtil testUserUtil;
     private final LocalizationService localizationService;
+    private final AuthService authService;
+    private final RefreshGraceCache refreshGraceCache;
 
     @Autowired
-    public RefreshTokenServiceImplTest(UserRepository userRepository, RefreshTokenServiceImpl refreshTokenServiceImpl, RefreshTokenRepository refreshTokenRepository, TestUserUtil testUserUtil, LocalizationService localizationService) {
+    public RefreshTokenServiceImplTest(UserRepository userRepository, RefreshTokenServiceImpl refreshTokenServiceImpl, RefreshTokenRepository refreshTokenRepository, TestUserUtil testUserUtil, LocalizationService localizationService, AuthService authService, RefreshGraceCache refreshGraceCache) {
         this.userRepository = userRepository;
         this.refreshTokenServiceImpl = refreshTokenServiceImpl;
         this.refreshTokenRepository = refreshTokenRepository;
         this.testUserUtil = testUserUtil;
         this.localizationService = localizationService;
+        this.authService = authService;
+        this.refreshGraceCache = refreshGraceCache;
     }
 
     @BeforeEach
     void setup() {
         refreshTokenRepositoryMock = mock(RefreshTokenRepository.class);
-        JwtTokenProvider jwtService = mock(JwtTokenProvider.class);
-        UserRepository userRepositoryMock = mock(UserRepository.class);
-        refreshTokenServiceImplMock = new RefreshTokenServiceImpl(refreshTokenRepositoryMock, jwtService, userRepositoryMock, localizationService);
+        jwtServiceMock = mock(JwtTokenProvider.class);
+        sessionRegistryMock = mock(SessionRegistry.class);
+        refreshTokenServiceImplMock = new RefreshTokenServiceImpl(refreshTokenRepositoryMock, mock(RefreshTokenFamilyRepository.class), jwtServiceMock, localizationService, mock(VerifiedTokenCache.class), sessionRegistryMock, new RefreshGraceCache(0));
+    }
+
+    private RefreshToken familyToken(RefreshTokenFamily family, String rawToken, boolean isUsed) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(TokenUtils.hashedToken(rawToken));
+        token.setUser(family.getUser());
+        token.setFamily(family);
+        token.setExpiryDate(Instant.now().plus(1, ChronoUnit.DAYS));
+        token.setUsed(isUsed);
+        when(refreshTokenRepositoryMock.findByTokenHash(token.getTokenHash())).thenReturn(Optional.of(token));
+        return token;
+    }
+
+    private RefreshTokenFamily family(String currentRawToken) {
+        User user = new User();
+        user.setId(1L);
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setId(10L);
+        family.setUser(user);
+        family.setCurrentTokenHash(TokenUtils.hashedToken(currentRawToken));
+        return family;
+    }
+
+    private RefreshTokenRequest request(String rawToken) {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(rawToken);
+        return request;
     }
 
     private RefreshToken createAndSaveToken(User user, boolean isUsed, Instant expiry) {
@@ -89,6 +134,46 @@ public class RefreshTokenServiceImplTest {
         assertThrows(RuntimeException.class, () -> refreshTokenServiceImplMock.refreshAccessToken(request));
     }
 
+    @Test
+    void refreshAccessToken_currentToken_rotatesTheFamily() {
+        RefreshTokenFamily family = family("current");
+        familyToken(family, "current", false);
+        when(refreshTokenRepositoryMock.consume(TokenUtils.hashedToken("current"))).thenReturn(1);
+        when(jwtServiceMock.generateToken(any(User.class))).thenReturn("access-token");
+
+        AuthResponse response = refreshTokenServiceImplMock.refreshAccessToken(request("current"));
+
+        assertEquals("access-token", response.getToken());
+        assertEquals(TokenUtils.hashedToken(response.getRefreshToken()), family.getCurrentTokenHash());
+        assertEquals(TokenUtils.hashedToken("access-token"), family.getSessionTokenHash());
+        assertFalse(family.isRevoked());
+    }
+
+    @Test
+    void refreshAccessToken_replayedToken_revokesTheFamily() {
+        RefreshTokenFamily family = family("current");
+        familyToken(family, "previous", true);
+
+        assertThrows(BadRequestException.class, () -> refreshTokenServiceImplMock.refreshAccessToken(request("previous")));
+
+        assertTrue(family.isRevoked());
+        verify(refreshTokenRepositoryMock).markAllUsedByFamilyId(10L);
+        verify(refreshTokenRepositoryMock, never()).consume(any());
+    }
+
+    @Test
+    void refreshAccessToken_lostConsumeRace_keepsTheFamily() {
+        RefreshTokenFamily family = family("current");
+        familyToken(family, "current", false);
+        when(refreshTokenRepositoryMock.consume(TokenUtils.hashedToken("current"))).thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> refreshTokenServiceImplMock.refreshAccessToken(request("current")));
+
+        assertFalse(family.isRevoked());
+        verify(refreshTokenRepositoryMock, never()).markAllUsedByFamilyId(anyLong());
+        verify(sessionRegistryMock, never()).register(any(), any());
+    }
+
     @Test
     void refreshAccessToken_usedToken_shouldThrow() {
         testUserUtil.registerUserIfNotExists();
@@ -124,7 +209,7 @@ public class RefreshTokenServiceImplTest {
     }
 
     @Test
-    void cleanOldRefreshTokens_shouldDeleteExpiredOrUsed() {
+    void cleanOldRefreshTokens_shouldDeleteExpired() {
         testUserUtil.deleteTestUser();
         testUserUtil.registerUserIfNotExists();
 
@@ -138,11 +223,38 @@ public class RefreshTokenServiceImplTest {
         // When
         refreshTokenServiceImpl.cleanOldRefreshTokens();
 
-        // Then
+        // Then: the used token is kept until it expires, for replay detection
         List<RefreshToken> tokens = refreshTokenRepository.findAllByUser(user);
-        assertEquals(1, tokens.size());
-        assertFalse(tokens.getFirst().isUsed());
-        assertTrue(tokens.getFirst().getExpiryDate().isAfter(Instant.now()));
+        assertEquals(2, tokens.size());
+        assertTrue(tokens.stream().allMatch(token -> token.getExpiryDate().isAfter(Instant.now())));
+        assertEquals(1, tokens.stream().filter(RefreshToken::isUsed).count());
+
+        testUserUtil.deleteTestUser();
+    }
+
+    @Test
+    void cleanOldRefreshTokens_replayedTokenStillRevokesTheFamily() {
+        testUserUtil.deleteTestUser();
+        testUserUtil.registerUserIfNotExists();
+        AuthRequest login = new AuthRequest();
+        login.setUsername(testUserUtil.getTestUsername());
+        login.setPassword(testUserUtil.getRawPassword());
+
+        AuthResponse first = authService.login(login);
+        AuthResponse rotated = refreshTokenServiceImpl.refreshAccessToken(request(first.getRefreshToken()));
+        refreshTokenServiceImpl.cleanOldRefreshTokens();
+        // Past the grace window, where a duplicate would get the same response
+        refreshGraceCache.clear();
+
+        BadRequestException replay = assertThrows(BadRequestException.class,
+                () -> refreshTokenServiceImpl.refreshAccessToken(request(first.getRefreshToken())));
+
+        assertEquals(localizationService.get("token.refresh.used"), replay.getMessage());
+        RefreshToken current = refreshTokenRepository.findByTokenHash(TokenUtils.hashedToken(rotated.getRefreshToken()))
+                .orElseThrow();
+        assertTrue(current.getFamily().isRevoked());
+        assertThrows(BadRequestException.class,
+                () -> refreshTokenServiceImpl.refreshAccessToken(request(rotated.getRefreshToken())));
 
         testUserUtil.deleteTestUser();
     }
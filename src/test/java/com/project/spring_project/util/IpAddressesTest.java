@@ -0,0 +1,68 @@
+package com.project.spring_project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpAddressesTest {
+
+    /**
+     * The address as InetAddress sees it, with IPv4 mapped to ::ffff:a.b.c.d.
+     */
+    private static long[] expected(String literal) throws Exception {
+        byte[] bytes = InetAddress.getByName(literal).getAddress();
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        if (bytes.length == 4) {
+            buffer.putLong(0).putInt(0xFFFF).put(bytes);
+        } else {
+            buffer.put(bytes);
+        }
+        return new long[]{buffer.getLong(0), buffer.getLong(8)};
+    }
+
+    private static long[] parse(String literal) {
+        long[] out = new long[2];
+        assertTrue(IpAddresses.parse(literal, out), literal);
+        return out;
+    }
+
+    @Test
+    void parsesLikeInetAddress() throws Exception {
+        String[] literals = {
+                "0.0.0.0", "127.0.0.1", "203.0.113.7", "255.255.255.255",
+                "::", "::1", "1::", "2001:db8::1", "2001:db8:0:0:1:0:0:1", "fe80::1:2:3:4",
+                "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "2001:DB8:ABCD::FFFF",
+                "::ffff:192.0.2.128", "64:ff9b::198.51.100.1", "1:2:3:4:5:6:1.2.3.4"
+        };
+        for (String literal : literals) {
+            assertArrayEquals(expected(literal), parse(literal), literal);
+        }
+    }
+
+    @Test
+    void ipv4AndItsMappedFormAreTheSameKey() {
+        assertArrayEquals(parse("192.0.2.128"), parse("::ffff:192.0.2.128"));
+        assertEquals(IpAddresses.IPV4_MAPPED | 0xC0000280L, parse("192.0.2.128")[1]);
+    }
+
+    @Test
+    void ignoresBracketsAndZoneIds() throws Exception {
+        assertArrayEquals(expected("::1"), parse("[::1]"));
+        assertArrayEquals(expected("fe80::1"), parse("fe80::1%eth0"));
+    }
+
+    @Test
+    void rejectsOtherValues() {
+        String[] invalid = {
+                null, "", "unknown", "localhost", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1.2.3.4:8080",
+                ":", ":::", "1:2", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7:8::", "1::2::3", "12345::", ":1::", "1:",
+                "g::1", "::1.2.3", "[]"
+        };
+        for (String value : invalid) {
+            assertFalse(IpAddresses.parse(value, new long[2]), String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.project.spring_project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<SegmentLog.Record> records) {
+        return records.stream().map(record -> new String(record.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void rotatesSegmentsAndResumesFromCheckpoint() throws Exception {
+        // 8 bytes of frame + 8 of payload: 4 records per segment
+        SegmentLog log = new SegmentLog(directory, 64, 256);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(log.append(bytes("record-" + i)));
+        }
+        assertEquals(3, segmentFiles());
+
+        List<SegmentLog.Record> first = log.read(6);
+        assertEquals(List.of("record-0", "record-1", "record-2", "record-3", "record-4", "record-5"), strings(first));
+        log.commit(first.get(5).next());
+        assertEquals(2, segmentFiles(), "Segments before the checkpoint are deleted");
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 64, 256);
+        assertTrue(reopened.hasUnread());
+        assertEquals(List.of("record-6", "record-7", "record-8", "record-9"), strings(reopened.read(100)));
+        assertFalse(reopened.hasUnread());
+        assertTrue(reopened.append(bytes("record-a")));
+        assertEquals(List.of("record-a"), strings(reopened.read(100)));
+    }
+
+    @Test
+    void fullLogRejectsAppends() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 128);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(log.append(bytes("record-" + i)));
+        }
+        assertFalse(log.append(bytes("record-8")));
+
+        List<SegmentLog.Record> records = log.read(4);
+        log.commit(records.get(3).next());
+        assertFalse(log.append(bytes("record-8")), "The first segment is still the head of the checkpoint");
+        log.commit(log.read(1).get(0).next());
+        assertTrue(log.append(bytes("record-8")));
+    }
+
+    @Test
+    void tornRecordIsDroppedOnOpen() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 1024, 4096);
+        log.append(bytes("record-0"));
+        log.append(bytes("record-1"));
+        log.append(bytes("record-2"));
+        log.force();
+
+        // Corrupt the payload of the second record, as a crash in the middle of its write would
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("00000000000000000000.seg").toFile(),
+                "rw")) {
+            file.seek(16 + 8 + 3);
+            file.write('X');
+        }
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 1024, 4096);
+        assertEquals(List.of("record-0"), strings(reopened.read(100)));
+        reopened.append(bytes("record-3"));
+        assertEquals(List.of("record-3"), strings(reopened.read(100)));
+        reopened.close();
+
+        SegmentLog again = new SegmentLog(directory, 1024, 4096);
+        assertEquals(List.of("record-0", "record-3"), strings(again.read(100)));
+    }
+
+    @Test
+    void directoryIsOpenedByOneLogAtATime() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 256);
+        log.append(bytes("record-0"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new SegmentLog(directory, 64, 256));
+        assertTrue(e.getMessage().contains("already open"));
+
+        log.close();
+        try (SegmentLog reopened = new SegmentLog(directory, 64, 256)) {
+            assertEquals(List.of("record-0"), strings(reopened.read(100)));
+        }
+    }
+
+    @Test
+    void rewindReadsUncommittedRecordsAgain() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 256);
+        for (int i = 0; i < 6; i++) {
+            log.append(bytes("record-" + i));
+        }
+        log.commit(log.read(2).get(1).next());
+        assertEquals(List.of("record-2", "record-3", "record-4"), strings(log.read(3)));
+
+        log.rewind();
+        assertEquals(List.of("record-2", "record-3", "record-4", "record-5"), strings(log.read(100)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.project.spring_project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenDigestTest {
+
+    private static String sha256Hex(String value) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
+    }
+
+    @Test
+    void hexMatchesPlainSha256() throws Exception {
+        for (String token : new String[]{"", "a", "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ1c2VyIn0.sig", "contraseña-ñ-€"}) {
+            assertEquals(sha256Hex(token), TokenDigest.of(token).toHex());
+            assertEquals(sha256Hex(token), TokenUtils.hashedToken(token));
+        }
+    }
+
+    @Test
+    void longTokensAreHashedCompletely() throws Exception {
+        String token = "x".repeat(10_000);
+        assertEquals(sha256Hex(token), TokenDigest.of(token).toHex());
+    }
+
+    @Test
+    void fromHexRoundTrips() {
+        TokenDigest digest = TokenDigest.of("token");
+        TokenDigest parsed = TokenDigest.fromHex(digest.toHex());
+
+        assertTrue(digest.matches(parsed));
+        assertEquals(digest, parsed);
+        assertEquals(digest.hashCode(), parsed.hashCode());
+        assertFalse(digest.matches(TokenDigest.of("other")));
+        assertFalse(digest.matches(null));
+    }
+
+    @Test
+    void fromHexRejectsInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> TokenDigest.fromHex(null));
+        assertThrows(IllegalArgumentException.class, () -> TokenDigest.fromHex("abc"));
+        assertThrows(IllegalArgumentException.class, () -> TokenDigest.fromHex("z".repeat(64)));
+    }
+
+    @Test
+    void constantTimeEqualsComparesValues() {
+        String hash = TokenUtils.hashedToken("token");
+        assertTrue(TokenUtils.constantTimeEquals(hash, TokenUtils.hashedToken("token")));
+        assertFalse(TokenUtils.constantTimeEquals(hash, TokenUtils.hashedToken("other")));
+        assertFalse(TokenUtils.constantTimeEquals(hash, hash.substring(1)));
+        assertFalse(TokenUtils.constantTimeEquals(hash, null));
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.spring_project.utils;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.support.TestPropertySourceUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every test application context an audit log directory of its own under {@code target}.
+ * <p>
+ * The audit log locks its directory, and the test suite caches several contexts in one JVM (those with a
+ * {@code @TestPropertySource} next to the default one), which would otherwise all open {@code app.auditLogDir}.
+ * Registered in {@code META-INF/spring.factories}; a test that sets {@code app.auditLogDir} in
+ * {@code @TestPropertySource} keeps its own.
+ */
+public class AuditLogDirectoryCustomizerFactory implements ContextCustomizerFactory {
+
+    private static final String PROPERTY = "app.auditLogDir";
+
+    @Override
+    public ContextCustomizer createContextCustomizer(Class<?> testClass,
+                                                     List<ContextConfigurationAttributes> configAttributes) {
+        return new AuditLogDirectoryCustomizer();
+    }
+
+    /**
+     * Equal to every other instance, so that it does not change which tests share a cached context.
+     */
+    private static final class AuditLogDirectoryCustomizer implements ContextCustomizer {
+
+        @Override
+        public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration config) {
+            MutablePropertySources sources = context.getEnvironment().getPropertySources();
+            PropertySource<?> inlined = sources.get(TestPropertySourceUtils.INLINED_PROPERTIES_PROPERTY_SOURCE_NAME);
+            if (inlined != null && inlined.containsProperty(PROPERTY)) {
+                return;
+            }
+            Path directory;
+            try {
+                Files.createDirectories(Path.of("target"));
+                directory = Files.createTempDirectory(Path.of("target"), "audit-log-");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sources.addFirst(new MapPropertySource("testAuditLogDir",
+                    Map.of(PROPERTY, directory.toAbsolutePath().toString())));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof AuditLogDirectoryCustomizer;
+        }
+
+        @Override
+        public int hashCode() {
+            return AuditLogDirectoryCustomizer.class.hashCode();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.spring_project.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread, so that tests can EXPLAIN the statements the
+ * repositories actually issue.
+ * <p>
+ * Registered with {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    /**
+     * Returns the statements recorded on the current thread since the last {@link #clear()}.
+     *
+     * @return the statements, in the order they were prepared
+     */
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+}